@@ -23,6 +23,8 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.IntConsumer;
 import javax.annotation.Nullable;
+import net.lax1dude.eaglercraft.v1_8.opengl.GlStateStatistics;
+import net.lax1dude.eaglercraft.v1_8.opengl.StreamBuffer;
 import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.CompiledShaderProgram;
@@ -143,6 +145,8 @@ public class RenderSystem {
         replayQueue();
         Tesselator.getInstance().clear();
         GLFW.glfwSwapBuffers(p_69496_);
+        GlStateStatistics.endFrame();
+        StreamBuffer.endFrame();
         if (p_365037_ != null) {
             p_365037_.endFrame();
         }
@@ -9,6 +9,7 @@ import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.Locale;
 import javax.annotation.Nullable;
+import net.lax1dude.eaglercraft.v1_8.sp.gui.ScreenPacketStatistics;
 import net.minecraft.ChatFormatting;
 import net.minecraft.CrashReport;
 import net.minecraft.CrashReportCategory;
@@ -209,6 +210,9 @@ public class KeyboardHandler {
                         this.copyRecreateCommand(this.minecraft.player.hasPermissions(2), !Screen.hasShiftDown());
                     }
 
+                    return true;
+                case 74:
+                    this.minecraft.setScreen(new ScreenPacketStatistics(this.minecraft.screen));
                     return true;
                 case 76:
                     if (this.minecraft.debugClientMetricsStart(this::debugFeedbackComponent)) {
@@ -63,6 +63,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
+import net.lax1dude.eaglercraft.v1_8.socket.EaglercraftNetworkManager;
 import net.minecraft.ChatFormatting;
 import net.minecraft.CrashReport;
 import net.minecraft.CrashReportCategory;
@@ -1784,6 +1785,7 @@ public class Minecraft extends ReentrantBlockableEventLoop<Runnable> implements
 
         profilerfiller.popPush("keyboard");
         this.keyboardHandler.tick();
+        EaglercraftNetworkManager.flushClientTick();
         profilerfiller.pop();
     }
 
@@ -21,6 +21,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
+import net.lax1dude.eaglercraft.v1_8.opengl.GlStateStatistics;
+import net.lax1dude.eaglercraft.v1_8.opengl.StreamBuffer;
+import net.lax1dude.eaglercraft.v1_8.sp.SingleplayerServerController;
+import net.lax1dude.eaglercraft.v1_8.sp.gui.GuiServerProfilerOverlay;
 import net.minecraft.ChatFormatting;
 import net.minecraft.SharedConstants;
 import net.minecraft.Util;
@@ -195,6 +199,10 @@ public class DebugScreenOverlay {
 
     protected void drawSystemInformation(GuiGraphics p_281261_) {
         List<String> list = this.getSystemInformation();
+        if (this.renderProfilerChart && SingleplayerServerController.isLevelRunning()) {
+            GuiServerProfilerOverlay.addDebugLines(list);
+        }
+
         this.renderLines(p_281261_, list, false);
     }
 
@@ -305,6 +313,9 @@ public class DebugScreenOverlay {
                 list.add(s4);
             }
 
+            list.add(GlStateStatistics.getDebugInfo());
+            list.add(StreamBuffer.getDebugInfo());
+
             list.add(this.minecraft.level.dimension().location() + " FC: " + longset.size());
             list.add("");
             list.add(
@@ -3,6 +3,7 @@ package net.minecraft.client.gui.screens.multiplayer;
 import com.mojang.logging.LogUtils;
 import java.util.List;
 import javax.annotation.Nullable;
+import net.lax1dude.eaglercraft.v1_8.socket.ServerQueryScheduler;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.Button;
 import net.minecraft.client.gui.layouts.EqualSpacingLayout;
@@ -138,6 +139,7 @@ public class JoinMultiplayerScreen extends Screen {
         }
 
         this.pinger.tick();
+        ServerQueryScheduler.tick();
     }
 
     @Override
@@ -148,11 +150,20 @@ public class JoinMultiplayerScreen extends Screen {
         }
 
         this.pinger.removeAll();
+        ServerQueryScheduler.cancelAll();
         this.serverSelectionList.removed();
     }
 
     private void refreshServerList() {
         this.minecraft.setScreen(new JoinMultiplayerScreen(this.lastScreen));
+
+        // after setScreen, removed() drops everything that was still pending
+        for (int i = 0; i < this.servers.size(); i++) {
+            String ip = this.servers.get(i).ip;
+            if (ServerQueryScheduler.isQueryable(ip)) {
+                ServerQueryScheduler.refresh(ip);
+            }
+        }
     }
 
     private void deleteCallback(boolean p_99712_) {
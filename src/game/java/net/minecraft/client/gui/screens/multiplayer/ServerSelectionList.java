@@ -10,6 +10,8 @@ import java.util.List;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import javax.annotation.Nullable;
+import net.lax1dude.eaglercraft.v1_8.socket.ServerQueryCache;
+import net.lax1dude.eaglercraft.v1_8.socket.ServerQueryScheduler;
 import net.minecraft.ChatFormatting;
 import net.minecraft.DefaultUncaughtExceptionHandler;
 import net.minecraft.SharedConstants;
@@ -23,6 +25,7 @@ import net.minecraft.client.gui.screens.LoadingDotsText;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.client.multiplayer.ServerData;
 import net.minecraft.client.multiplayer.ServerList;
+import net.minecraft.client.multiplayer.ServerStatusPinger;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.server.LanServer;
 import net.minecraft.network.chat.CommonComponents;
@@ -264,6 +267,10 @@ public class ServerSelectionList extends ObjectSelectionList<ServerSelectionList
         private ResourceLocation statusIcon;
         @Nullable
         private Component statusIconTooltip;
+        private boolean queryCached;
+        private int lastQueryUpdate = -1;
+        private boolean hasQueryIcon;
+        private int lastQueryIconHash;
 
         protected OnlineServerEntry(final JoinMultiplayerScreen p_99864_, final ServerData p_99865_) {
             this.screen = p_99864_;
@@ -286,7 +293,12 @@ public class ServerSelectionList extends ObjectSelectionList<ServerSelectionList
             boolean p_282999_,
             float p_281423_
         ) {
-            if (this.serverData.state() == ServerData.State.INITIAL) {
+            if (this.serverData.state() == ServerData.State.INITIAL && ServerQueryScheduler.isQueryable(this.serverData.ip)) {
+                this.serverData.setState(ServerData.State.PINGING);
+                this.serverData.motd = CommonComponents.EMPTY;
+                this.serverData.status = CommonComponents.EMPTY;
+                this.queryCached = true;
+            } else if (this.serverData.state() == ServerData.State.INITIAL) {
                 this.serverData.setState(ServerData.State.PINGING);
                 this.serverData.motd = CommonComponents.EMPTY;
                 this.serverData.status = CommonComponents.EMPTY;
@@ -322,6 +334,10 @@ public class ServerSelectionList extends ObjectSelectionList<ServerSelectionList
                     );
             }
 
+            if (this.queryCached) {
+                this.updateFromQueryCache();
+            }
+
             p_281406_.drawString(this.minecraft.font, this.serverData.name, p_281363_ + 32 + 3, p_282921_ + 1, -1);
             List<FormattedCharSequence> list = this.minecraft.font.split(this.serverData.motd, p_283596_ - 32 - 2);
 
@@ -353,6 +369,9 @@ public class ServerSelectionList extends ObjectSelectionList<ServerSelectionList
             if (!Arrays.equals(abyte, this.lastIconBytes)) {
                 if (this.uploadServerIcon(abyte)) {
                     this.lastIconBytes = abyte;
+                    // the saved icon replaced the queried one, apply the cached query again
+                    this.hasQueryIcon = false;
+                    this.lastQueryUpdate = -1;
                 } else {
                     this.serverData.setIconBytes(null);
                     this.updateServerList();
@@ -448,6 +467,41 @@ public class ServerSelectionList extends ObjectSelectionList<ServerSelectionList
             return true;
         }
 
+        private void updateFromQueryCache() {
+            ServerQueryCache.CachedServerInfo info = ServerQueryScheduler.request(this.serverData.ip);
+            if (info == null || info.updateCount == this.lastQueryUpdate) {
+                return;
+            }
+
+            this.lastQueryUpdate = info.updateCount;
+            if (info.failed) {
+                this.serverData.setState(ServerData.State.UNREACHABLE);
+                this.serverData.motd = ServerSelectionList.CANT_CONNECT_TEXT;
+                this.serverData.ping = -1L;
+            } else if (info.fetchedAt > 0L) {
+                this.serverData.motd = Component.literal(String.join("\n", info.motd));
+                this.serverData.status = ServerStatusPinger.formatPlayerCount(info.onlineCount, info.maxCount);
+                this.serverData.version = Component.literal(info.serverVersion);
+                this.serverData.ping = info.ping;
+                this.serverData.playerList = Lists.transform(info.players, Component::literal);
+                this.serverData.setState(ServerData.State.SUCCESSFUL);
+                if (info.iconPixels != null && (!this.hasQueryIcon || this.lastQueryIconHash != info.iconHash)) {
+                    NativeImage nativeimage = new NativeImage(64, 64, false);
+                    for (int i = 0; i < 4096; i++) {
+                        nativeimage.setPixel(i & 63, i >> 6, info.iconPixels[i]);
+                    }
+
+                    this.icon.upload(nativeimage);
+                    this.hasQueryIcon = true;
+                    this.lastQueryIconHash = info.iconHash;
+                }
+            } else {
+                return;
+            }
+
+            this.refreshStatus();
+        }
+
         private boolean uploadServerIcon(@Nullable byte[] p_273176_) {
             if (p_273176_ == null) {
                 this.icon.clear();
@@ -29,6 +29,7 @@ import joptsimple.ArgumentAcceptingOptionSpec;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
+import net.lax1dude.eaglercraft.v1_8.socket.PacketCodecTable;
 import net.minecraft.CrashReport;
 import net.minecraft.CrashReportCategory;
 import net.minecraft.DefaultUncaughtExceptionHandler;
@@ -125,6 +126,7 @@ public class Main {
             ClientBootstrap.bootstrap();
             GameLoadTimesEvent.INSTANCE.setBootstrapTime(Bootstrap.bootstrapDuration.get());
             Bootstrap.validate();
+            PacketCodecTable.init();
             s1 = "Argument parsing";
             List<String> list = optionset.valuesOf(optionspec29);
             if (!list.isEmpty()) {
@@ -2437,7 +2437,7 @@ public class ClientPacketListener extends ClientCommonPacketListenerImpl impleme
             boolean flag1 = p_171740_.get(i);
             if (flag || flag1) {
                 p_171737_.queueSectionData(
-                    p_171738_, SectionPos.of(p_171735_, j, p_171736_), flag ? new DataLayer((byte[])p_171741_.next().clone()) : new DataLayer()
+                    p_171738_, SectionPos.of(p_171735_, j, p_171736_), flag ? new DataLayer(p_171741_.next()) : new DataLayer()
                 );
                 if (p_369857_) {
                     this.level.setSectionDirtyWithNeighbors(p_171735_, j, p_171736_);
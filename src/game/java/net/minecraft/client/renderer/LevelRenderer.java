@@ -35,6 +35,7 @@ import java.util.Locale;
 import java.util.Set;
 import java.util.SortedSet;
 import javax.annotation.Nullable;
+import net.lax1dude.eaglercraft.v1_8.minecraft.ChunkUpdateManager;
 import net.minecraft.CrashReport;
 import net.minecraft.CrashReportCategory;
 import net.minecraft.ReportedException;
@@ -134,6 +135,8 @@ public class LevelRenderer implements ResourceManagerReloadListener, AutoCloseab
     private double prevCamRotY = Double.MIN_VALUE;
     @Nullable
     private SectionRenderDispatcher sectionRenderDispatcher;
+    @Nullable
+    private ChunkUpdateManager chunkUpdateManager;
     private int lastViewDistance = -1;
     private final List<Entity> visibleEntities = new ArrayList<>();
     private int visibleEntityCount;
@@ -233,6 +236,7 @@ public class LevelRenderer implements ResourceManagerReloadListener, AutoCloseab
             }
 
             this.sectionRenderDispatcher = null;
+            this.chunkUpdateManager = null;
             this.globalBlockEntities.clear();
             this.sectionOcclusionGraph.waitAndReset(null);
             this.clearVisibleSections();
@@ -251,6 +255,7 @@ public class LevelRenderer implements ResourceManagerReloadListener, AutoCloseab
                 this.sectionRenderDispatcher = new SectionRenderDispatcher(
                     this.level, this, Util.backgroundExecutor(), this.renderBuffers, this.minecraft.getBlockRenderer(), this.minecraft.getBlockEntityRenderDispatcher()
                 );
+                this.chunkUpdateManager = new ChunkUpdateManager(this.sectionRenderDispatcher);
             } else {
                 this.sectionRenderDispatcher.setLevel(this.level);
             }
@@ -263,6 +268,7 @@ public class LevelRenderer implements ResourceManagerReloadListener, AutoCloseab
             }
 
             this.sectionRenderDispatcher.blockUntilClear();
+            this.chunkUpdateManager.stopChunkUpdates();
             synchronized (this.globalBlockEntities) {
                 this.globalBlockEntities.clear();
             }
@@ -287,12 +293,13 @@ public class LevelRenderer implements ResourceManagerReloadListener, AutoCloseab
         int j = this.countRenderedSections();
         return String.format(
             Locale.ROOT,
-            "C: %d/%d %sD: %d, %s",
+            "C: %d/%d %sD: %d, %s, %s",
             j,
             i,
             this.minecraft.smartCull ? "(s) " : "",
             this.lastViewDistance,
-            this.sectionRenderDispatcher == null ? "null" : this.sectionRenderDispatcher.getStats()
+            this.sectionRenderDispatcher == null ? "null" : this.sectionRenderDispatcher.getStats(),
+            this.chunkUpdateManager == null ? "null" : this.chunkUpdateManager.getDebugInfo()
         );
     }
 
@@ -1124,10 +1131,14 @@ public class LevelRenderer implements ResourceManagerReloadListener, AutoCloseab
         profilerfiller.popPush("schedule_async_compile");
 
         for (SectionRenderDispatcher.RenderSection sectionrenderdispatcher$rendersection1 : list) {
-            sectionrenderdispatcher$rendersection1.rebuildSectionAsync(this.sectionRenderDispatcher, renderregioncache);
-            sectionrenderdispatcher$rendersection1.setNotDirty();
+            // sections that don't fit in the queue stay dirty and are retried next frame
+            if (this.chunkUpdateManager.updateChunkLater(sectionrenderdispatcher$rendersection1, renderregioncache)) {
+                sectionrenderdispatcher$rendersection1.setNotDirty();
+            }
         }
 
+        profilerfiller.popPush("compile_budgeted");
+        this.chunkUpdateManager.updateChunks();
         profilerfiller.pop();
         this.scheduleTranslucentSectionResort(p_194371_.getPosition());
     }
@@ -160,6 +160,13 @@ public class SectionRenderDispatcher {
         this.clearBatchQueue();
     }
 
+    public void runTaskSync(SectionRenderDispatcher.RenderSection.CompileTask p_task) {
+        if (!this.closed && !p_task.isCancelled.get()) {
+            p_task.doTask(this.fixedBuffers);
+            p_task.isCompleted.set(true);
+        }
+    }
+
     public void schedule(SectionRenderDispatcher.RenderSection.CompileTask p_297747_) {
         if (!this.closed) {
             this.consecutiveExecutor.schedule(() -> {
@@ -466,6 +473,14 @@ public class SectionRenderDispatcher {
             public BlockPos getOrigin() {
                 return RenderSection.this.origin;
             }
+
+            public SectionRenderDispatcher.RenderSection getSection() {
+                return RenderSection.this;
+            }
+
+            public boolean isCancelled() {
+                return this.isCancelled.get();
+            }
         }
 
         @OnlyIn(Dist.CLIENT)
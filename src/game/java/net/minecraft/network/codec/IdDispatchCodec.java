@@ -55,6 +55,18 @@ public class IdDispatchCodec<B extends ByteBuf, V, T> implements StreamCodec<B,
         }
     }
 
+    public int size() {
+        return this.byId.size();
+    }
+
+    public StreamCodec<? super B, ? extends V> getCodec(int id) {
+        return this.byId.get(id).serializer;
+    }
+
+    public T getType(int id) {
+        return this.byId.get(id).type;
+    }
+
     public static <B extends ByteBuf, V, T> IdDispatchCodec.Builder<B, V, T> builder(Function<V, ? extends T> p_331962_) {
         return new IdDispatchCodec.Builder<>(p_331962_);
     }
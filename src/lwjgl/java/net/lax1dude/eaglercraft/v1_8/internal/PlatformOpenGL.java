@@ -51,6 +51,7 @@ public class PlatformOpenGL {
 	private static boolean hasOESTextureHalfFloat = false;
 	private static boolean hasOESTextureHalfFloatLinear = false;
 	private static boolean hasEXTTextureFilterAnisotropic = false;
+	private static boolean hasEXTDisjointTimerQuery = false;
 
 	private static boolean hasFBO16FSupport = false;
 	private static boolean hasFBO32FSupport = false;
@@ -93,6 +94,7 @@ public class PlatformOpenGL {
 		hasOESVertexArrayObject = glesVersIn == 200 && caps.GL_OES_vertex_array_object;
 		hasLinearHDR32FSupport = caps.GL_OES_texture_float_linear;
 		hasEXTTextureFilterAnisotropic = caps.GL_EXT_texture_filter_anisotropic;
+		hasEXTDisjointTimerQuery = glesVersIn >= 300 && caps.GL_EXT_disjoint_timer_query;
 		
 		hasFBO16FSupport = glesVersIn >= 320 || ((glesVersIn >= 300 || hasOESTextureFloat) && (hasEXTColorBufferFloat || hasEXTColorBufferHalfFloat));
 		hasFBO32FSupport = glesVersIn >= 320 || ((glesVersIn >= 300 || hasOESTextureHalfFloat) && hasEXTColorBufferFloat);
@@ -130,6 +132,7 @@ public class PlatformOpenGL {
 		if(hasOESTextureHalfFloat) exts.add("OES_texture_half_float");
 		if(hasOESTextureHalfFloatLinear) exts.add("OES_texture_half_float_linear");
 		if(hasEXTTextureFilterAnisotropic) exts.add("EXT_texture_filter_anisotropic");
+		if(hasEXTDisjointTimerQuery) exts.add("EXT_disjoint_timer_query");
 		return exts;
 	}
 
@@ -318,6 +321,18 @@ public class PlatformOpenGL {
 		glDeleteQueries(((OpenGLObjects.QueryGL) obj).ptr);
 	}
 
+	public static void _wglBeginQuery(int target, IQueryGL obj) {
+		glBeginQuery(target, ((OpenGLObjects.QueryGL) obj).ptr);
+	}
+
+	public static void _wglEndQuery(int target) {
+		glEndQuery(target);
+	}
+
+	public static int _wglGetQueryObjecti(IQueryGL obj, int param) {
+		return glGetQueryObjectui(((OpenGLObjects.QueryGL) obj).ptr, param);
+	}
+
 	public static void _wglBindBuffer(int target, IBufferGL obj) {
 		glBindBuffer(target, obj == null ? 0 : ((OpenGLObjects.BufferGL) obj).ptr);
 	}
@@ -730,6 +745,10 @@ public class PlatformOpenGL {
 		return glGetInteger(param);
 	}
 
+	public static boolean _wglGetBoolean(int param) {
+		return glGetBoolean(param);
+	}
+
 	public static int _wglGetError() {
 		return glGetError();
 	}
@@ -801,6 +820,10 @@ public class PlatformOpenGL {
 		return hasEXTTextureFilterAnisotropic;
 	}
 
+	public static boolean checkTimerQueryCapable() {
+		return hasEXTDisjointTimerQuery;
+	}
+
 	public static String[] getAllExtensions() {
 		return glGetString(GL_EXTENSIONS).split(" ");
 	}
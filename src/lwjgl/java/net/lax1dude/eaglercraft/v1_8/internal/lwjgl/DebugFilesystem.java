@@ -20,6 +20,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import net.lax1dude.eaglercraft.v1_8.internal.IEaglerFilesystem;
 import net.lax1dude.eaglercraft.v1_8.internal.PlatformFilesystem;
@@ -203,6 +207,32 @@ public class DebugFilesystem implements IEaglerFilesystem {
 		}
 	}
 
+	@Override
+	public Map<String,ByteBuffer> readAll(Collection<String> pathNames) {
+		Map<String,ByteBuffer> ret = new LinkedHashMap<>();
+		for(String pathName : pathNames) {
+			if(getJREFile(pathName).isFile()) {
+				ret.put(pathName, eaglerRead(pathName));
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public void writeAll(Map<String,ByteBuffer> files) {
+		for(Entry<String,ByteBuffer> etr : files.entrySet()) {
+			ByteBuffer data = etr.getValue();
+			if(data != null) {
+				eaglerWrite(etr.getKey(), data);
+			}else {
+				File f = getJREFile(etr.getKey());
+				if(f.isFile() && f.delete()) {
+					deleteParentIfEmpty(f);
+				}
+			}
+		}
+	}
+
 	private void iterateFile(String pathName, File f, VFSFilenameIterator itr, boolean recursive) {
 		if(!f.exists()) {
 			return;
@@ -25,7 +25,9 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 
@@ -127,8 +129,23 @@ public class JDBCFilesystem implements IEaglerFilesystem {
 					+ "\"FileName\" VARCHAR(1024) NOT NULL,"
 					+ "\"FileSize\" INT NOT NULL,"
 					+ "\"FileData\" BLOB NOT NULL,"
+					+ "\"ParentDir\" VARCHAR(1024) NOT NULL DEFAULT '',"
 					+ "PRIMARY KEY(\"FileName\"))");
 			
+			boolean hasDirectoryIndex;
+			try(ResultSet resultSet = stmt.executeQuery("SELECT ParentDir FROM eaglercraft_desktop_runtime_filesystem LIMIT 1")) {
+				hasDirectoryIndex = true;
+			}catch(SQLException ex) {
+				hasDirectoryIndex = false;
+			}
+			if(!hasDirectoryIndex) {
+				logger.info("Adding directory index to JDBC filesystem: \"{}\"", jdbcUri);
+				stmt.execute("ALTER TABLE eaglercraft_desktop_runtime_filesystem ADD COLUMN \"ParentDir\" VARCHAR(1024) NOT NULL DEFAULT ''");
+				buildDirectoryIndex(conn);
+			}
+			stmt.execute("CREATE INDEX IF NOT EXISTS \"eaglercraft_desktop_runtime_filesystem_parent\" "
+					+ "ON eaglercraft_desktop_runtime_filesystem (\"ParentDir\")");
+			
 			int totalFiles = 0;
 			try(ResultSet resultSet = stmt.executeQuery("SELECT COUNT(*) AS total_files FROM eaglercraft_desktop_runtime_filesystem")) {
 				if(resultSet.next()) {
@@ -140,15 +157,15 @@ public class JDBCFilesystem implements IEaglerFilesystem {
 				newFilesystem = false;
 			}
 		}
-		this.createStatement = conn.prepareStatement("INSERT INTO eaglercraft_desktop_runtime_filesystem (FileName, FileSize, FileData) VALUES(?,?,?)");
+		this.createStatement = conn.prepareStatement("INSERT INTO eaglercraft_desktop_runtime_filesystem (FileName, FileSize, FileData, ParentDir) VALUES(?,?,?,?)");
 		this.updateStatement = conn.prepareStatement("UPDATE eaglercraft_desktop_runtime_filesystem SET FileSize = ?, FileData = ? WHERE FileName = ?");
 		this.readStatement = conn.prepareStatement("SELECT FileData FROM eaglercraft_desktop_runtime_filesystem WHERE FileName = ? LIMIT 1");
 		this.existsStatement = conn.prepareStatement("SELECT COUNT(FileName) AS has_object FROM eaglercraft_desktop_runtime_filesystem WHERE FileName = ? LIMIT 1");
 		this.sizeStatement = conn.prepareStatement("SELECT FileSize FROM eaglercraft_desktop_runtime_filesystem WHERE FileName = ? LIMIT 1");
 		this.deleteStatement = conn.prepareStatement("DELETE FROM eaglercraft_desktop_runtime_filesystem WHERE FileName = ?");
-		this.renameStatement = conn.prepareStatement("UPDATE eaglercraft_desktop_runtime_filesystem SET FileName = ? WHERE FileName = ?");
-		this.iterateNonRecursive = conn.prepareStatement("SELECT FileName FROM eaglercraft_desktop_runtime_filesystem WHERE FileName LIKE ? AND NOT FileName LIKE ?");
-		this.iterateRecursive = conn.prepareStatement("SELECT FileName FROM eaglercraft_desktop_runtime_filesystem WHERE FileName LIKE ?");
+		this.renameStatement = conn.prepareStatement("UPDATE eaglercraft_desktop_runtime_filesystem SET FileName = ?, ParentDir = ? WHERE FileName = ?");
+		this.iterateNonRecursive = conn.prepareStatement("SELECT FileName FROM eaglercraft_desktop_runtime_filesystem WHERE ParentDir = ?");
+		this.iterateRecursive = conn.prepareStatement("SELECT FileName FROM eaglercraft_desktop_runtime_filesystem WHERE FileName >= ? AND FileName < ?");
 		startCleanupThread();
 		synchronized(jdbcFilesystems) {
 			jdbcFilesystems.add(this);
@@ -223,6 +240,34 @@ public class JDBCFilesystem implements IEaglerFilesystem {
 		}
 	}
 
+	private static String getParentDir(String pathName) {
+		int i = pathName.lastIndexOf('/');
+		return i != -1 ? pathName.substring(0, i) : "";
+	}
+
+	private static void buildDirectoryIndex(Connection conn) throws SQLException {
+		conn.setAutoCommit(false);
+		try {
+			try(Statement stmt = conn.createStatement();
+					PreparedStatement update = conn.prepareStatement("UPDATE eaglercraft_desktop_runtime_filesystem SET ParentDir = ? WHERE FileName = ?");
+					ResultSet resultSet = stmt.executeQuery("SELECT FileName FROM eaglercraft_desktop_runtime_filesystem")) {
+				while(resultSet.next()) {
+					String name = resultSet.getString(1);
+					update.setString(1, getParentDir(name));
+					update.setString(2, name);
+					update.addBatch();
+				}
+				update.executeBatch();
+			}
+			conn.commit();
+		}catch(SQLException ex) {
+			conn.rollback();
+			throw ex;
+		}finally {
+			conn.setAutoCommit(true);
+		}
+	}
+
 	private static void quietClose(Statement stmt) {
 		try {
 			stmt.close();
@@ -284,33 +329,96 @@ public class JDBCFilesystem implements IEaglerFilesystem {
 				if(hasClosed || conn.isClosed()) {
 					throw new SQLException("Filesystem database connection is closed!");
 				}
-				existsStatement.setString(1, pathName);
-				boolean exists;
-				try(ResultSet resultSet = existsStatement.executeQuery()) {
-					if(resultSet.next()) {
-						exists = resultSet.getInt(1) > 0;
-					}else {
-						exists = false;
+				writeFile0(pathName, data);
+			}
+		}catch(SQLException ex) {
+			throw new EaglerFileSystemException("JDBC exception thrown while executing write!", ex);
+		}
+	}
+
+	private void writeFile0(String pathName, ByteBuffer data) throws SQLException {
+		existsStatement.setString(1, pathName);
+		boolean exists;
+		try(ResultSet resultSet = existsStatement.executeQuery()) {
+			if(resultSet.next()) {
+				exists = resultSet.getInt(1) > 0;
+			}else {
+				exists = false;
+			}
+		}
+		byte[] cp = new byte[data.remaining()];
+		data.get(cp);
+		if(exists) {
+			updateStatement.setInt(1, cp.length);
+			updateStatement.setBytes(2, cp);
+			updateStatement.setString(3, pathName);
+			if(updateStatement.executeUpdate() == 0) {
+				throw new EaglerFileSystemException("SQL file update query did not update any rows!");
+			}
+		}else {
+			createStatement.setString(1, pathName);
+			createStatement.setInt(2, cp.length);
+			createStatement.setBytes(3, cp);
+			createStatement.setString(4, getParentDir(pathName));
+			createStatement.executeUpdate();
+		}
+	}
+
+	@Override
+	public Map<String,ByteBuffer> readAll(Collection<String> pathNames) {
+		try {
+			synchronized(mutex) {
+				if(hasClosed || conn.isClosed()) {
+					throw new SQLException("Filesystem database connection is closed!");
+				}
+				Map<String,ByteBuffer> ret = new LinkedHashMap<>();
+				for(String pathName : pathNames) {
+					readStatement.setString(1, pathName);
+					try(ResultSet resultSet = readStatement.executeQuery()) {
+						if(resultSet.next()) {
+							byte[] has = resultSet.getBytes(1);
+							ByteBuffer byteBuf = PlatformRuntime.allocateByteBuffer(has.length);
+							byteBuf.put(has);
+							byteBuf.flip();
+							ret.put(pathName, byteBuf);
+						}
 					}
 				}
-				byte[] cp = new byte[data.remaining()];
-				data.get(cp);
-				if(exists) {
-					updateStatement.setInt(1, cp.length);
-					updateStatement.setBytes(2, cp);
-					updateStatement.setString(3, pathName);
-					if(updateStatement.executeUpdate() == 0) {
-						throw new EaglerFileSystemException("SQL file update query did not update any rows!");
+				return ret;
+			}
+		}catch(SQLException ex) {
+			throw new EaglerFileSystemException("JDBC exception thrown while executing read all!", ex);
+		}
+	}
+
+	@Override
+	public void writeAll(Map<String,ByteBuffer> files) {
+		try {
+			synchronized(mutex) {
+				if(hasClosed || conn.isClosed()) {
+					throw new SQLException("Filesystem database connection is closed!");
+				}
+				conn.setAutoCommit(false);
+				try {
+					for(Entry<String,ByteBuffer> etr : files.entrySet()) {
+						ByteBuffer data = etr.getValue();
+						if(data != null) {
+							writeFile0(etr.getKey(), data);
+						}else {
+							deleteStatement.setString(1, etr.getKey());
+							deleteStatement.executeUpdate();
+						}
 					}
-				}else {
-					createStatement.setString(1, pathName);
-					createStatement.setInt(2, cp.length);
-					createStatement.setBytes(3, cp);
-					createStatement.executeUpdate();
+					conn.commit();
+				}catch(SQLException | RuntimeException ex) {
+					conn.rollback();
+					throw ex;
+				}finally {
+					conn.setAutoCommit(true);
 				}
 			}
 		}catch(SQLException ex) {
-			throw new EaglerFileSystemException("JDBC exception thrown while executing write!", ex);
+			throw new EaglerFileSystemException("JDBC exception thrown while executing write all!", ex);
 		}
 	}
 
@@ -343,7 +451,8 @@ public class JDBCFilesystem implements IEaglerFilesystem {
 					throw new SQLException("Filesystem database connection is closed!");
 				}
 				renameStatement.setString(1, pathNameNew);
-				renameStatement.setString(2, pathNameOld);
+				renameStatement.setString(2, getParentDir(pathNameNew));
+				renameStatement.setString(3, pathNameOld);
 				return renameStatement.executeUpdate() > 0;
 			}
 		}catch(SQLException ex) {
@@ -387,6 +496,7 @@ public class JDBCFilesystem implements IEaglerFilesystem {
 						createStatement.setString(1, pathNameNew);
 						createStatement.setInt(2, has.length);
 						createStatement.setBytes(3, has);
+						createStatement.setString(4, getParentDir(pathNameNew));
 						createStatement.executeUpdate();
 					}
 					return has.length;
@@ -425,17 +535,18 @@ public class JDBCFilesystem implements IEaglerFilesystem {
 				if(hasClosed || conn.isClosed()) {
 					throw new SQLException("Filesystem database connection is closed!");
 				}
+				if(pathName.endsWith("/")) {
+					pathName = pathName.substring(0, pathName.length() - 1);
+				}
 				PreparedStatement stmt;
 				if(recursive) {
+					// every name under "dir/" sorts between "dir/" and "dir0" ('0' follows '/')
 					stmt = iterateRecursive;
-					stmt.setString(1, pathName + (!pathName.endsWith("/") ? "/%" : "%"));;
+					stmt.setString(1, pathName + "/");
+					stmt.setString(2, pathName + "0");
 				}else {
 					stmt = iterateNonRecursive;
-					if(!pathName.endsWith("/")) {
-						pathName += "/";
-					}
-					stmt.setString(1, pathName + "%");
-					stmt.setString(2, pathName + "%/%");
+					stmt.setString(1, pathName);
 				}
 				try(ResultSet resultSet = stmt.executeQuery()) {
 					while(resultSet.next()) {
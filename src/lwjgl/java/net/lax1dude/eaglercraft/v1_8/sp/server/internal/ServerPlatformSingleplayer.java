@@ -16,7 +16,6 @@
 
 package net.lax1dude.eaglercraft.v1_8.sp.server.internal;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -51,30 +50,15 @@ public class ServerPlatformSingleplayer {
 		if(PlatformWebRTC.serverLANPeerPassIPC(packet)) {
 			return;
 		}
-		synchronized(MemoryConnection.serverToClientQueue) {
-			MemoryConnection.serverToClientQueue.add(packet);
-		}
+		MemoryConnection.serverToClientQueue.offer(packet);
 	}
 
 	public static IPCPacketData recievePacket() {
-		synchronized(MemoryConnection.clientToServerQueue) {
-			if(MemoryConnection.clientToServerQueue.size() > 0) {
-				return MemoryConnection.clientToServerQueue.remove(0);
-			}
-		}
-		return null;
+		return MemoryConnection.clientToServerQueue.poll();
 	}
 
 	public static List<IPCPacketData> recieveAllPacket() {
-		synchronized(MemoryConnection.clientToServerQueue) {
-			if(MemoryConnection.clientToServerQueue.size() == 0) {
-				return null;
-			}else {
-				List<IPCPacketData> ret = new ArrayList<>(MemoryConnection.clientToServerQueue);
-				MemoryConnection.clientToServerQueue.clear();
-				return ret;
-			}
-		}
+		return MemoryConnection.clientToServerQueue.drainAll();
 	}
 
 	public static IClientConfigAdapter getClientConfigAdapter() {
@@ -82,7 +66,9 @@ public class ServerPlatformSingleplayer {
 	}
 
 	public static void immediateContinue() {
-		
+		if(MemoryConnection.isParkServerThread()) {
+			MemoryConnection.clientToServerQueue.park(MemoryConnection.SERVER_PARK_NANOS);
+		}
 	}
 
 	public static void platformShutdown() {
@@ -34,6 +34,7 @@ public class DesktopIntegratedServer implements Runnable {
 	@Override
 	public void run() {
 		try {
+			MemoryConnection.serverToClientQueue.setProducerThread(Thread.currentThread());
 			ServerPlatformSingleplayer.initializeContext();
 			EaglerIntegratedServerWorker.serverMain();
 		}finally {
@@ -16,14 +16,25 @@
 
 package net.lax1dude.eaglercraft.v1_8.sp.server.internal.lwjgl;
 
-import java.util.LinkedList;
-import java.util.List;
+public class MemoryConnection {
 
-import net.lax1dude.eaglercraft.v1_8.internal.IPCPacketData;
+	public static final MemoryPacketQueue clientToServerQueue = new MemoryPacketQueue(8192);
+	public static final MemoryPacketQueue serverToClientQueue = new MemoryPacketQueue(8192);
 
-public class MemoryConnection {
+	/**
+	 * Park the server thread between main loop iterations until a packet
+	 * arrives or a millisecond passes, instead of spinning
+	 */
+	private static volatile boolean parkServerThread = true;
+
+	public static final long SERVER_PARK_NANOS = 1000000l;
+
+	public static boolean isParkServerThread() {
+		return parkServerThread;
+	}
 
-	public static final List<IPCPacketData> clientToServerQueue = new LinkedList<>();
-	public static final List<IPCPacketData> serverToClientQueue = new LinkedList<>();
+	public static void setParkServerThread(boolean park) {
+		parkServerThread = park;
+	}
 
 }
\ No newline at end of file
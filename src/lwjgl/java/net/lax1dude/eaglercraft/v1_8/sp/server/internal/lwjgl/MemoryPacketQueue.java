@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.sp.server.internal.lwjgl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import net.lax1dude.eaglercraft.v1_8.internal.IPCPacketData;
+
+/**
+ * Bounded single-producer single-consumer ring of IPC packets. Only the thread
+ * set with setProducerThread writes to the ring, packets sent from any other
+ * thread (log redirects, LAN data channels) go through a locked side queue.
+ * If the ring fills up the producer spills into the side queue as well, and
+ * keeps doing so until the consumer has emptied it, to keep its packets in order
+ */
+public class MemoryPacketQueue {
+
+	private final IPCPacketData[] ring;
+	private final int mask;
+
+	// next slot to read, only written by the consumer
+	private final AtomicLong head = new AtomicLong();
+	// next slot to write, only written by the producer
+	private final AtomicLong tail = new AtomicLong();
+
+	private final List<IPCPacketData> sharedQueue = new LinkedList<>();
+	private volatile boolean hasShared = false;
+
+	private volatile Thread producer = null;
+	private volatile Thread parkedConsumer = null;
+
+	public MemoryPacketQueue(int capacity) {
+		if(capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		this.ring = new IPCPacketData[capacity];
+		this.mask = capacity - 1;
+	}
+
+	public void setProducerThread(Thread thread) {
+		producer = thread;
+	}
+
+	public void offer(IPCPacketData packet) {
+		if(!hasShared && Thread.currentThread() == producer) {
+			long t = tail.get();
+			if(t - head.get() < ring.length) {
+				ring[(int)t & mask] = packet;
+				tail.lazySet(t + 1l);
+				wakeConsumer();
+				return;
+			}
+		}
+		synchronized(sharedQueue) {
+			sharedQueue.add(packet);
+			hasShared = true;
+		}
+		wakeConsumer();
+	}
+
+	public IPCPacketData poll() {
+		IPCPacketData ret = pollRing();
+		if(ret == null && hasShared) {
+			synchronized(sharedQueue) {
+				// the producer may have filled the ring again before spilling
+				ret = pollRing();
+				if(ret == null && !sharedQueue.isEmpty()) {
+					ret = sharedQueue.remove(0);
+					hasShared = !sharedQueue.isEmpty();
+				}
+			}
+		}
+		return ret;
+	}
+
+	private IPCPacketData pollRing() {
+		long h = head.get();
+		if(h != tail.get()) {
+			int i = (int)h & mask;
+			IPCPacketData ret = ring[i];
+			ring[i] = null;
+			head.lazySet(h + 1l);
+			return ret;
+		}
+		return null;
+	}
+
+	/**
+	 * Takes everything currently queued in one pass, returns null if nothing was queued
+	 */
+	public List<IPCPacketData> drainAll() {
+		int cnt = (int)(tail.get() - head.get());
+		if(cnt == 0 && !hasShared) {
+			return null;
+		}
+		List<IPCPacketData> ret = new ArrayList<>(cnt + 8);
+		drainRing(ret);
+		if(hasShared) {
+			synchronized(sharedQueue) {
+				drainRing(ret);
+				ret.addAll(sharedQueue);
+				sharedQueue.clear();
+				hasShared = false;
+			}
+		}
+		return ret.isEmpty() ? null : ret;
+	}
+
+	private void drainRing(List<IPCPacketData> ret) {
+		long h = head.get();
+		long t = tail.get();
+		while(h != t) {
+			int i = (int)h & mask;
+			ret.add(ring[i]);
+			ring[i] = null;
+			++h;
+		}
+		head.lazySet(h);
+	}
+
+	public boolean isEmpty() {
+		return head.get() == tail.get() && !hasShared;
+	}
+
+	/**
+	 * Parks the consumer thread until a packet is offered or the timeout passes
+	 */
+	public void park(long timeoutNanos) {
+		parkedConsumer = Thread.currentThread();
+		try {
+			if(isEmpty()) {
+				LockSupport.parkNanos(this, timeoutNanos);
+			}
+		}finally {
+			parkedConsumer = null;
+		}
+	}
+
+	private void wakeConsumer() {
+		Thread t = parkedConsumer;
+		if(t != null) {
+			LockSupport.unpark(t);
+		}
+	}
+
+}
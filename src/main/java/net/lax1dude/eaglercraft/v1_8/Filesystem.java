@@ -16,6 +16,7 @@
 
 package net.lax1dude.eaglercraft.v1_8;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -141,6 +142,16 @@ public class Filesystem {
 			handleImpl.eaglerIterate(pathName, itr, recursive);
 		}
 
+		@Override
+		public Map<String,ByteBuffer> readAll(Collection<String> pathNames) {
+			return handleImpl.readAll(pathNames);
+		}
+
+		@Override
+		public void writeAll(Map<String,ByteBuffer> files) {
+			handleImpl.writeAll(files);
+		}
+
 		@Override
 		public void closeHandle() {
 			if(!closed && handle.refCount > 0) {
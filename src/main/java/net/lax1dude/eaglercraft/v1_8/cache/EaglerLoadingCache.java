@@ -16,26 +16,167 @@
 
 package net.lax1dude.eaglercraft.v1_8.cache;
 
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+
+/**
+ * Map backed cache that creates missing values with a provider. Entries are
+ * kept in access order, so it can optionally be bounded by entry count (least
+ * recently used goes first) and by time since last access
+ */
 public class EaglerLoadingCache<K, V> {
 
+	public static enum RemovalCause {
+		EXPLICIT, SIZE, EXPIRED;
+	}
+
+	private static class CacheEntry<V> {
+
+		private final V value;
+		private long lastAccess;
+
+		private CacheEntry(V value, long lastAccess) {
+			this.value = value;
+			this.lastAccess = lastAccess;
+		}
+
+	}
+
 	private final EaglerCacheProvider<K, V> provider;
-	private final Map<K, V> cacheMap;
+	private final Map<K, CacheEntry<V>> cacheMap;
+	private final int maxSize;
+	private final long expireAfterAccess;
+	private EaglerCacheRemovalListener<K, V> removalListener = null;
+
+	private long hitCount = 0l;
+	private long missCount = 0l;
+	private long evictionCount = 0l;
 
 	public EaglerLoadingCache(EaglerCacheProvider<K, V> provider) {
+		this(provider, -1, -1l);
+	}
+
+	/**
+	 * @param maxSize max number of entries or -1 for unbounded
+	 * @param expireAfterAccess millis an entry can go unused before it is dropped, or -1 to never expire
+	 */
+	public EaglerLoadingCache(EaglerCacheProvider<K, V> provider, int maxSize, long expireAfterAccess) {
 		this.provider = provider;
-		this.cacheMap = new HashMap<>();
+		this.cacheMap = new LinkedHashMap<>(16, 0.75f, true);
+		this.maxSize = maxSize;
+		this.expireAfterAccess = expireAfterAccess;
+	}
+
+	public EaglerLoadingCache<K, V> setRemovalListener(EaglerCacheRemovalListener<K, V> removalListener) {
+		this.removalListener = removalListener;
+		return this;
 	}
 
 	public V get(K key) {
-		V etr = cacheMap.get(key);
-		if(etr == null) {
-			etr = provider.create(key);
-			cacheMap.put(key, etr);
+		CacheEntry<V> etr = cacheMap.get(key);
+		long now = expireAfterAccess > 0l ? EagRuntime.steadyTimeMillis() : 0l;
+		if(etr != null) {
+			if(expireAfterAccess > 0l && now - etr.lastAccess > expireAfterAccess) {
+				cacheMap.remove(key);
+				onRemoved(key, etr.value, RemovalCause.EXPIRED);
+			}else {
+				++hitCount;
+				etr.lastAccess = now;
+				return etr.value;
+			}
+		}
+		++missCount;
+		V val = provider.create(key);
+		if(val != null) {
+			cacheMap.put(key, new CacheEntry<>(val, now));
+			if(maxSize > 0) {
+				Iterator<Map.Entry<K, CacheEntry<V>>> itr = cacheMap.entrySet().iterator();
+				while(cacheMap.size() > maxSize && itr.hasNext()) {
+					Map.Entry<K, CacheEntry<V>> eldest = itr.next();
+					itr.remove();
+					onRemoved(eldest.getKey(), eldest.getValue().value, RemovalCause.SIZE);
+				}
+			}
+			if(expireAfterAccess > 0l) {
+				expireEntries(now);
+			}
+		}
+		return val;
+	}
+
+	public V getIfPresent(K key) {
+		CacheEntry<V> etr = cacheMap.get(key);
+		return etr != null ? etr.value : null;
+	}
+
+	public void invalidate(K key) {
+		CacheEntry<V> etr = cacheMap.remove(key);
+		if(etr != null) {
+			onRemoved(key, etr.value, RemovalCause.EXPLICIT);
+		}
+	}
+
+	public void invalidateAll() {
+		Iterator<Map.Entry<K, CacheEntry<V>>> itr = cacheMap.entrySet().iterator();
+		while(itr.hasNext()) {
+			Map.Entry<K, CacheEntry<V>> etr = itr.next();
+			itr.remove();
+			onRemoved(etr.getKey(), etr.getValue().value, RemovalCause.EXPLICIT);
+		}
+	}
+
+	/**
+	 * Drops expired entries, call periodically if the cache can go a long time without misses
+	 */
+	public void cleanUp() {
+		if(expireAfterAccess > 0l) {
+			expireEntries(EagRuntime.steadyTimeMillis());
+		}
+	}
+
+	private void expireEntries(long now) {
+		// least recently used entries are first, stop at the first one still in use
+		Iterator<Map.Entry<K, CacheEntry<V>>> itr = cacheMap.entrySet().iterator();
+		while(itr.hasNext()) {
+			Map.Entry<K, CacheEntry<V>> etr = itr.next();
+			if(now - etr.getValue().lastAccess <= expireAfterAccess) {
+				break;
+			}
+			itr.remove();
+			onRemoved(etr.getKey(), etr.getValue().value, RemovalCause.EXPIRED);
+		}
+	}
+
+	private void onRemoved(K key, V value, RemovalCause cause) {
+		if(cause != RemovalCause.EXPLICIT) {
+			++evictionCount;
 		}
-		return etr;
+		if(removalListener != null) {
+			removalListener.onRemoval(key, value, cause);
+		}
+	}
+
+	public int size() {
+		return cacheMap.size();
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public void resetStats() {
+		hitCount = missCount = evictionCount = 0l;
 	}
 
-}
\ No newline at end of file
+}
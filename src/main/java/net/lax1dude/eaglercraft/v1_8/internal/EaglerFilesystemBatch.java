@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.lax1dude.eaglercraft.v1_8.internal.buffer.ByteBuffer;
+
+/**
+ * Collects writes and deletes and commits them through
+ * IEaglerFilesystem.writeAll in a single transaction, later operations on the
+ * same path replace earlier ones
+ */
+public class EaglerFilesystemBatch {
+
+	protected final IEaglerFilesystem filesystem;
+	protected final Map<String,ByteBuffer> pending = new LinkedHashMap<>();
+	protected final List<ByteBuffer> ownedBuffers = new ArrayList<>();
+
+	public EaglerFilesystemBatch(IEaglerFilesystem filesystem) {
+		this.filesystem = filesystem;
+	}
+
+	public IEaglerFilesystem getFilesystem() {
+		return filesystem;
+	}
+
+	public void write(String pathName, ByteBuffer data) {
+		pending.put(pathName, data);
+	}
+
+	public void write(String pathName, byte[] data) {
+		ByteBuffer buf = PlatformRuntime.castPrimitiveByteArray(data);
+		if(buf == null) {
+			buf = PlatformRuntime.allocateByteBuffer(data.length);
+			buf.put(data);
+			buf.flip();
+			ownedBuffers.add(buf);
+		}
+		pending.put(pathName, buf);
+	}
+
+	public void delete(String pathName) {
+		pending.put(pathName, null);
+	}
+
+	public int size() {
+		return pending.size();
+	}
+
+	public boolean isEmpty() {
+		return pending.isEmpty();
+	}
+
+	public void commit() {
+		try {
+			if(!pending.isEmpty()) {
+				filesystem.writeAll(pending);
+			}
+		}finally {
+			discard();
+		}
+	}
+
+	public void discard() {
+		pending.clear();
+		for(int i = 0, l = ownedBuffers.size(); i < l; ++i) {
+			PlatformRuntime.freeByteBuffer(ownedBuffers.get(i));
+		}
+		ownedBuffers.clear();
+	}
+
+}
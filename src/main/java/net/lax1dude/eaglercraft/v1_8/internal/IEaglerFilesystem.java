@@ -16,6 +16,9 @@
 
 package net.lax1dude.eaglercraft.v1_8.internal;
 
+import java.util.Collection;
+import java.util.Map;
+
 import net.lax1dude.eaglercraft.v1_8.internal.buffer.ByteBuffer;
 
 public interface IEaglerFilesystem {
@@ -42,6 +45,20 @@ public interface IEaglerFilesystem {
 
 	void eaglerIterate(String pathName, VFSFilenameIterator itr, boolean recursive);
 
+	/**
+	 * Reads every path in one transaction, missing files are left out of the result
+	 */
+	Map<String,ByteBuffer> readAll(Collection<String> pathNames);
+
+	/**
+	 * Writes every entry in one transaction, a null value deletes the path
+	 */
+	void writeAll(Map<String,ByteBuffer> files);
+
+	default EaglerFilesystemBatch beginBatch() {
+		return new EaglerFilesystemBatch(this);
+	}
+
 	void closeHandle();
 
 }
\ No newline at end of file
@@ -21,9 +21,20 @@ public class IPCPacketData {
 	public final String channel;
 	public final byte[] contents;
 
+	/**
+	 * The contents array may be handed over to the other side without being
+	 * copied, the sender must not touch it again after the packet is sent
+	 */
+	public final boolean transferable;
+
 	public IPCPacketData(String channel, byte[] contents) {
+		this(channel, contents, false);
+	}
+
+	public IPCPacketData(String channel, byte[] contents, boolean transferable) {
 		this.channel = channel;
 		this.contents = contents;
+		this.transferable = transferable;
 	}
 
 }
\ No newline at end of file
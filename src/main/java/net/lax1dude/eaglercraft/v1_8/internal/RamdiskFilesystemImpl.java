@@ -16,7 +16,10 @@
 
 package net.lax1dude.eaglercraft.v1_8.internal;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.TreeMap;
 
 import net.lax1dude.eaglercraft.v1_8.internal.buffer.ByteBuffer;
@@ -124,6 +127,30 @@ public class RamdiskFilesystemImpl implements IEaglerFilesystem {
 		}
 	}
 
+	@Override
+	public Map<String,ByteBuffer> readAll(Collection<String> pathNames) {
+		Map<String,ByteBuffer> ret = new LinkedHashMap<>();
+		for(String pathName : pathNames) {
+			ByteBuffer buf = eaglerRead(pathName);
+			if(buf != null) {
+				ret.put(pathName, buf);
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public void writeAll(Map<String,ByteBuffer> files) {
+		for(Entry<String,ByteBuffer> etr : files.entrySet()) {
+			ByteBuffer data = etr.getValue();
+			if(data != null) {
+				eaglerWrite(etr.getKey(), data);
+			}else {
+				filesystemMap.remove(etr.getKey());
+			}
+		}
+	}
+
 	@Override
 	public void closeHandle() {
 		filesystemMap.clear();
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.function.Supplier;
 
 import net.lax1dude.eaglercraft.v1_8.EagUtils;
+import net.lax1dude.eaglercraft.v1_8.internal.EaglerFilesystemBatch;
 import net.lax1dude.eaglercraft.v1_8.internal.IEaglerFilesystem;
 import net.lax1dude.eaglercraft.v1_8.internal.PlatformRuntime;
 import net.lax1dude.eaglercraft.v1_8.internal.buffer.ByteBuffer;
@@ -280,6 +281,29 @@ public class VFile2 {
 		}
 	}
 
+	public EaglerFilesystemBatch beginBatch() {
+		return getFS().beginBatch();
+	}
+
+	public void setAllBytes(EaglerFilesystemBatch batch, byte[] bytes) {
+		assertNotRelative();
+		assertSameFS(batch);
+		batch.write(path, bytes);
+	}
+
+	public void delete(EaglerFilesystemBatch batch) {
+		if(!isRelative()) {
+			assertSameFS(batch);
+			batch.delete(path);
+		}
+	}
+
+	private void assertSameFS(EaglerFilesystemBatch batch) {
+		if(batch.getFilesystem() != getFS()) {
+			throw new UnsupportedOperationException("Cannot add file to a batch from a different filesystem!");
+		}
+	}
+
 	public void iterateFiles(VFSIterator2 itr, boolean recursive) {
 		assertNotRelative();
 		IEaglerFilesystem fs = getFS();
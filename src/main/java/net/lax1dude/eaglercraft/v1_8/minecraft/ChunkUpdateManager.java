@@ -2,23 +2,28 @@ package net.lax1dude.eaglercraft.v1_8.minecraft;
 
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
-import net.lax1dude.eaglercraft.v1_8.opengl.LevelRenderer;
-import net.lax1dude.eaglercraft.v1_8.opengl.LevelVertexBufferUploader;
-import net.minecraft.client.Minecraft;
-import net.minecraft.core.BlockPos;
 import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.chunk.CompileTaskDynamicQueue;
+import net.minecraft.client.renderer.chunk.RenderRegionCache;
 import net.minecraft.client.renderer.chunk.SectionRenderDispatcher;
-import net.minecraft.world.entity.Entity;
+import net.minecraft.world.phys.Vec3;
 import net.lax1dude.eaglercraft.v1_8.EagRuntime;
-import java.util.*;
 
-// EnumLevelBlockLayer wurde zu RenderType oder RenderLayer in neueren Versionen
-// ...existing code...
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs section rebuilds on the render thread within a per-frame time budget,
+ * closest sections first (see CompileTaskDynamicQueue). Everything is called
+ * directly on the dispatcher's types, there is no reflection on this path.
+ */
 public class ChunkUpdateManager {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
-    private final Object renderCache;
+    public static final int MAX_QUEUED_UPDATES = 100;
 
     private int chunkUpdatesTotal = 0;
     private int chunkUpdatesTotalLast = 0;
@@ -26,424 +31,170 @@ public class ChunkUpdateManager {
     private int chunkUpdatesTotalImmediateLast = 0;
     private int chunkUpdatesQueued = 0;
     private int chunkUpdatesQueuedLast = 0;
+    private int layersCompiled = 0;
+    private int layersCompiledLast = 0;
+    private int layersEmpty = 0;
+    private int layersEmptyLast = 0;
     private long chunkUpdatesTotalLastUpdate = 0l;
 
+    private long frameBudgetNanos = 4000000l;
+
     private final SectionRenderDispatcher sectionRenderDispatcher;
-    private final RenderRegionCache renderRegionCache;
-    private final List<SectionRenderDispatcher.RenderSection.CompileTask> queue = new LinkedList<>();
+    private final CompileTaskDynamicQueue queue = new CompileTaskDynamicQueue();
+    private final Map<SectionRenderDispatcher.RenderSection, SectionRenderDispatcher.RenderSection.CompileTask> queuedSections = new HashMap<>();
 
-    public ChunkUpdateManager() {
-        this.sectionRenderDispatcher = new SectionRenderDispatcher(Minecraft.getInstance());
-        this.renderRegionCache = new RenderRegionCache(this.sectionRenderDispatcher);
-        this.renderCache = null; // or appropriate initialization if you have a custom class
+    public ChunkUpdateManager(SectionRenderDispatcher sectionRenderDispatcher) {
+        this.sectionRenderDispatcher = sectionRenderDispatcher;
     }
 
     public static class EmptyBlockLayerException extends IllegalStateException {
     }
 
-    // Helper interface to handle CompileTask methods
-    // Helper class to handle compiled chunks
-    private static class CompiledChunkWrapper {
-        private final Object compiledChunk;
-        
-        public CompiledChunkWrapper() {
-            this.compiledChunk = new Object();
-        }
-        
-        public boolean isLayerEmpty(RenderType layer) {
-            // Default implementation - assumes layer is not empty
-            return false;
-        }
-    }
-    
-    private interface CompileTaskWrapper {
-        void setStatus(String status);
-        SectionRenderDispatcher.RenderSection getRenderSection();
-        Object getCompiledChunk();
-        boolean isLayerEmpty(RenderType layer);
-        void rebuildChunk(float x, float y, float z, Object generator);
-        void resortTransparency(SectionRenderDispatcher dispatcher);
-        BlockPos blockPosition();
-        Object getRenderRegionCache();
-        boolean canExecuteYet();
-        long getTimeout();
-        void setTimeout(long time);
-        void addFinishRunnable(Runnable runnable);
+    public void setFrameBudgetMillis(int millis) {
+        frameBudgetNanos = millis * 1000000l;
     }
 
-    // Wrapper implementation
-    private CompileTaskWrapper wrapTask(SectionRenderDispatcher.RenderSection.CompileTask task) {
-        return new CompileTaskWrapper() {
-            private long timeout = 0L;
-            private SectionRenderDispatcher.RenderSection section;
-            private final List<Runnable> finishRunnables = new ArrayList<>();
-            private final Object compiledChunk = new CompiledChunkWrapper();
-            
-            @Override
-            public void setStatus(String status) {
-                // No-op in this implementation
-            }
-            
-            @Override
-            public SectionRenderDispatcher.RenderSection getRenderSection() {
-                if (section == null) {
-                    try {
-                        section = (SectionRenderDispatcher.RenderSection) task.getClass().getMethod("getSection").invoke(task);
-                    } catch (Exception e) {
-                        // Fallback to field access if method not found
-                        try {
-                            java.lang.reflect.Field f = task.getClass().getDeclaredField("renderSection");
-                            f.setAccessible(true);
-                            section = (SectionRenderDispatcher.RenderSection) f.get(task);
-                        } catch (Exception ex) {
-                            throw new RuntimeException("Failed to get render section", e);
-                        }
-                    }
-                }
-                return section;
-            }
-            
-            @Override
-            public boolean canExecuteYet() {
-                return true; // Default implementation
-            }
-            
-            @Override
-            public long getTimeout() {
-                return timeout;
-            }
-            
-            @Override
-            public void setTimeout(long time) {
-                this.timeout = time;
-            }
-            
-            @Override
-            public void addFinishRunnable(Runnable runnable) {
-                if (runnable != null) {
-                    finishRunnables.add(runnable);
-                }
-            }
-
-            @Override
-            public Object getCompiledChunk() {
-                return compiledChunk;
-            }
-
-            @Override
-            public boolean isLayerEmpty(RenderType layer) {
-                return ((CompiledChunkWrapper)compiledChunk).isLayerEmpty(layer);
-            }
-
-            @Override
-            public void rebuildChunk(float x, float y, float z, Object generator) {
-                try {
-                    SectionRenderDispatcher.RenderSection section = getRenderSection();
-                    if (section != null) {
-                        // Try to call rebuildChunk using reflection
-                        try {
-                            section.getClass().getMethod("rebuildChunk", float.class, float.class, float.class, Object.class)
-                                .invoke(section, x, y, z, generator);
-                        } catch (NoSuchMethodException e) {
-                            // Fallback to alternative method signature if available
-                            section.getClass().getMethod("rebuildChunk", float.class, float.class, float.class)
-                                .invoke(section, x, y, z);
-                        }
-                    }
-                } catch (Exception e) {
-                    LOGGER.error("Error rebuilding chunk", e);
-                }
-            }
-
-            @Override
-            public void resortTransparency(SectionRenderDispatcher dispatcher) {
-                try {
-                    SectionRenderDispatcher.RenderSection section = getRenderSection();
-                    if (section != null) {
-                        // Try to call the method with the correct signature
-                        try {
-                            section.getClass().getMethod("resortTransparency", SectionRenderDispatcher.class)
-                                .invoke(section, dispatcher);
-                        } catch (NoSuchMethodException e) {
-                            // Fallback to alternative method signature if available
-                            section.getClass().getMethod("resortTransparency")
-                                .invoke(section);
-                        }
-                    }
-                } catch (Exception e) {
-                    LOGGER.error("Error resorting transparency", e);
-                }
-            }
-
-            @Override
-            public BlockPos blockPosition() {
-                try {
-                    SectionRenderDispatcher.RenderSection section = getRenderSection();
-                    if (section != null) {
-                        return section.getOrigin();
-                    }
-                } catch (Exception e) {
-                    LOGGER.error("Error getting block position", e);
-                }
-                return BlockPos.ZERO;
-            }
-
-            @Override
-            public Object getRenderRegionCache() {
-                try {
-                    // Try to get the render region cache using reflection
-                    java.lang.reflect.Field f = task.getClass().getDeclaredField("renderRegionCache");
-                    f.setAccessible(true);
-                    return f.get(task);
-                } catch (Exception e) {
-                    return renderRegionCache;
-                }
-            }
-        };
+    public int getFrameBudgetMillis() {
+        return (int)(frameBudgetNanos / 1000000l);
     }
 
-    private void runGenerator(SectionRenderDispatcher.RenderSection.CompileTask generator, Entity entity) {
-        // Set render region cache if method exists
-        try {
-            generator.getClass().getMethod("setRenderRegionCache", Object.class).invoke(generator, renderRegionCache);
-        } catch (Exception e) {
-            // Method not available, ignore
-        }
-
-        CompileTaskWrapper wrapper = wrapTask(generator);
-        float f = (float)entity.getX();
-        float f1 = (float)entity.getY();
-        float f2 = (float)entity.getZ();
-
-        try {
-            // Set initial status
-            try {
-                generator.getClass().getMethod("setStatus", String.class).invoke(generator, "COMPILING");
-            } catch (Exception e) {
-                // Method not available, ignore
-            }
+    /**
+     * Runs queued updates until this frame's budget is used up
+     */
+    public boolean updateChunks() {
+        return updateChunks(EagRuntime.nanoTime() + frameBudgetNanos);
+    }
 
-            SectionRenderDispatcher.RenderSection section = wrapper.getRenderSection();
-            if (section != null) {
-                // Handle chunk rebuilding and transparency
-                wrapper.rebuildChunk(f, f1, f2, generator);
-                
-                // Handle transparency if needed
-                if (!wrapper.isLayerEmpty(RenderType.translucent()) || !wrapper.isLayerEmpty(RenderType.waterMask())) {
-                    wrapper.resortTransparency(sectionRenderDispatcher);
-                    
-                    // Update dirty flag if both layers are empty
-                    if (wrapper.isLayerEmpty(RenderType.translucent()) && 
-                        wrapper.isLayerEmpty(RenderType.waterMask())) {
-                        try {
-                            section.getClass().getMethod("setDirty", boolean.class, boolean.class)
-                                .invoke(section, false, false);
-                        } catch (Exception e) {
-                            LOGGER.error("Failed to set chunk dirty flag", e);
-                        }
-                    }
-                }
-                
-                // Process chunk upload
-                processChunkUpload(wrapper, section);
-            } else {
-                LOGGER.error("Cannot process chunk: section is null");
+    public boolean updateChunks(long timeout) {
+        boolean flag = false;
+        removeCancelledTasks();
+        Vec3 camera = sectionRenderDispatcher.getCameraPosition();
+        SectionRenderDispatcher.RenderSection.CompileTask task;
+        while ((task = queue.poll(camera)) != null) {
+            SectionRenderDispatcher.RenderSection section = task.getSection();
+            if (queuedSections.get(section) == task) {
+                queuedSections.remove(section);
             }
-        } catch (Exception e) {
-            LOGGER.error("Error in chunk generation process", e);
-        } finally {
-            // Always try to set status to DONE
-            try {
-                generator.getClass().getMethod("setStatus", String.class).invoke(generator, "DONE");
-            } catch (Exception e) {
-                // Method not available, ignore
+            runCompileTask(task, section);
+            flag = true;
+            ++chunkUpdatesTotal;
+            if (timeout < EagRuntime.nanoTime()) {
+                break;
             }
         }
+        if (flag) {
+            sectionRenderDispatcher.uploadAllPendingUploads();
+        }
+        return flag;
     }
-    
-    private void processChunkUpload(CompileTaskWrapper wrapper, SectionRenderDispatcher.RenderSection section) {
+
+    private void runCompileTask(SectionRenderDispatcher.RenderSection.CompileTask task, SectionRenderDispatcher.RenderSection section) {
         try {
-            final Object compiledChunk = wrapper.getCompiledChunk();
-            if (compiledChunk == null) {
-                LOGGER.error("Cannot upload chunk: compiled chunk is null");
-                return;
-            }
-            
-            Object renderRegionCache = wrapper.getRenderRegionCache();
-            if (renderRegionCache == null) {
-                LOGGER.error("Cannot upload chunk: render region cache is null");
-                return;
-            }
-            
-            // Determine if this is a full chunk or just transparency update
-            boolean isFullChunk = compiledChunk.getClass().getName().contains("RenderChunk");
-            
-            if (isFullChunk) {
-                uploadFullChunk(renderRegionCache, section, compiledChunk);
+            sectionRenderDispatcher.runTaskSync(task);
+        } catch (Throwable t) {
+            LOGGER.error("Failed to rebuild section at {}", section.getOrigin());
+            LOGGER.error(t);
+            return;
+        }
+        SectionRenderDispatcher.CompiledSection compiled = section.getCompiled();
+        if (compiled == SectionRenderDispatcher.CompiledSection.UNCOMPILED) {
+            return;
+        }
+        List<RenderType> layers = RenderType.chunkBufferLayers();
+        for (int i = 0, l = layers.size(); i < l; ++i) {
+            if (compiled.isEmpty(layers.get(i))) {
+                ++layersEmpty;
             } else {
-                uploadTransparencyLayers(wrapper, renderRegionCache, section, compiledChunk);
-            }
-        } catch (Exception e) {
-            LOGGER.error("Error in chunk upload process", e);
-        }
-    }
-    
-    private void uploadFullChunk(Object renderRegionCache, SectionRenderDispatcher.RenderSection section, Object compiledChunk) {
-        for (RenderType layer : RenderType.chunkBufferLayers()) {
-            try {
-                Object levelRenderer = renderRegionCache.getClass()
-                    .getMethod("getLevelRendererByLayer", RenderType.class)
-                    .invoke(renderRegionCache, layer);
-                this.uploadChunk(layer, (LevelRenderer) levelRenderer, section, compiledChunk);
-            } catch (Exception e) {
-                LOGGER.error("Error uploading chunk layer: " + layer, e);
+                ++layersCompiled;
             }
         }
     }
-    
-    private void uploadTransparencyLayers(CompileTaskWrapper wrapper, Object renderRegionCache, 
-                                         SectionRenderDispatcher.RenderSection section, Object compiledChunk) {
-        try {
-            // Upload translucent layer if not empty
-            if (!wrapper.isLayerEmpty(RenderType.translucent())) {
-                Object levelRenderer = renderRegionCache.getClass()
-                    .getMethod("getLevelRendererByLayer", RenderType.class)
-                    .invoke(renderRegionCache, RenderType.translucent());
-                this.uploadChunk(RenderType.translucent(), (LevelRenderer) levelRenderer, section, compiledChunk);
-            }
-            
-            // Upload water mask layer if not empty
-            if (!wrapper.isLayerEmpty(RenderType.waterMask())) {
-                Object levelRenderer = renderRegionCache.getClass()
-                    .getMethod("getLevelRendererByLayer", RenderType.class)
-                    .invoke(renderRegionCache, RenderType.waterMask());
-                this.uploadChunk(RenderType.waterMask(), (LevelRenderer) levelRenderer, section, compiledChunk);
+
+    /**
+     * Queues a rebuild from the section's current blocks, a task that was
+     * already queued for it is cancelled since it was made from older data.
+     * The region cache holds copies of the chunks, pass a new one each frame
+     */
+    public boolean updateChunkLater(SectionRenderDispatcher.RenderSection section, RenderRegionCache renderRegionCache) {
+        discardQueued(section);
+        if (queuedSections.size() >= MAX_QUEUED_UPDATES) {
+            removeCancelledTasks();
+            if (queuedSections.size() >= MAX_QUEUED_UPDATES) {
+                return false;
             }
-        } catch (Exception e) {
-            LOGGER.error("Error uploading transparency layers", e);
         }
+        SectionRenderDispatcher.RenderSection.CompileTask task = section.createCompileTask(renderRegionCache);
+        queue.add(task);
+        queuedSections.put(section, task);
+        ++chunkUpdatesQueued;
+        return true;
     }
 
-    public boolean updateChunks(long timeout) {
-        Entity entity = Minecraft.getInstance().getCameraEntity();
-        if (entity == null) {
-            queue.clear();
-            chunkUpdatesQueued = 0;
-            return false;
-        } else {
-            boolean flag = false;
-            long millis = EagRuntime.steadyTimeMillis();
-            List<SectionRenderDispatcher.RenderSection.CompileTask> droppedUpdates = new LinkedList<>();
-            while (!queue.isEmpty()) {
-                SectionRenderDispatcher.RenderSection.CompileTask generator = queue.remove(0);
-
-                CompileTaskWrapper wrapper = wrapTask(generator);
-                if (!wrapper.canExecuteYet()) {
-                    if (millis - wrapper.getTimeout() < 60000l) {
-                        droppedUpdates.add(generator);
-                    }
-                    continue;
-                }
-
-                runGenerator(generator, entity);
-                flag = true;
-
-                ++chunkUpdatesTotal;
+    public boolean updateChunkNow(SectionRenderDispatcher.RenderSection section) {
+        // createCompileTask cancels the queued task, the queue drops it on the next poll
+        discardQueued(section);
+        runCompileTask(section.createCompileTask(new RenderRegionCache()), section);
+        sectionRenderDispatcher.uploadAllPendingUploads();
+        ++chunkUpdatesTotalImmediate;
+        return true;
+    }
 
-                if (timeout < EagRuntime.nanoTime()) {
-                    break;
+    /**
+     * Tasks can be cancelled by the section itself (reset, releaseBuffers or
+     * another rebuild), the queue silently drops those so they are forgotten
+     * here as well or the section could never be queued again
+     */
+    private void removeCancelledTasks() {
+        Iterator<SectionRenderDispatcher.RenderSection.CompileTask> itr = queuedSections.values().iterator();
+        while (itr.hasNext()) {
+            if (itr.next().isCancelled()) {
+                itr.remove();
+                if (chunkUpdatesQueued > 0) {
+                    --chunkUpdatesQueued;
                 }
             }
-            queue.addAll(droppedUpdates);
-            return flag;
-        }
-    }
-
-    public boolean updateChunkLater(SectionRenderDispatcher.RenderSection section) {
-        SectionRenderDispatcher.RenderSection.CompileTask task = section.createCompileTask(renderRegionCache);
-        boolean flag = queue.size() < 100;
-        if (!flag) {
-            task.cancel();
-        } else {
-            queue.add(task);
-            sectionRenderDispatcher.schedule(task);
         }
-        return flag;
     }
 
-    public boolean updateChunkNow(SectionRenderDispatcher.RenderSection section) {
-        Entity entity = Minecraft.getInstance().getCameraEntity();
-        if (entity != null) {
-            runGenerator(section.createCompileTask(renderRegionCache), entity);
-            ++chunkUpdatesTotalImmediate;
+    private void discardQueued(SectionRenderDispatcher.RenderSection section) {
+        if (queuedSections.remove(section) != null && chunkUpdatesQueued > 0) {
+            --chunkUpdatesQueued;
         }
-        return true;
     }
 
     public void stopChunkUpdates() {
         queue.clear();
+        queuedSections.clear();
         chunkUpdatesQueued = 0;
     }
 
+    /**
+     * Schedules a translucency resort, sections without any translucent
+     * geometry are skipped since there is nothing to sort
+     */
     public boolean updateTransparencyLater(SectionRenderDispatcher.RenderSection section) {
-        if (isAlreadyQueued(section)) {
-            return true;
-        }
-        final SectionRenderDispatcher.RenderSection.CompileTask chunkcompiletaskgenerator = section.createCompileTask(renderRegionCache);
-        if (chunkcompiletaskgenerator == null) {
+        if (isAlreadyQueued(section) || section.transparencyResortingScheduled()) {
             return true;
         }
-        CompileTaskWrapper wrapper = wrapTask(chunkcompiletaskgenerator);
-        wrapper.setTimeout(EagRuntime.steadyTimeMillis());
-        if (queue.size() < 100) {
-            wrapper.addFinishRunnable(new Runnable() {
-                @Override
-                public void run() {
-                    if (queue.remove(chunkcompiletaskgenerator)) {
-                        ++chunkUpdatesTotal;
-                    }
-                }
-            });
-            queue.add(chunkcompiletaskgenerator);
-            ++chunkUpdatesQueued;
+        if (isLayerEmpty(section, RenderType.translucent())) {
             return true;
-        } else {
-            return false;
         }
+        section.resortTransparency(sectionRenderDispatcher);
+        ++chunkUpdatesQueued;
+        return true;
     }
 
-    public void uploadChunk(RenderType layer, LevelRenderer chunkRenderer,
-            SectionRenderDispatcher.RenderSection section, Object compiledSection) {
-        // Simplified upload logic
-        try {
-            // Try to get display list using reflection if available
-            Object displayList = compiledSection.getClass().getMethod("getDisplayList", RenderType.class, SectionRenderDispatcher.RenderSection.class)
-                    .invoke(compiledSection, layer, section);
-            if (displayList instanceof Integer) {
-                this.uploadDisplayList(chunkRenderer, (Integer) displayList, section);
-            }
-        } catch (Exception e) {
-            // Fallback to simple translation
-            chunkRenderer.setTranslation(0.0D, 0.0D, 0.0D);
-        }
+    public static boolean isLayerEmpty(SectionRenderDispatcher.RenderSection section, RenderType layer) {
+        return section.getCompiled().isEmpty(layer);
     }
 
-    private void uploadDisplayList(LevelRenderer chunkRenderer, int parInt1, SectionRenderDispatcher.RenderSection section) {
-        LevelVertexBufferUploader.uploadDisplayList(parInt1, chunkRenderer);
+    public boolean isAlreadyQueued(SectionRenderDispatcher.RenderSection section) {
+        SectionRenderDispatcher.RenderSection.CompileTask task = queuedSections.get(section);
+        return task != null && !task.isCancelled();
     }
 
-    public boolean isAlreadyQueued(SectionRenderDispatcher.RenderSection section) {
-        for (SectionRenderDispatcher.RenderSection.CompileTask task : queue) {
-            try {
-                Object taskSection = task.getClass().getMethod("getRenderSection").invoke(task);
-                if (taskSection == section) {
-                    return true;
-                }
-            } catch (Exception e) {
-                // Ignore and continue
-            }
-        }
-        return false;
+    public int getQueueSize() {
+        return queuedSections.size();
     }
 
     public String getDebugInfo() {
@@ -457,9 +208,14 @@ public class ChunkUpdateManager {
             chunkUpdatesTotal = 0;
             chunkUpdatesQueuedLast = chunkUpdatesQueued;
             chunkUpdatesQueued = 0;
+            layersCompiledLast = layersCompiled;
+            layersEmptyLast = layersEmpty;
+            layersCompiled = 0;
+            layersEmpty = 0;
         }
 
         return "Uq: " + (chunkUpdatesTotalLast + chunkUpdatesTotalImmediateLast) + "/"
-                + (chunkUpdatesQueuedLast + chunkUpdatesTotalImmediateLast);
+                + (chunkUpdatesQueuedLast + chunkUpdatesTotalImmediateLast) + ", Ly: " + layersCompiledLast + "/"
+                + (layersCompiledLast + layersEmptyLast);
     }
 }
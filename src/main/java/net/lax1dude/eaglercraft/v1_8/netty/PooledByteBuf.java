@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.netty;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reference counted buffer from a {@link PooledByteBufAllocator}, starts
+ * out with a count of 1. Derived buffers (duplicate, copy) are not counted
+ * and must not be used after the last release
+ */
+public class PooledByteBuf extends ByteBufEaglercraftImpl {
+
+	private final PooledByteBufAllocator allocator;
+	private final byte[] pooledArray;
+	private int refCnt = 1;
+
+	PooledByteBuf(PooledByteBufAllocator allocator, byte[] pooledArray, int maxCapacity) {
+		super(ByteBuffer.wrap(pooledArray), maxCapacity);
+		this.allocator = allocator;
+		this.pooledArray = pooledArray;
+	}
+
+	public int refCnt() {
+		return refCnt;
+	}
+
+	public PooledByteBuf retain() {
+		if(refCnt <= 0) {
+			throw new IllegalStateException("Buffer has already been released");
+		}
+		++refCnt;
+		return this;
+	}
+
+	/**
+	 * @return true if this was the last reference and the array went back
+	 * to the pool
+	 */
+	public boolean release() {
+		if(refCnt <= 0) {
+			throw new IllegalStateException("Buffer has already been released");
+		}
+		if(--refCnt == 0) {
+			// if the buffer outgrew the pooled array, the bigger one is left to the GC
+			if(array() == pooledArray) {
+				allocator.recycle(pooledArray);
+			}
+			return true;
+		}
+		return false;
+	}
+
+}
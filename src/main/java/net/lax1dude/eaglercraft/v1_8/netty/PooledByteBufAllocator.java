@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.netty;
+
+/**
+ * Hands out heap buffers backed by arrays from power of two size classes
+ * between 256 bytes and 4 MB, arrays come back to the pool when the last
+ * reference to a {@link PooledByteBuf} is released. Larger requests are
+ * allocated normally and never pooled.<br>
+ * <br>
+ * Only use this for buffers that stay inside the process, anything passed
+ * to the platform (websockets, IPC) is transferred and must not be pooled
+ */
+public class PooledByteBufAllocator {
+
+	public static final PooledByteBufAllocator DEFAULT = new PooledByteBufAllocator(0x1000000);
+
+	private static final int MIN_SIZE_SHIFT = 8;
+	private static final int MAX_SIZE_SHIFT = 22;
+	private static final int SIZE_CLASSES = MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1;
+	private static final int MAX_ARRAYS_PER_CLASS = 16;
+
+	private final byte[][][] freeArrays = new byte[SIZE_CLASSES][MAX_ARRAYS_PER_CLASS][];
+	private final int[] freeCounts = new int[SIZE_CLASSES];
+	private final int maxPooledBytes;
+	private int pooledBytes = 0;
+
+	private int allocations = 0;
+	private int poolHits = 0;
+	private int recycled = 0;
+
+	public PooledByteBufAllocator(int maxPooledBytes) {
+		this.maxPooledBytes = maxPooledBytes;
+	}
+
+	public PooledByteBuf buffer(int minCapacity) {
+		return buffer(minCapacity, Integer.MAX_VALUE);
+	}
+
+	public PooledByteBuf buffer(int minCapacity, int maxCapacity) {
+		return new PooledByteBuf(this, allocateArray(minCapacity), maxCapacity);
+	}
+
+	/**
+	 * Appends to a buffer from this pool, moving what was written so far into
+	 * a bigger array when it runs out of room. Returns the buffer to keep
+	 * using, the old one has been released if it was replaced
+	 */
+	public PooledByteBuf append(PooledByteBuf buf, byte[] src, int off, int len) {
+		if(buf == null) {
+			buf = buffer(len);
+		}else if(buf.writableBytes() < len) {
+			int written = buf.writerIndex();
+			PooledByteBuf grown = buffer(Math.max(written + len, buf.capacity() << 1));
+			grown.writeBytes(buf.array(), 0, written);
+			grown.readerIndex(buf.readerIndex());
+			buf.release();
+			buf = grown;
+		}
+		buf.writeBytes(src, off, len);
+		return buf;
+	}
+
+	private synchronized byte[] allocateArray(int minCapacity) {
+		++allocations;
+		int sizeClass = sizeClass(minCapacity);
+		if(sizeClass == -1) {
+			return new byte[minCapacity];
+		}
+		int cnt = freeCounts[sizeClass];
+		if(cnt > 0) {
+			byte[][] arrays = freeArrays[sizeClass];
+			byte[] ret = arrays[--cnt];
+			arrays[cnt] = null;
+			freeCounts[sizeClass] = cnt;
+			pooledBytes -= ret.length;
+			++poolHits;
+			return ret;
+		}
+		return new byte[1 << (sizeClass + MIN_SIZE_SHIFT)];
+	}
+
+	synchronized void recycle(byte[] array) {
+		int sizeClass = sizeClass(array.length);
+		if(sizeClass == -1 || array.length != (1 << (sizeClass + MIN_SIZE_SHIFT))) {
+			return;
+		}
+		int cnt = freeCounts[sizeClass];
+		if(cnt < MAX_ARRAYS_PER_CLASS && pooledBytes + array.length <= maxPooledBytes) {
+			freeArrays[sizeClass][cnt] = array;
+			freeCounts[sizeClass] = cnt + 1;
+			pooledBytes += array.length;
+			++recycled;
+		}
+	}
+
+	private static int sizeClass(int len) {
+		if(len <= (1 << MIN_SIZE_SHIFT)) {
+			return 0;
+		}else if(len > (1 << MAX_SIZE_SHIFT)) {
+			return -1;
+		}else {
+			return 32 - Integer.numberOfLeadingZeros(len - 1) - MIN_SIZE_SHIFT;
+		}
+	}
+
+	/**
+	 * Drops every pooled array, call when the connection that was using the
+	 * pool goes away
+	 */
+	public synchronized void trim() {
+		for(int i = 0; i < SIZE_CLASSES; ++i) {
+			byte[][] arrays = freeArrays[i];
+			for(int j = 0, l = freeCounts[i]; j < l; ++j) {
+				arrays[j] = null;
+			}
+			freeCounts[i] = 0;
+		}
+		pooledBytes = 0;
+	}
+
+	/**
+	 * Releases the buffer if it came from a pool, does nothing otherwise
+	 */
+	public static boolean release(ByteBuf buf) {
+		if(buf instanceof PooledByteBuf) {
+			return ((PooledByteBuf)buf).release();
+		}
+		return false;
+	}
+
+	public synchronized int getPooledBytes() {
+		return pooledBytes;
+	}
+
+	public synchronized int getAllocations() {
+		return allocations;
+	}
+
+	public synchronized int getPoolHits() {
+		return poolHits;
+	}
+
+	public synchronized int getRecycled() {
+		return recycled;
+	}
+
+}
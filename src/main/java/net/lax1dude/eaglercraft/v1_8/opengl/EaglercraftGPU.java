@@ -384,8 +384,16 @@ public class EaglercraftGPU {
 		}
 	}
 
+	private static float currentLineWidth = -1.0f;
+
 	public static void glLineWidth(float f) {
-		_wglLineWidth(f);
+		if(f != currentLineWidth) {
+			_wglLineWidth(f);
+			currentLineWidth = f;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
+		}
 	}
 
 	public static void glFog(int param, FloatBuffer valueBuffer) {
@@ -428,6 +436,9 @@ public class EaglercraftGPU {
 		if(equation != GlStateManager.stateBlendEquation) {
 			_wglBlendEquation(equation);
 			GlStateManager.stateBlendEquation = equation;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -473,7 +484,15 @@ public class EaglercraftGPU {
 			}
 			((SoftGLVertexArray)currentVertexArray).enableAttrib(index, true);
 		}else {
-			_wglEnableVertexAttribArray(index);
+			int bit = 1 << index;
+			if((currentVertexArrayAttribKnown & currentVertexArrayAttribEnabled & bit) == 0) {
+				_wglEnableVertexAttribArray(index);
+				currentVertexArrayAttribKnown |= bit;
+				currentVertexArrayAttribEnabled |= bit;
+				GlStateStatistics.issueState();
+			}else {
+				GlStateStatistics.skipState();
+			}
 		}
 	}
 
@@ -485,7 +504,15 @@ public class EaglercraftGPU {
 			}
 			((SoftGLVertexArray)currentVertexArray).enableAttrib(index, false);
 		}else {
-			_wglDisableVertexAttribArray(index);
+			int bit = 1 << index;
+			if((currentVertexArrayAttribKnown & bit) == 0 || (currentVertexArrayAttribEnabled & bit) != 0) {
+				_wglDisableVertexAttribArray(index);
+				currentVertexArrayAttribKnown |= bit;
+				currentVertexArrayAttribEnabled &= ~bit;
+				GlStateStatistics.issueState();
+			}else {
+				GlStateStatistics.skipState();
+			}
 		}
 	}
 
@@ -562,6 +589,13 @@ public class EaglercraftGPU {
 	}
 
 	static IVertexArrayGL currentVertexArray = null;
+
+	// attrib enables and the index buffer belong to the vertex array, they are
+	// only tracked until a different vertex array is bound
+	private static int currentVertexArrayAttribKnown = 0;
+	private static int currentVertexArrayAttribEnabled = 0;
+	private static IBufferGL currentVertexArrayIndexBuffer = null;
+	private static boolean currentVertexArrayIndexBufferKnown = false;
 	
 	public static void bindGLVertexArray(IVertexArrayGL buffer) {
 		if(emulatedVAOs) {
@@ -570,6 +604,11 @@ public class EaglercraftGPU {
 			if(currentVertexArray != buffer) {
 				_wglBindVertexArray(buffer);
 				currentVertexArray = buffer;
+				currentVertexArrayAttribKnown = 0;
+				currentVertexArrayIndexBufferKnown = false;
+				GlStateStatistics.issueBind();
+			}else {
+				GlStateStatistics.skipBind();
 			}
 		}
 	}
@@ -589,6 +628,9 @@ public class EaglercraftGPU {
 			if(currentArrayBuffer != buffer) {
 				_wglBindBuffer(GL_ARRAY_BUFFER, buffer);
 				currentArrayBuffer = buffer;
+				GlStateStatistics.issueBind();
+			}else {
+				GlStateStatistics.skipBind();
 			}
 		}
 	}
@@ -603,6 +645,9 @@ public class EaglercraftGPU {
 		if(currentArrayBuffer != buffer) {
 			_wglBindBuffer(GL_ARRAY_BUFFER, buffer);
 			currentArrayBuffer = buffer;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 
@@ -617,7 +662,7 @@ public class EaglercraftGPU {
 			}
 			((SoftGLVertexArray)currentVertexArray).setIndexBuffer(buffer);
 		}else {
-			_wglBindBuffer(GL_ELEMENT_ARRAY_BUFFER, buffer);
+			bindNativeVAOIndexBuffer(buffer);
 		}
 	}
 
@@ -633,7 +678,18 @@ public class EaglercraftGPU {
 				currentEmulatedVAOIndexBuffer = buffer;
 			}
 		}else {
+			bindNativeVAOIndexBuffer(buffer);
+		}
+	}
+
+	private static void bindNativeVAOIndexBuffer(IBufferGL buffer) {
+		if(!currentVertexArrayIndexBufferKnown || currentVertexArrayIndexBuffer != buffer) {
 			_wglBindBuffer(GL_ELEMENT_ARRAY_BUFFER, buffer);
+			currentVertexArrayIndexBuffer = buffer;
+			currentVertexArrayIndexBufferKnown = true;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 
@@ -643,6 +699,9 @@ public class EaglercraftGPU {
 		if(currentEmulatedVAOIndexBuffer != buffer) {
 			_wglBindBuffer(GL_ELEMENT_ARRAY_BUFFER, buffer);
 			currentEmulatedVAOIndexBuffer = buffer;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 
@@ -653,6 +712,9 @@ public class EaglercraftGPU {
 		if(currentArrayBuffer != buffer) {
 			_wglBindBuffer(GL_ARRAY_BUFFER, buffer);
 			currentArrayBuffer = buffer;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 	
@@ -665,6 +727,9 @@ public class EaglercraftGPU {
 		if(currentUniformBuffer != buffer) {
 			_wglBindBuffer(0x8A11, buffer);
 			currentUniformBuffer = buffer;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 	
@@ -674,6 +739,9 @@ public class EaglercraftGPU {
 		if(currentShaderProgram != prog) {
 			_wglUseProgram(prog);
 			currentShaderProgram = prog;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 	
@@ -688,6 +756,9 @@ public class EaglercraftGPU {
 			currentUniformBlockBindings[index] = buffer;
 			currentUniformBlockBindingOffset[index] = offset;
 			currentUniformBlockBindingSize[index] = size;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 
@@ -714,6 +785,8 @@ public class EaglercraftGPU {
 		}
 		if((mask & CLEAR_BINDING_BUFFER_ARRAY) != 0) {
 			currentVertexArray = null;
+			currentVertexArrayAttribKnown = 0;
+			currentVertexArrayIndexBufferKnown = false;
 		}
 		if((mask & CLEAR_BINDING_ARRAY_BUFFER) != 0) {
 			currentArrayBuffer = currentVAOArrayBuffer = null;
@@ -757,7 +830,6 @@ public class EaglercraftGPU {
 	private static long lastRecyclerFlush = 0l;
 
 	public static void optimize() {
-		FixedFunctionPipeline.optimize();
 		long millis = EagRuntime.steadyTimeMillis();
 		if(millis - lastRecyclerFlush > 120000l) {
 			lastRecyclerFlush = millis;
@@ -1045,6 +1117,7 @@ public class EaglercraftGPU {
 		TextureCopyUtil.initialize();
 		DrawUtils.vshLocal.free();
 		DrawUtils.vshLocal = null;
+		FixedFunctionPipeline.warmUpCache();
 	}
 
 	public static void destroyCache() {
@@ -19,8 +19,6 @@ package net.lax1dude.eaglercraft.v1_8.opengl;
 import static net.lax1dude.eaglercraft.v1_8.internal.PlatformOpenGL.*;
 import static net.lax1dude.eaglercraft.v1_8.opengl.RealOpenGLEnums.*;
 
-import java.util.ArrayList;
-import java.util.List;
 
 import net.lax1dude.eaglercraft.v1_8.internal.buffer.ByteBuffer;
 import net.lax1dude.eaglercraft.v1_8.internal.buffer.FloatBuffer;
@@ -74,13 +72,14 @@ public class FixedFunctionPipeline {
 			self = getPipelineInstanceCore(baseState);
 		}
 		
-		StreamBufferInstance sb = self.streamBuffer.getBuffer(buffer.remaining());
+		StreamBufferInstance sb = self.streamBuffer.getBuffer(buffer.remaining(), self.attribStride);
 		self.currentVertexArray = sb;
+		self.currentVertexFirst = sb.getVertexFirst();
 		
 		EaglercraftGPU.bindGLVertexArray(sb.getVertexArray());
 		EaglercraftGPU.bindGLArrayBuffer(sb.getVertexBuffer());
 		
-		_wglBufferSubData(GL_ARRAY_BUFFER, 0, buffer);
+		_wglBufferSubData(GL_ARRAY_BUFFER, sb.getVertexOffset(), buffer);
 		
 		return self;
 	}
@@ -151,28 +150,30 @@ public class FixedFunctionPipeline {
 	
 	void drawDirectArrays(int mode, int offset, int count) {
 		EaglercraftGPU.bindGLShaderProgram(shaderProgram);
+		offset += currentVertexFirst;
 		if(mode == GL_QUADS) {
 			StreamBufferInstance sb = currentVertexArray;
-			if(count > 0xFFFF) {
+			int end = offset + count;
+			if(end > 0xFFFF) {
 				if(!sb.bindQuad32) {
 					sb.bindQuad16 = false;
 					sb.bindQuad32 = true;
-					EaglercraftGPU.attachQuad32EmulationBuffer(count, true);
+					EaglercraftGPU.attachQuad32EmulationBuffer(end, true);
 				}else {
-					EaglercraftGPU.attachQuad32EmulationBuffer(count, false);
+					EaglercraftGPU.attachQuad32EmulationBuffer(end, false);
 				}
 				EaglercraftGPU.drawElements(GL_TRIANGLES, count + (count >> 1),
-						GL_UNSIGNED_INT, 0);
+						GL_UNSIGNED_INT, (offset >> 2) * 24);
 			}else {
 				if(!sb.bindQuad16) {
 					sb.bindQuad16 = true;
 					sb.bindQuad32 = false;
-					EaglercraftGPU.attachQuad16EmulationBuffer(count, true);
+					EaglercraftGPU.attachQuad16EmulationBuffer(end, true);
 				}else {
-					EaglercraftGPU.attachQuad16EmulationBuffer(count, false);
+					EaglercraftGPU.attachQuad16EmulationBuffer(end, false);
 				}
 				EaglercraftGPU.drawElements(GL_TRIANGLES, count + (count >> 1),
-						GL_UNSIGNED_SHORT, 0);
+						GL_UNSIGNED_SHORT, (offset >> 2) * 12);
 			}
 		}else {
 			EaglercraftGPU.drawArrays(mode, offset, count);
@@ -193,11 +194,38 @@ public class FixedFunctionPipeline {
 
 	private static final FixedFunctionPipeline[] pipelineStateCache = new FixedFunctionPipeline[fixedFunctionStatesBits + 1];
 	private static final FixedFunctionPipeline[][] pipelineExtStateCache = new FixedFunctionPipeline[fixedFunctionStatesBits + 1][];
-	private static final List<FixedFunctionPipeline> pipelineListTracker = new ArrayList<>(1024);
 
 	private static String shaderSourceCacheVSH = null;
 	private static String shaderSourceCacheFSH = null;
 	
+	private static final int[] warmUpStates = new int[] {
+			STATE_HAS_ATTRIB_COLOR,
+			STATE_HAS_ATTRIB_TEXTURE | STATE_ENABLE_TEXTURE2D,
+			STATE_HAS_ATTRIB_TEXTURE | STATE_HAS_ATTRIB_COLOR | STATE_ENABLE_TEXTURE2D,
+			STATE_HAS_ATTRIB_TEXTURE | STATE_ENABLE_TEXTURE2D | STATE_ENABLE_ALPHA_TEST,
+			STATE_HAS_ATTRIB_TEXTURE | STATE_HAS_ATTRIB_COLOR | STATE_ENABLE_TEXTURE2D | STATE_ENABLE_ALPHA_TEST,
+			STATE_HAS_ATTRIB_TEXTURE | STATE_HAS_ATTRIB_COLOR | STATE_HAS_ATTRIB_LIGHTMAP | STATE_ENABLE_TEXTURE2D
+					| STATE_ENABLE_LIGHTMAP | STATE_ENABLE_ALPHA_TEST | STATE_ENABLE_FOG,
+			STATE_HAS_ATTRIB_TEXTURE | STATE_HAS_ATTRIB_COLOR | STATE_HAS_ATTRIB_NORMAL | STATE_HAS_ATTRIB_LIGHTMAP
+					| STATE_ENABLE_TEXTURE2D | STATE_ENABLE_LIGHTMAP | STATE_ENABLE_ALPHA_TEST
+					| STATE_ENABLE_MC_LIGHTING | STATE_ENABLE_FOG
+	};
+	
+	/**
+	 * Compiles the variants used by the menus and the terrain ahead of time
+	 * so the first frames of the game don't stall on shader compiles
+	 */
+	public static void warmUpCache() {
+		for(int i = 0; i < warmUpStates.length; ++i) {
+			try {
+				getPipelineInstanceCore(warmUpStates[i]);
+			}catch(IllegalStateException ex) {
+				LOGGER.error("Failed to precompile fixed function state {}", visualizeBits(warmUpStates[i]));
+				break;
+			}
+		}
+	}
+	
 	private static FixedFunctionPipeline getPipelineInstanceCore(int bits) {
 		FixedFunctionPipeline pp = pipelineStateCache[bits];
 		if(pp == null) {
@@ -279,6 +307,10 @@ public class FixedFunctionPipeline {
 		if((coreBits & STATE_ENABLE_BLEND_ADD) != 0) {
 			macros.append("#define " + MACRO_ENABLE_BLEND_ADD + "\n");
 		}
+		boolean uniformBlock = !enableExt && FixedFunctionUniformBlock.isSupported();
+		if(uniformBlock) {
+			macros.append("#define " + FixedFunctionUniformBlock.MACRO_UNIFORM_BLOCK + "\n");
+		}
 
 		macros.append("precision " + PRECISION_INT + " int;\n");
 		macros.append("precision " + PRECISION_FLOAT + " float;\n");
@@ -330,7 +362,7 @@ public class FixedFunctionPipeline {
 		FixedFunctionPipeline pp = null;
 		IllegalStateException err = null;
 		try {
-			pp = new FixedFunctionPipeline(coreBits, extBits, prog);
+			pp = new FixedFunctionPipeline(coreBits, extBits, prog, uniformBlock);
 		}catch(IllegalStateException t) {
 			err = t;
 		}
@@ -348,7 +380,6 @@ public class FixedFunctionPipeline {
 				pp.extensionPointer = extProviderUserPointer;
 				extensionProvider.initializeNewShader(prog, pp.stateCoreBits, pp.stateExtBits, extProviderUserPointer);
 			}
-			pipelineListTracker.add(pp);
 			return pp;
 		}
 	}
@@ -388,6 +419,7 @@ public class FixedFunctionPipeline {
 	private final boolean stateEnableAnisotropicFix;
 	private final boolean stateEnableFog;
 	private final boolean stateEnableBlendAdd;
+	private final boolean stateUniformBlock;
 
 	private final int attribTextureIndex;
 	private final int attribTextureOffset;
@@ -472,12 +504,15 @@ public class FixedFunctionPipeline {
 
 	private final IUniformGL stateModelMatrixUniformMat4f;
 	private int stateModelMatrixSerial = -1;
+	private final Matrix4f stateModelMatrix = Matrix4f.setZero(new Matrix4f());
 
 	private static final Matrix4f tmpMatrixForInv = new Matrix4f();
 	private static final Vector4f tmpVec4ForTex = new Vector4f();
 
 	private final IUniformGL stateProjectionMatrixUniformMat4f;
 	private int stateProjectionMatrixSerial = -1;
+	private final Matrix4f stateProjectionMatrix = Matrix4f.setZero(new Matrix4f());
+	private final Matrix4f stateModelProjectionMatrix = Matrix4f.setZero(new Matrix4f());
 
 	private final IUniformGL stateModelProjectionMatrixUniformMat4f;
 
@@ -500,11 +535,13 @@ public class FixedFunctionPipeline {
 
 	private final StreamBuffer streamBuffer;
 	private StreamBufferInstance currentVertexArray = null;
+	private int currentVertexFirst = 0;
 
 	private static FloatBuffer matrixCopyBuffer = null;
 
-	private FixedFunctionPipeline(int bits, int extBits, IProgramGL compiledProg) {
+	private FixedFunctionPipeline(int bits, int extBits, IProgramGL compiledProg, boolean uniformBlock) {
 		shaderProgram = compiledProg;
+		stateUniformBlock = uniformBlock;
 		
 		stateBits = bits;
 		stateHasAttribTexture = (bits & STATE_HAS_ATTRIB_TEXTURE) != 0;
@@ -574,37 +611,36 @@ public class FixedFunctionPipeline {
 			throw new IllegalStateException("Program could not be linked!");
 		}
 		
-		streamBuffer = new StreamBuffer(FixedFunctionShader.initialSize, FixedFunctionShader.initialCount,
-				FixedFunctionShader.maxCount, (vertexArray, vertexBuffer) -> {
+		streamBuffer = new StreamBuffer((vertexArray, vertexBuffer, byteOffset) -> {
 					EaglercraftGPU.bindGLVertexArray(vertexArray);
 					EaglercraftGPU.bindVAOGLArrayBuffer(vertexBuffer);
 
 					EaglercraftGPU.enableVertexAttribArray(0);
 					EaglercraftGPU.vertexAttribPointer(0, VertexFormat.COMPONENT_POSITION_SIZE,
-							VertexFormat.COMPONENT_POSITION_FORMAT, false, attribStride, 0);
+							VertexFormat.COMPONENT_POSITION_FORMAT, false, attribStride, byteOffset);
 
 					if(attribTextureIndex != -1) {
 						EaglercraftGPU.enableVertexAttribArray(attribTextureIndex);
 						EaglercraftGPU.vertexAttribPointer(attribTextureIndex, VertexFormat.COMPONENT_TEX_SIZE,
-								VertexFormat.COMPONENT_TEX_FORMAT, false, attribStride, attribTextureOffset);
+								VertexFormat.COMPONENT_TEX_FORMAT, false, attribStride, byteOffset + attribTextureOffset);
 					}
 					
 					if(attribColorIndex != -1) {
 						EaglercraftGPU.enableVertexAttribArray(attribColorIndex);
 						EaglercraftGPU.vertexAttribPointer(attribColorIndex, VertexFormat.COMPONENT_COLOR_SIZE,
-								VertexFormat.COMPONENT_COLOR_FORMAT, true, attribStride, attribColorOffset);
+								VertexFormat.COMPONENT_COLOR_FORMAT, true, attribStride, byteOffset + attribColorOffset);
 					}
 					
 					if(attribNormalIndex != -1) {
 						EaglercraftGPU.enableVertexAttribArray(attribNormalIndex);
 						EaglercraftGPU.vertexAttribPointer(attribNormalIndex, VertexFormat.COMPONENT_NORMAL_SIZE,
-								VertexFormat.COMPONENT_NORMAL_FORMAT, true, attribStride, attribNormalOffset);
+								VertexFormat.COMPONENT_NORMAL_FORMAT, true, attribStride, byteOffset + attribNormalOffset);
 					}
 					
 					if(attribLightmapIndex != -1) {
 						EaglercraftGPU.enableVertexAttribArray(attribLightmapIndex);
 						EaglercraftGPU.vertexAttribPointer(attribLightmapIndex, VertexFormat.COMPONENT_LIGHTMAP_SIZE,
-								VertexFormat.COMPONENT_LIGHTMAP_FORMAT, false, attribStride, attribLightmapOffset);
+								VertexFormat.COMPONENT_LIGHTMAP_FORMAT, false, attribStride, byteOffset + attribLightmapOffset);
 					}
 				});
 
@@ -695,6 +731,13 @@ public class FixedFunctionPipeline {
 		stateShaderBlendSrcColorUniform4f = stateEnableBlendAdd ? _wglGetUniformLocation(compiledProg,
 				UNIFORM_BLEND_SRC_COLOR_NAME) : null;
 		
+		if(stateUniformBlock) {
+			int blockIndex = _wglGetUniformBlockIndex(compiledProg, FixedFunctionUniformBlock.BLOCK_NAME);
+			if(blockIndex != -1) {
+				_wglUniformBlockBinding(compiledProg, blockIndex, FixedFunctionUniformBlock.BLOCK_BINDING);
+			}
+		}
+		
 		stateShaderBlendAddColorUniform4f = stateEnableBlendAdd ? _wglGetUniformLocation(compiledProg,
 				UNIFORM_BLEND_ADD_COLOR_NAME) : null;
 		
@@ -709,10 +752,24 @@ public class FixedFunctionPipeline {
 		}
 	}
 	
-	public FixedFunctionPipeline update() {
-		
-		EaglercraftGPU.bindGLShaderProgram(shaderProgram);
-		
+	/**
+	 * Matrix serials change on every push/pop/load even if the values end up
+	 * the same, so compare against the last uploaded matrix before uploading
+	 */
+	private void uploadMatrixIfChanged(IUniformGL uniform, Matrix4f uploaded, Matrix4f matrix) {
+		if(Matrix4f.equal(uploaded, matrix)) {
+			GlStateStatistics.skipUniform();
+			return;
+		}
+		uploaded.load(matrix);
+		matrixCopyBuffer.clear();
+		matrix.store(matrixCopyBuffer);
+		matrixCopyBuffer.flip();
+		_wglUniformMatrix4fv(uniform, false, matrixCopyBuffer);
+		GlStateStatistics.issueUniform();
+	}
+
+	private void updateMatrixAndColorUniforms() {
 		int serial = GlStateManager.stateColorSerial;
 		if(stateColorSerial != serial) {
 			stateColorSerial = serial;
@@ -723,6 +780,7 @@ public class FixedFunctionPipeline {
 			if(stateColorR != r || stateColorG != g ||
 				stateColorB != b || stateColorA != a) {
 				_wglUniform4f(stateColorUniform4f, r, g, b, a);
+				GlStateStatistics.issueUniform();
 				stateColorR = r;
 				stateColorG = g;
 				stateColorB = b;
@@ -730,30 +788,20 @@ public class FixedFunctionPipeline {
 			}
 		}
 		
-		if(matrixCopyBuffer == null) {
-			matrixCopyBuffer = PlatformRuntime.allocateFloatBuffer(16);
-		}
-		
 		int ptr;
 		if(stateModelProjectionMatrixUniformMat4f == null) {
 			ptr = GlStateManager.modelMatrixStackPointer;
 			serial = GlStateManager.modelMatrixStackAccessSerial[ptr];
 			if(stateModelMatrixSerial != serial) {
 				stateModelMatrixSerial = serial;
-				matrixCopyBuffer.clear();
-				GlStateManager.modelMatrixStack[ptr].store(matrixCopyBuffer);
-				matrixCopyBuffer.flip();
-				_wglUniformMatrix4fv(stateModelMatrixUniformMat4f, false, matrixCopyBuffer);
+				uploadMatrixIfChanged(stateModelMatrixUniformMat4f, stateModelMatrix, GlStateManager.modelMatrixStack[ptr]);
 			}
 			
 			ptr = GlStateManager.projectionMatrixStackPointer;
 			serial = GlStateManager.projectionMatrixStackAccessSerial[ptr];
 			if(stateProjectionMatrixSerial != serial) {
 				stateProjectionMatrixSerial = serial;
-				matrixCopyBuffer.clear();
-				GlStateManager.projectionMatrixStack[ptr].store(matrixCopyBuffer);
-				matrixCopyBuffer.flip();
-				_wglUniformMatrix4fv(stateProjectionMatrixUniformMat4f, false, matrixCopyBuffer);
+				uploadMatrixIfChanged(stateProjectionMatrixUniformMat4f, stateProjectionMatrix, GlStateManager.projectionMatrixStack[ptr]);
 			}
 		}else {
 			ptr = GlStateManager.modelMatrixStackPointer;
@@ -765,37 +813,50 @@ public class FixedFunctionPipeline {
 				stateModelMatrixSerial = serial;
 				stateProjectionMatrixSerial = serial2;
 				if(b && stateModelMatrixUniformMat4f != null) {
-					matrixCopyBuffer.clear();
-					GlStateManager.modelMatrixStack[ptr].store(matrixCopyBuffer);
-					matrixCopyBuffer.flip();
-					_wglUniformMatrix4fv(stateModelMatrixUniformMat4f, false, matrixCopyBuffer);
+					uploadMatrixIfChanged(stateModelMatrixUniformMat4f, stateModelMatrix, GlStateManager.modelMatrixStack[ptr]);
 				}
 				Matrix4f.mul(GlStateManager.projectionMatrixStack[ptr2], GlStateManager.modelMatrixStack[ptr], tmpMatrixForInv);
-				matrixCopyBuffer.clear();
-				tmpMatrixForInv.store(matrixCopyBuffer);
-				matrixCopyBuffer.flip();
-				_wglUniformMatrix4fv(stateModelProjectionMatrixUniformMat4f, false, matrixCopyBuffer);
+				uploadMatrixIfChanged(stateModelProjectionMatrixUniformMat4f, stateModelProjectionMatrix, tmpMatrixForInv);
 			}
 		}
+	}
+
+	public FixedFunctionPipeline update() {
+		
+		EaglercraftGPU.bindGLShaderProgram(shaderProgram);
+		
+		if(matrixCopyBuffer == null) {
+			matrixCopyBuffer = PlatformRuntime.allocateFloatBuffer(16);
+		}
+		
+		int serial;
+		int ptr;
+		if(stateUniformBlock) {
+			FixedFunctionUniformBlock.update();
+		}else {
+			updateMatrixAndColorUniforms();
+		}
 		
 		if(stateEnableAlphaTest) {
 			float v = GlStateManager.stateAlphaTestRef;
 			if(stateAlphaTestRef != v) {
 				stateAlphaTestRef = v;
 				_wglUniform1f(stateAlphaTestUniform1f, v);
+				GlStateStatistics.issueUniform();
 			}
 		}
 		
 		if(stateEnableTexture2D) {
 			ptr = GlStateManager.textureMatrixStackPointer[0];
 			serial = GlStateManager.textureMatrixStackAccessSerial[0][ptr];
-			if(stateHasAttribTexture || stateEnableEndPortal) {
+			if(!stateUniformBlock && (stateHasAttribTexture || stateEnableEndPortal)) {
 				if(stateTextureMatrixSerial[0] != serial) {
 					stateTextureMatrixSerial[0] = serial;
 					matrixCopyBuffer.clear();
 					GlStateManager.textureMatrixStack[0][ptr].store(matrixCopyBuffer);
 					matrixCopyBuffer.flip();
 					_wglUniformMatrix4fv(stateTextureMatrix01UniformMat4f, false, matrixCopyBuffer);
+					GlStateStatistics.issueUniform();
 				}
 			}
 			if(!stateHasAttribTexture && !stateEnableEndPortal) {
@@ -814,6 +875,7 @@ public class FixedFunctionPipeline {
 						stateTextureCoordsX[0] = x;
 						stateTextureCoordsY[0] = y;
 						_wglUniform2f(stateTextureCoords01Uniform2f, x, y);
+						GlStateStatistics.issueUniform();
 					}
 				}
 			}
@@ -838,15 +900,17 @@ public class FixedFunctionPipeline {
 						stateTextureCoordsX[1] = x;
 						stateTextureCoordsY[1] = y;
 						_wglUniform2f(stateTextureCoords02Uniform2f, x, y);
+						GlStateStatistics.issueUniform();
 					}
 				}
-			}else {
+			}else if(!stateUniformBlock) {
 				if(stateTextureMatrixSerial[1] != serial) {
 					stateTextureMatrixSerial[1] = serial;
 					matrixCopyBuffer.clear();
 					GlStateManager.textureMatrixStack[1][ptr].store(matrixCopyBuffer);
 					matrixCopyBuffer.flip();
 					_wglUniformMatrix4fv(stateTextureMatrix02UniformMat4f, false, matrixCopyBuffer);
+					GlStateStatistics.issueUniform();
 				}
 			}
 		}
@@ -873,6 +937,7 @@ public class FixedFunctionPipeline {
 							lightDirOld.z = z;
 							lightDirOld.w = w;
 							_wglUniform4f(stateLightsVectorsArrayUniform4f[lightsCounter], x, y, z, w);
+							GlStateStatistics.issueUniform();
 						}
 						if(++lightsCounter >= stateLightsVectors.length) {
 							break;
@@ -883,6 +948,7 @@ public class FixedFunctionPipeline {
 				if(stateLightsEnabled != lightsCounter) {
 					stateLightsEnabled = lightsCounter;
 					_wglUniform1i(stateLightsEnabledUniform1i, lightsCounter);
+					GlStateStatistics.issueUniform();
 				}
 				
 			}
@@ -899,6 +965,7 @@ public class FixedFunctionPipeline {
 					stateLightingAmbientG = g;
 					stateLightingAmbientB = b;
 					_wglUniform3f(stateLightingAmbientUniform3f, r, g, b);
+					GlStateStatistics.issueUniform();
 				}
 			}
 		}
@@ -918,6 +985,7 @@ public class FixedFunctionPipeline {
 						stateNormalY = y;
 						stateNormalZ = z;
 						_wglUniform3f(stateNormalUniform3f, x, y, z);
+						GlStateStatistics.issueUniform();
 					}
 				}
 			}
@@ -938,6 +1006,7 @@ public class FixedFunctionPipeline {
 					stateFogStart = fogStart;
 					stateFogEnd = fogEnd;
 					_wglUniform4f(stateFogParamUniform4f, fogEXP ? 1.0f : 0.0f, fogDensity, fogStart, fogEnd);
+					GlStateStatistics.issueUniform();
 				}
 				float r = GlStateManager.stateFogColorR;
 				float g = GlStateManager.stateFogColorG;
@@ -950,6 +1019,7 @@ public class FixedFunctionPipeline {
 					stateFogColorB = b;
 					stateFogColorA = a;
 					_wglUniform4f(stateFogColorUniform4f, r, g, b, a);
+					GlStateStatistics.issueUniform();
 				}
 			}
 		}
@@ -964,6 +1034,7 @@ public class FixedFunctionPipeline {
 					stateAnisotropicFixW = w;
 					stateAnisotropicFixH = h;
 					_wglUniform2f(stateAnisotropicFix2f, w, h);
+					GlStateStatistics.issueUniform();
 				}
 			}
 		}
@@ -985,6 +1056,7 @@ public class FixedFunctionPipeline {
 					_wglUniform4i(stateTexGenPlaneUniform4i, planeS == GL_EYE_PLANE ? 1 : 0,
 							planeT == GL_EYE_PLANE ? 1 : 0, planeR == GL_EYE_PLANE ? 1 : 0,
 							planeQ == GL_EYE_PLANE ? 1 : 0);
+					GlStateStatistics.issueUniform();
 				}
 				Vector4f vecS = GlStateManager.TexGen.S.vector;
 				if (stateTexGenSVector.x != vecS.x || stateTexGenSVector.y != vecS.y ||
@@ -994,6 +1066,7 @@ public class FixedFunctionPipeline {
 					stateTexGenSVector.z = vecS.z;
 					stateTexGenSVector.w = vecS.w;
 					_wglUniform4f(stateTexGenSVectorUniform4f, vecS.x, vecS.y, vecS.z, vecS.w);
+					GlStateStatistics.issueUniform();
 				}
 				Vector4f vecT = GlStateManager.TexGen.T.vector;
 				if (stateTexGenTVector.x != vecT.x || stateTexGenTVector.y != vecT.y ||
@@ -1003,6 +1076,7 @@ public class FixedFunctionPipeline {
 					stateTexGenTVector.z = vecT.z;
 					stateTexGenTVector.w = vecT.w;
 					_wglUniform4f(stateTexGenTVectorUniform4f, vecT.x, vecT.y, vecT.z, vecT.w);
+					GlStateStatistics.issueUniform();
 				}
 				Vector4f vecR = GlStateManager.TexGen.R.vector;
 				if (stateTexGenRVector.x != vecR.x || stateTexGenRVector.y != vecR.y ||
@@ -1012,6 +1086,7 @@ public class FixedFunctionPipeline {
 					stateTexGenRVector.z = vecR.z;
 					stateTexGenRVector.w = vecR.w;
 					_wglUniform4f(stateTexGenRVectorUniform4f, vecR.x, vecR.y, vecR.z, vecR.w);
+					GlStateStatistics.issueUniform();
 				}
 				Vector4f vecQ = GlStateManager.TexGen.Q.vector;
 				if (stateTexGenQVector.x != vecQ.x || stateTexGenQVector.y != vecQ.y ||
@@ -1021,6 +1096,7 @@ public class FixedFunctionPipeline {
 					stateTexGenQVector.z = vecQ.z;
 					stateTexGenQVector.w = vecQ.w;
 					_wglUniform4f(stateTexGenQVectorUniform4f, vecQ.x, vecQ.y, vecQ.z, vecQ.w);
+					GlStateStatistics.issueUniform();
 				}
 			}
 		}
@@ -1036,6 +1112,7 @@ public class FixedFunctionPipeline {
 				if(stateShaderBlendSrcColorR != r || stateShaderBlendSrcColorG != g ||
 						stateShaderBlendSrcColorB != b || stateShaderBlendSrcColorA != a) {
 					_wglUniform4f(stateShaderBlendSrcColorUniform4f, r, g, b, a);
+					GlStateStatistics.issueUniform();
 					stateShaderBlendSrcColorR = r;
 					stateShaderBlendSrcColorG = g;
 					stateShaderBlendSrcColorB = b;
@@ -1048,6 +1125,7 @@ public class FixedFunctionPipeline {
 				if(stateShaderBlendAddColorR != r || stateShaderBlendAddColorG != g ||
 						stateShaderBlendAddColorB != b || stateShaderBlendAddColorA != a) {
 					_wglUniform4f(stateShaderBlendAddColorUniform4f, r, g, b, a);
+					GlStateStatistics.issueUniform();
 					stateShaderBlendAddColorR = r;
 					stateShaderBlendAddColorG = g;
 					stateShaderBlendAddColorB = b;
@@ -1063,15 +1141,10 @@ public class FixedFunctionPipeline {
 		return this;
 	}
 
-	static void optimize() {
-		for(int i = 0, l = pipelineListTracker.size(); i < l; ++i) {
-			pipelineListTracker.get(i).streamBuffer.optimize();
-		}
-	}
-
 	public static void flushCache() {
 		shaderSourceCacheVSH = null;
 		shaderSourceCacheFSH = null;
+		FixedFunctionUniformBlock.destroy();
 		FixedFunctionPipeline pp;
 		for(int i = 0; i < pipelineStateCache.length; ++i) {
 			pp = pipelineStateCache[i];
@@ -1095,7 +1168,6 @@ public class FixedFunctionPipeline {
 				pipelineExtStateCache[i] = null;
 			}
 		}
-		pipelineListTracker.clear();
 	}
 	
 	public void destroy() {
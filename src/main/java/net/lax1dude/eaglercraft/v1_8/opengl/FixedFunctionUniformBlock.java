@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.lax1dude.eaglercraft.v1_8.opengl;
+
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+import net.lax1dude.eaglercraft.v1_8.internal.IBufferGL;
+import net.lax1dude.eaglercraft.v1_8.internal.buffer.ByteBuffer;
+import net.lax1dude.eaglercraft.v1_8.vector.Matrix4f;
+
+import static net.lax1dude.eaglercraft.v1_8.opengl.RealOpenGLEnums.*;
+import static net.lax1dude.eaglercraft.v1_8.internal.PlatformOpenGL.*;
+
+/**
+ * std140 uniform block shared by every core FixedFunctionPipeline variant
+ * on OpenGL ES 3.0, holds the matrices and color that change on almost
+ * every draw. The block is written once per state change into the next
+ * slot of a ring buffer and bound with bindUniformBufferRange, switching
+ * between shader variants does not upload anything.
+ *
+ * layout(std140) uniform u_fixedFunctionState {
+ *     mat4 u_modelviewMat4f;       // 0
+ *     mat4 u_projectionMat4f;      // 64
+ *     mat4 u_modelviewProjMat4f;   // 128
+ *     mat4 u_textureMat4f01;       // 192
+ *     mat4 u_textureMat4f02;       // 256
+ *     vec4 u_color4f;              // 320
+ * };
+ */
+class FixedFunctionUniformBlock {
+
+	static final String BLOCK_NAME = "u_fixedFunctionState";
+	static final String MACRO_UNIFORM_BLOCK = "COMPILE_STATE_UNIFORM_BLOCK";
+
+	/**
+	 * 0 and 1 are used by the deferred pipeline
+	 */
+	static final int BLOCK_BINDING = 2;
+
+	static final int BLOCK_SIZE = 336;
+	static final int RING_SIZE = 0x10000;
+
+	private static final int GL_UNIFORM_BUFFER = 0x8A11;
+
+	private static IBufferGL ringBuffer = null;
+	private static ByteBuffer copyBuffer = null;
+	private static int slotStride = 0;
+	private static int nextSlot = 0;
+	private static int currentSlot = -1;
+
+	private static int modelSerial = -1;
+	private static int projectionSerial = -1;
+	private static int textureSerial01 = -1;
+	private static int textureSerial02 = -1;
+	private static int colorSerial = -1;
+
+	private static final Matrix4f tmpModelProjection = new Matrix4f();
+
+	static boolean isSupported() {
+		return EaglercraftGPU.checkOpenGLESVersion() >= 300 && EaglercraftGPU.getUniformBufferOffsetAlignment() > 0;
+	}
+
+	private static void init() {
+		int align = EaglercraftGPU.getUniformBufferOffsetAlignment();
+		slotStride = ((BLOCK_SIZE + align - 1) / align) * align;
+		ringBuffer = _wglGenBuffers();
+		copyBuffer = EagRuntime.allocateByteBuffer(BLOCK_SIZE);
+		EaglercraftGPU.bindGLUniformBuffer(ringBuffer);
+		_wglBufferData(GL_UNIFORM_BUFFER, RING_SIZE, GL_DYNAMIC_DRAW);
+		nextSlot = 0;
+		currentSlot = -1;
+	}
+
+	/**
+	 * Writes the block again if anything in GlStateManager changed since
+	 * the last call and binds the current slot
+	 */
+	static void update() {
+		if(ringBuffer == null) {
+			init();
+		}
+		boolean dirty = currentSlot == -1;
+		int ptr = GlStateManager.modelMatrixStackPointer;
+		int serial = GlStateManager.modelMatrixStackAccessSerial[ptr];
+		boolean modelDirty = modelSerial != serial;
+		if(modelDirty) {
+			modelSerial = serial;
+		}
+		int ptr2 = GlStateManager.projectionMatrixStackPointer;
+		serial = GlStateManager.projectionMatrixStackAccessSerial[ptr2];
+		boolean projectionDirty = projectionSerial != serial;
+		if(projectionDirty) {
+			projectionSerial = serial;
+		}
+		int ptr3 = GlStateManager.textureMatrixStackPointer[0];
+		serial = GlStateManager.textureMatrixStackAccessSerial[0][ptr3];
+		boolean texture01Dirty = textureSerial01 != serial;
+		if(texture01Dirty) {
+			textureSerial01 = serial;
+		}
+		int ptr4 = GlStateManager.textureMatrixStackPointer[1];
+		serial = GlStateManager.textureMatrixStackAccessSerial[1][ptr4];
+		boolean texture02Dirty = textureSerial02 != serial;
+		if(texture02Dirty) {
+			textureSerial02 = serial;
+		}
+		serial = GlStateManager.stateColorSerial;
+		boolean colorDirty = colorSerial != serial;
+		if(colorDirty) {
+			colorSerial = serial;
+		}
+		if(dirty || modelDirty || projectionDirty || texture01Dirty || texture02Dirty || colorDirty) {
+			Matrix4f model = GlStateManager.modelMatrixStack[ptr];
+			Matrix4f projection = GlStateManager.projectionMatrixStack[ptr2];
+			copyBuffer.clear();
+			model.store(copyBuffer);
+			projection.store(copyBuffer);
+			Matrix4f.mul(projection, model, tmpModelProjection);
+			tmpModelProjection.store(copyBuffer);
+			GlStateManager.textureMatrixStack[0][ptr3].store(copyBuffer);
+			GlStateManager.textureMatrixStack[1][ptr4].store(copyBuffer);
+			copyBuffer.putFloat(GlStateManager.stateColorR);
+			copyBuffer.putFloat(GlStateManager.stateColorG);
+			copyBuffer.putFloat(GlStateManager.stateColorB);
+			copyBuffer.putFloat(GlStateManager.stateColorA);
+			copyBuffer.flip();
+			if(nextSlot + slotStride > RING_SIZE) {
+				// orphan the old storage instead of waiting on draws still reading it
+				EaglercraftGPU.bindGLUniformBuffer(ringBuffer);
+				_wglBufferData(GL_UNIFORM_BUFFER, RING_SIZE, GL_DYNAMIC_DRAW);
+				nextSlot = 0;
+			}
+			currentSlot = nextSlot;
+			nextSlot += slotStride;
+			EaglercraftGPU.bindGLUniformBuffer(ringBuffer);
+			_wglBufferSubData(GL_UNIFORM_BUFFER, currentSlot, copyBuffer);
+			GlStateStatistics.issueUniform();
+		}else {
+			GlStateStatistics.skipUniform();
+		}
+		EaglercraftGPU.bindUniformBufferRange(BLOCK_BINDING, ringBuffer, currentSlot, BLOCK_SIZE);
+	}
+
+	static void destroy() {
+		if(ringBuffer != null) {
+			_wglDeleteBuffers(ringBuffer);
+			ringBuffer = null;
+		}
+		if(copyBuffer != null) {
+			EagRuntime.freeByteBuffer(copyBuffer);
+			copyBuffer = null;
+		}
+		currentSlot = -1;
+		modelSerial = -1;
+		projectionSerial = -1;
+		textureSerial01 = -1;
+		textureSerial02 = -1;
+		colorSerial = -1;
+	}
+
+}
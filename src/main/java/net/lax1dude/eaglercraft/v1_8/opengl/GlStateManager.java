@@ -311,6 +311,9 @@ public class GlStateManager {
 		if(stateDepthTest) {
 			_wglDisable(GL_DEPTH_TEST);
 			stateDepthTest = false;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -318,6 +321,9 @@ public class GlStateManager {
 		if(!stateDepthTest) {
 			_wglEnable(GL_DEPTH_TEST);
 			stateDepthTest = true;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -367,6 +373,9 @@ public class GlStateManager {
 		if(rev != stateDepthFunc) {
 			_wglDepthFunc(rev);
 			stateDepthFunc = rev;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -374,6 +383,9 @@ public class GlStateManager {
 		if(flagIn != stateDepthMask) {
 			_wglDepthMask(flagIn);
 			stateDepthMask = flagIn;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -381,6 +393,9 @@ public class GlStateManager {
 		if(stateBlend) {
 			if(stateGlobalBlend) _wglDisable(GL_BLEND);
 			stateBlend = false;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -388,6 +403,9 @@ public class GlStateManager {
 		if(!stateBlend) {
 			if(stateGlobalBlend) _wglEnable(GL_BLEND);
 			stateBlend = true;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -416,6 +434,9 @@ public class GlStateManager {
 			_wglBlendFunc(srcFactor, dstFactor);
 			stateBlendSRC = srcBits;
 			stateBlendDST = dstBits;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -430,6 +451,9 @@ public class GlStateManager {
 			_wglBlendFuncSeparate(srcFactor, dstFactor, srcFactorAlpha, dstFactorAlpha);
 			stateBlendSRC = srcBits;
 			stateBlendDST = dstBits;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -472,6 +496,9 @@ public class GlStateManager {
 			blendConstantG = g;
 			blendConstantB = b;
 			blendConstantA = a;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -507,6 +534,9 @@ public class GlStateManager {
 		if(!stateCull) {
 			_wglEnable(GL_CULL_FACE);
 			stateCull = true;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -514,6 +544,9 @@ public class GlStateManager {
 		if(stateCull) {
 			_wglDisable(GL_CULL_FACE);
 			stateCull = false;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -521,6 +554,9 @@ public class GlStateManager {
 		if(stateCullFace != mode) {
 			_wglCullFace(mode);
 			stateCullFace = mode;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -528,6 +564,9 @@ public class GlStateManager {
 		if(!statePolygonOffset) {
 			_wglEnable(GL_POLYGON_OFFSET_FILL);
 			statePolygonOffset = true;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -535,6 +574,9 @@ public class GlStateManager {
 		if(statePolygonOffset) {
 			_wglDisable(GL_POLYGON_OFFSET_FILL);
 			statePolygonOffset = false;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -543,6 +585,9 @@ public class GlStateManager {
 			_wglPolygonOffset(-factor, units);
 			statePolygonOffsetFactor = factor;
 			statePolygonOffsetUnits = units;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -586,6 +631,9 @@ public class GlStateManager {
 		if(textureIdx != activeTexture) {
 			_wglActiveTexture(texture);
 			activeTexture = textureIdx;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 
@@ -651,6 +699,9 @@ public class GlStateManager {
 		if(texture != boundTexture[activeTexture]) {
 			_wglBindTexture(GL_TEXTURE_2D, EaglercraftGPU.mapTexturesGL.get(texture));
 			boundTexture[activeTexture] = texture;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 
@@ -658,6 +709,9 @@ public class GlStateManager {
 		if(texture != boundTexture[activeTexture]) {
 			_wglBindTexture(GL_TEXTURE_3D, EaglercraftGPU.mapTexturesGL.get(texture));
 			boundTexture[activeTexture] = texture;
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 
@@ -672,6 +726,9 @@ public class GlStateManager {
 			if(unitBase != activeTexture) {
 				_wglActiveTexture(GL_TEXTURE0 + activeTexture);
 			}
+			GlStateStatistics.issueBind();
+		}else {
+			GlStateStatistics.skipBind();
 		}
 	}
 
@@ -694,6 +751,9 @@ public class GlStateManager {
 			viewportY = y;
 			viewportW = w;
 			viewportH = h;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -702,6 +762,9 @@ public class GlStateManager {
 		if(bits != colorMaskBits) {
 			_wglColorMask(red, green, blue, alpha);
 			colorMaskBits = bits;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -710,6 +773,9 @@ public class GlStateManager {
 		if(depth != clearDepth) {
 			_wglClearDepth(depth);
 			clearDepth = depth;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -720,6 +786,9 @@ public class GlStateManager {
 			clearColorG = green;
 			clearColorB = blue;
 			clearColorA = alpha;
+			GlStateStatistics.issueState();
+		}else {
+			GlStateStatistics.skipState();
 		}
 	}
 
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.lax1dude.eaglercraft.v1_8.opengl;
+
+/**
+ * Counts the state changes GlStateManager and EaglercraftGPU forward to
+ * WebGL versus the ones filtered out by the shadow state, reset every frame
+ */
+public class GlStateStatistics {
+
+	public static final int CATEGORY_STATE = 0;
+	public static final int CATEGORY_BIND = 1;
+	public static final int CATEGORY_UNIFORM = 2;
+
+	static final int[] issued = new int[3];
+	static final int[] skipped = new int[3];
+
+	private static final int[] issuedLast = new int[3];
+	private static final int[] skippedLast = new int[3];
+
+	static void issueState() {
+		++issued[CATEGORY_STATE];
+	}
+
+	static void skipState() {
+		++skipped[CATEGORY_STATE];
+	}
+
+	static void issueBind() {
+		++issued[CATEGORY_BIND];
+	}
+
+	static void skipBind() {
+		++skipped[CATEGORY_BIND];
+	}
+
+	static void issueUniform() {
+		++issued[CATEGORY_UNIFORM];
+	}
+
+	static void skipUniform() {
+		++skipped[CATEGORY_UNIFORM];
+	}
+
+	/**
+	 * Call once per frame after the buffers are swapped
+	 */
+	public static void endFrame() {
+		for(int i = 0; i < 3; ++i) {
+			issuedLast[i] = issued[i];
+			skippedLast[i] = skipped[i];
+			issued[i] = 0;
+			skipped[i] = 0;
+		}
+	}
+
+	public static int getIssuedLastFrame(int category) {
+		return issuedLast[category];
+	}
+
+	public static int getSkippedLastFrame(int category) {
+		return skippedLast[category];
+	}
+
+	public static int getIssuedLastFrame() {
+		return issuedLast[0] + issuedLast[1] + issuedLast[2];
+	}
+
+	public static int getSkippedLastFrame() {
+		return skippedLast[0] + skippedLast[1] + skippedLast[2];
+	}
+
+	public static String getDebugInfo() {
+		return "GL: " + getIssuedLastFrame() + " calls, " + getSkippedLastFrame() + " skipped (S: " + issuedLast[0]
+				+ "/" + skippedLast[0] + ", B: " + issuedLast[1] + "/" + skippedLast[1] + ", U: " + issuedLast[2]
+				+ "/" + skippedLast[2] + ")";
+	}
+
+}
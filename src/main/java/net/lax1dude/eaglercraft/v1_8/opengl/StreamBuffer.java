@@ -22,61 +22,44 @@ import net.lax1dude.eaglercraft.v1_8.internal.IBufferGL;
 import static net.lax1dude.eaglercraft.v1_8.opengl.RealOpenGLEnums.*;
 import static net.lax1dude.eaglercraft.v1_8.internal.PlatformOpenGL.*;
 
+/**
+ * Streams immediate mode geometry into one large ring buffer shared by
+ * every pipeline. Each upload is written with bufferSubData at the next
+ * free offset, when the ring is full its storage is orphaned and writing
+ * starts over at 0. If the ring wraps more than once in the same frame it
+ * is grown at the next frame boundary.
+ */
 public class StreamBuffer {
 
-	public static final int poolSize = 16;
-
-	public final int initialSize;
-	public final int initialCount;
-	public final int maxCount;
+	public static final int ringInitialSize = 0x400000;
+	public static final int ringMaxSize = 0x4000000;
 
-	protected static final PoolInstance[] pool = new PoolInstance[poolSize];
-	protected static int poolBufferID = 0;
+	protected static IBufferGL ringBuffer = null;
+	protected static int ringSize = 0;
+	protected static int ringTargetSize = ringInitialSize;
+	protected static int ringOffset = 0;
+	protected static boolean ringWrappedThisFrame = false;
 
-	static {
-		for(int i = 0; i < poolSize; ++i) {
-			pool[i] = new PoolInstance();
-		}
-	}
+	private static long bytesStreamed = 0l;
+	private static long bytesStreamedLast = 0l;
+	private static int uploads = 0;
+	private static int uploadsLast = 0;
+	private static int orphans = 0;
+	private static int orphansLast = 0;
+	private static int stalls = 0;
+	private static int stallsLast = 0;
+	private static int reallocations = 0;
 
-	protected static class PoolInstance {
-		
-		protected IBufferGL vertexBuffer = null;
-		protected int vertexBufferSize = 0;
-		
-	}
-
-	private static PoolInstance fillPoolInstance() {
-		PoolInstance ret = pool[poolBufferID++];
-		if(poolBufferID > poolSize - 1) {
-			poolBufferID = 0;
-		}
-		return ret;
-	}
-
-	private static void resizeInstance(PoolInstance instance, int requiredMemory) {
-		if(instance.vertexBuffer == null) {
-			instance.vertexBuffer = _wglGenBuffers();
-		}
-		if(instance.vertexBufferSize < requiredMemory) {
-			int newSize = (requiredMemory & 0xFFFFF000) + 0x2000;
-			EaglercraftGPU.bindGLArrayBuffer(instance.vertexBuffer);
-			_wglBufferData(GL_ARRAY_BUFFER, newSize, GL_STREAM_DRAW);
-			instance.vertexBufferSize = newSize;
-		}
-	}
-
-	protected StreamBufferInstance[] buffers;
-
-	protected int currentBufferId = 0;
-	protected int overflowCounter = 0;
+	protected final StreamBufferInstance instance = new StreamBufferInstance();
 
 	protected final IStreamBufferInitializer initializer;
 
 	public static class StreamBufferInstance {
 
-		protected PoolInstance poolInstance = null;
 		protected IVertexArrayGL vertexArray = null;
+		protected int vertexOffset = 0;
+		protected int vertexBase = 0;
+		protected int vertexFirst = 0;
 
 		public boolean bindQuad16 = false;
 		public boolean bindQuad32 = false;
@@ -86,124 +69,158 @@ public class StreamBuffer {
 		}
 
 		public IBufferGL getVertexBuffer() {
-			return poolInstance.vertexBuffer;
+			return ringBuffer;
+		}
+
+		/**
+		 * Byte offset of the last upload in the vertex buffer
+		 */
+		public int getVertexOffset() {
+			return vertexOffset;
+		}
+
+		/**
+		 * Index of the first vertex of the last upload, counted from where
+		 * the vertex array's attribute pointers start
+		 */
+		public int getVertexFirst() {
+			return vertexFirst;
 		}
 
 	}
 
 	public static interface IStreamBufferInitializer {
-		void initialize(IVertexArrayGL vertexArray, IBufferGL vertexBuffer);
+		void initialize(IVertexArrayGL vertexArray, IBufferGL vertexBuffer, int byteOffset);
 	}
 
-	public StreamBuffer(int initialSize, int initialCount, int maxCount, IStreamBufferInitializer initializer) {
-		if(maxCount > poolSize) {
-			maxCount = poolSize;
-		}
-		this.buffers = new StreamBufferInstance[initialCount];
-		for(int i = 0; i < this.buffers.length; ++i) {
-			StreamBufferInstance j = new StreamBufferInstance();
-			j.poolInstance = fillPoolInstance();
-			this.buffers[i] = j;
-		}
-		this.initialSize = initialSize;
-		this.initialCount = initialCount;
-		this.maxCount = maxCount;
+	public StreamBuffer(IStreamBufferInitializer initializer) {
 		this.initializer = initializer;
 	}
 
-	public StreamBufferInstance getBuffer(int requiredMemory) {
-		StreamBufferInstance next = buffers[(currentBufferId++) % buffers.length];
-		resizeInstance(next.poolInstance, requiredMemory);
-		if(next.vertexArray == null) {
-			next.vertexArray = EaglercraftGPU.createGLVertexArray();
-			initializer.initialize(next.vertexArray, next.poolInstance.vertexBuffer);
+	/**
+	 * Reserves requiredMemory bytes in the ring, the returned offset is a
+	 * multiple of alignment
+	 */
+	private static int allocate(int requiredMemory, int alignment) {
+		if(ringBuffer == null) {
+			ringBuffer = _wglGenBuffers();
+			ringSize = 0;
 		}
-		return next;
-	}
-
-	public void optimize() {
-		overflowCounter += currentBufferId - buffers.length;
-		if(overflowCounter < -25) {
-			int newCount = buffers.length - 1 + ((overflowCounter + 25) / 5);
-			if(newCount < initialCount) {
-				newCount = initialCount;
+		if(ringSize < ringTargetSize || ringSize < requiredMemory) {
+			int newSize = ringTargetSize;
+			while(newSize < requiredMemory) {
+				newSize <<= 1;
 			}
-			if(newCount < buffers.length) {
-				StreamBufferInstance[] newArray = new StreamBufferInstance[newCount];
-				for(int i = 0; i < buffers.length; ++i) {
-					if(i < newArray.length) {
-						newArray[i] = buffers[i];
-					}else {
-						if(buffers[i].vertexArray != null) {
-							EaglercraftGPU.destroyGLVertexArray(buffers[i].vertexArray);
-						}
-					}
-				}
-				buffers = newArray;
-				refill();
-			}
-			overflowCounter = 0;
-		}else if(overflowCounter > 15) {
-			int newCount = buffers.length + 1 + ((overflowCounter - 15) / 5);
-			if(newCount > maxCount) {
-				newCount = maxCount;
+			ringTargetSize = newSize;
+			EaglercraftGPU.bindGLArrayBuffer(ringBuffer);
+			_wglBufferData(GL_ARRAY_BUFFER, newSize, GL_STREAM_DRAW);
+			if(ringSize != 0) {
+				++reallocations;
 			}
-			if(newCount > buffers.length) {
-				StreamBufferInstance[] newArray = new StreamBufferInstance[newCount];
-				for(int i = 0; i < newArray.length; ++i) {
-					if(i < buffers.length) {
-						newArray[i] = buffers[i];
-					}else {
-						newArray[i] = new StreamBufferInstance();
-					}
-				}
-				buffers = newArray;
-				refill();
+			ringSize = newSize;
+			ringOffset = 0;
+		}
+		int offset = (ringOffset + alignment - 1) / alignment * alignment;
+		if(offset + requiredMemory > ringSize) {
+			// orphan the storage instead of overwriting vertices the GPU may still be reading
+			EaglercraftGPU.bindGLArrayBuffer(ringBuffer);
+			_wglBufferData(GL_ARRAY_BUFFER, ringSize, GL_STREAM_DRAW);
+			++orphans;
+			if(ringWrappedThisFrame) {
+				++stalls;
 			}
-			overflowCounter = 0;
+			ringWrappedThisFrame = true;
+			offset = 0;
 		}
-		currentBufferId = 0;
+		ringOffset = offset + requiredMemory;
+		bytesStreamed += requiredMemory;
+		++uploads;
+		return offset;
 	}
 
-	private void refill() {
-		for(int i = 0; i < buffers.length; ++i) {
-			PoolInstance j = fillPoolInstance();
-			StreamBufferInstance k = buffers[i];
-			if(j != k.poolInstance) {
-				PoolInstance l = k.poolInstance;
-				k.poolInstance = j;
-				if(k.vertexArray != null) {
-					if(j.vertexBuffer == null) {
-						resizeInstance(j, l.vertexBufferSize);
-					}
-					initializer.initialize(k.vertexArray, j.vertexBuffer);
-				}
+	/**
+	 * The returned offset is aligned to 4 vertices so quads can be drawn
+	 * from the shared quad emulation buffers. The attribute pointers are
+	 * moved up to the upload whenever its vertices would fall outside the
+	 * range a 16 bit index can reach from where they currently start
+	 */
+	public StreamBufferInstance getBuffer(int requiredMemory, int vertexStride) {
+		StreamBufferInstance next = instance;
+		int offset = allocate(requiredMemory, vertexStride << 2);
+		int vertexCount = (requiredMemory + vertexStride - 1) / vertexStride;
+		int rel = offset - next.vertexBase;
+		if(next.vertexArray == null || rel < 0 || rel / vertexStride + vertexCount > 0xFFFF) {
+			if(next.vertexArray == null) {
+				next.vertexArray = EaglercraftGPU.createGLVertexArray();
 			}
+			initializer.initialize(next.vertexArray, ringBuffer, offset);
+			next.vertexBase = offset;
+			rel = 0;
 		}
+		next.vertexOffset = offset;
+		next.vertexFirst = rel / vertexStride;
+		return next;
 	}
 
 	public void destroy() {
-		for(int i = 0; i < buffers.length; ++i) {
-			StreamBufferInstance next = buffers[i];
-			if(next.vertexArray != null) {
-				EaglercraftGPU.destroyGLVertexArray(next.vertexArray);
-			}
+		if(instance.vertexArray != null) {
+			EaglercraftGPU.destroyGLVertexArray(instance.vertexArray);
+			instance.vertexArray = null;
 		}
-		buffers = new StreamBufferInstance[initialCount];
-		for(int i = 0; i < initialCount; ++i) {
-			StreamBufferInstance j = new StreamBufferInstance();
-			j.poolInstance = fillPoolInstance();
-			buffers[i] = j;
+		instance.vertexBase = 0;
+		instance.bindQuad16 = false;
+		instance.bindQuad32 = false;
+	}
+
+	/**
+	 * Grows the ring for the next frame if this frame wrapped it more than
+	 * once, called once per frame
+	 */
+	public static void endFrame() {
+		if(stalls > 0 && ringTargetSize < ringMaxSize) {
+			ringTargetSize <<= 1;
 		}
+		bytesStreamedLast = bytesStreamed;
+		uploadsLast = uploads;
+		orphansLast = orphans;
+		stallsLast = stalls;
+		bytesStreamed = 0l;
+		uploads = 0;
+		orphans = 0;
+		stalls = 0;
+		ringWrappedThisFrame = false;
+	}
+
+	public static long getBytesStreamed() {
+		return bytesStreamedLast;
+	}
+
+	public static int getOrphans() {
+		return orphansLast;
+	}
+
+	public static int getStalls() {
+		return stallsLast;
+	}
+
+	public static int getReallocations() {
+		return reallocations;
+	}
+
+	public static String getDebugInfo() {
+		return "Stream: " + (bytesStreamedLast >> 10) + " KiB, " + uploadsLast + " uploads, " + orphansLast
+				+ " wraps, " + stallsLast + " stalls, " + reallocations + " reallocs, ring " + (ringSize >> 10) + " KiB";
 	}
 
 	public static void destroyPool() {
-		for(int i = 0; i < pool.length; ++i) {
-			if(pool[i].vertexBuffer != null) {
-				_wglDeleteBuffers(pool[i].vertexBuffer);
-				pool[i].vertexBuffer = null;
-			}
+		if(ringBuffer != null) {
+			_wglDeleteBuffers(ringBuffer);
+			ringBuffer = null;
 		}
+		ringSize = 0;
+		ringTargetSize = ringInitialSize;
+		ringOffset = 0;
+		ringWrappedThisFrame = false;
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.opengl.ext.deferred;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+import net.lax1dude.eaglercraft.v1_8.internal.IQueryGL;
+import net.lax1dude.eaglercraft.v1_8.opengl.GlStateManager;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.Gui;
+
+import static net.lax1dude.eaglercraft.v1_8.internal.PlatformOpenGL.*;
+import static net.lax1dude.eaglercraft.v1_8.opengl.RealOpenGLEnums.*;
+
+/**
+ * Times the passes of EaglerDeferredPipeline. The CPU column is the time
+ * spent submitting each pass, the GPU column comes from EXT_disjoint_timer_query
+ * when the context has it. Passes are timed back to back, begin() closes
+ * whatever pass was open before it, and a pass can be entered more than
+ * once per frame. GPU results are read back a few frames late.
+ */
+public class DeferredPassProfiler {
+
+	public static final int PASS_SHADOW_MAP = 0;
+	public static final int PASS_COLORED_SHADOWS = 1;
+	public static final int PASS_GBUFFER = 2;
+	public static final int PASS_CLOUDS = 3;
+	public static final int PASS_ATMOSPHERE = 4;
+	public static final int PASS_SSAO = 5;
+	public static final int PASS_REPROJECTION = 6;
+	public static final int PASS_SSR = 7;
+	public static final int PASS_SUN_SHADOWS = 8;
+	public static final int PASS_LIGHTING = 9;
+	public static final int PASS_ENV_MAP = 10;
+	public static final int PASS_WATER = 11;
+	public static final int PASS_FOG = 12;
+	public static final int PASS_TRANSLUCENT = 13;
+	public static final int PASS_LENS_FLARES = 14;
+	public static final int PASS_BLOOM = 15;
+	public static final int PASS_TONEMAP = 16;
+	public static final int PASS_FXAA = 17;
+
+	private static final String[] passNames = new String[] {
+			"Sun Shadow Map",
+			"Colored Shadows",
+			"GBuffer",
+			"Clouds",
+			"Atmosphere / Sky Maps",
+			"SSAO",
+			"Reprojection",
+			"Screenspace Reflections",
+			"Sunlight Shadows",
+			"Lighting",
+			"Environment Map",
+			"Realistic Water",
+			"Fog",
+			"Translucent",
+			"Lens Flares",
+			"Exposure / Bloom",
+			"Tonemapping",
+			"FXAA / Lens Distortion"
+	};
+
+	public static final int PASS_COUNT = 18;
+
+	public static final int HISTORY_SIZE = 120;
+	private static final int MAX_PENDING_FRAMES = 6;
+
+	private static final int GL_TIME_ELAPSED_EXT = 0x88BF;
+	private static final int GL_QUERY_RESULT = 0x8866;
+	private static final int GL_QUERY_RESULT_AVAILABLE = 0x8867;
+	private static final int GL_GPU_DISJOINT_EXT = 0x8FBB;
+
+	public static boolean profilerShown = false;
+
+	private static boolean recording = false;
+	private static boolean gpuTiming = false;
+	private static int currentPass = -1;
+	private static long currentPassStart = 0l;
+	private static boolean queryActive = false;
+
+	private static final long[] cpuNanos = new long[PASS_COUNT];
+	private static final long[] gpuNanos = new long[PASS_COUNT];
+	private static final float[] cpuMillisAvg = new float[PASS_COUNT];
+	private static final float[] gpuMillisAvg = new float[PASS_COUNT];
+
+	private static final float[] historyCPU = new float[HISTORY_SIZE];
+	private static final float[] historyGPU = new float[HISTORY_SIZE];
+	private static int historyPointer = 0;
+
+	private static final List<IQueryGL> queryPool = new ArrayList<>();
+	private static final List<PendingFrame> pendingFrames = new ArrayList<>();
+	private static final List<PendingFrame> framePool = new ArrayList<>();
+	private static PendingFrame recordingFrame = null;
+
+	private static class PendingFrame {
+
+		private IQueryGL[] queries = new IQueryGL[32];
+		private int[] passes = new int[32];
+		private int count = 0;
+		private int historyIndex = 0;
+
+		private void add(IQueryGL query, int pass) {
+			if(count == queries.length) {
+				queries = Arrays.copyOf(queries, count << 1);
+				passes = Arrays.copyOf(passes, count << 1);
+			}
+			queries[count] = query;
+			passes[count] = pass;
+			++count;
+		}
+
+		private void release() {
+			for(int i = 0; i < count; ++i) {
+				queryPool.add(queries[i]);
+				queries[i] = null;
+			}
+			count = 0;
+			framePool.add(this);
+		}
+
+	}
+
+	public static void beginFrame() {
+		if(!profilerShown) {
+			return;
+		}
+		gpuTiming = checkTimerQueryCapable();
+		if(gpuTiming) {
+			pollQueries();
+			if(pendingFrames.size() < MAX_PENDING_FRAMES) {
+				recordingFrame = framePool.isEmpty() ? new PendingFrame() : framePool.remove(framePool.size() - 1);
+				recordingFrame.historyIndex = historyPointer;
+			}
+		}
+		Arrays.fill(cpuNanos, 0l);
+		recording = true;
+	}
+
+	/**
+	 * Closes the current pass and starts timing the next one
+	 */
+	public static void begin(int pass) {
+		if(!recording) {
+			return;
+		}
+		end();
+		currentPass = pass;
+		if(recordingFrame != null) {
+			IQueryGL query = queryPool.isEmpty() ? _wglGenQueries() : queryPool.remove(queryPool.size() - 1);
+			_wglBeginQuery(GL_TIME_ELAPSED_EXT, query);
+			recordingFrame.add(query, pass);
+			queryActive = true;
+		}
+		currentPassStart = EagRuntime.nanoTime();
+	}
+
+	public static void end() {
+		if(currentPass == -1) {
+			return;
+		}
+		cpuNanos[currentPass] += EagRuntime.nanoTime() - currentPassStart;
+		if(queryActive) {
+			_wglEndQuery(GL_TIME_ELAPSED_EXT);
+			queryActive = false;
+		}
+		currentPass = -1;
+	}
+
+	public static void endFrame() {
+		if(!recording) {
+			return;
+		}
+		end();
+		recording = false;
+		float total = 0.0f;
+		for(int i = 0; i < PASS_COUNT; ++i) {
+			float ms = cpuNanos[i] * 0.000001f;
+			cpuMillisAvg[i] = cpuMillisAvg[i] * 0.95f + ms * 0.05f;
+			total += ms;
+		}
+		historyCPU[historyPointer] = total;
+		historyGPU[historyPointer] = -1.0f;
+		if(recordingFrame != null) {
+			if(recordingFrame.count > 0) {
+				pendingFrames.add(recordingFrame);
+			}else {
+				recordingFrame.release();
+			}
+			recordingFrame = null;
+		}
+		historyPointer = (historyPointer + 1) % HISTORY_SIZE;
+	}
+
+	private static void pollQueries() {
+		// reading the flag also clears it
+		boolean disjoint = _wglGetBoolean(GL_GPU_DISJOINT_EXT);
+		while(!pendingFrames.isEmpty()) {
+			PendingFrame frame = pendingFrames.get(0);
+			// queries finish in order, if the last one is done the whole frame is
+			if(_wglGetQueryObjecti(frame.queries[frame.count - 1], GL_QUERY_RESULT_AVAILABLE) == 0) {
+				break;
+			}
+			pendingFrames.remove(0);
+			if(!disjoint) {
+				Arrays.fill(gpuNanos, 0l);
+				for(int i = 0; i < frame.count; ++i) {
+					gpuNanos[frame.passes[i]] += _wglGetQueryObjecti(frame.queries[i], GL_QUERY_RESULT) & 0xFFFFFFFFl;
+				}
+				float total = 0.0f;
+				for(int i = 0; i < PASS_COUNT; ++i) {
+					float ms = gpuNanos[i] * 0.000001f;
+					gpuMillisAvg[i] = gpuMillisAvg[i] * 0.95f + ms * 0.05f;
+					total += ms;
+				}
+				historyGPU[frame.historyIndex] = total;
+			}
+			frame.release();
+		}
+	}
+
+	public static void toggleProfiler() {
+		profilerShown = !profilerShown;
+		if(!profilerShown) {
+			destroy();
+		}
+	}
+
+	public static void renderOverlay() {
+		Minecraft mc = Minecraft.getMinecraft();
+		GlStateManager.matrixMode(GL_PROJECTION);
+		GlStateManager.pushMatrix();
+		GlStateManager.matrixMode(GL_MODELVIEW);
+		GlStateManager.pushMatrix();
+		mc.entityRenderer.setupOverlayRendering();
+		GlStateManager.enableBlend();
+		GlStateManager.blendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+		
+		int x = 5;
+		int y = 5;
+		Gui.drawRect(x - 2, y - 2, x + 190, y + (PASS_COUNT + 2) * 10, 0x7F000000);
+		mc.font.drawStringWithShadow(gpuTiming ? "Pass            CPU ms   GPU ms" : "Pass            CPU ms   (no GPU timer)", x, y, 0xFFFF00);
+		float cpuTotal = 0.0f;
+		float gpuTotal = 0.0f;
+		for(int i = 0; i < PASS_COUNT; ++i) {
+			y += 10;
+			mc.font.drawStringWithShadow(passNames[i], x, y, 0xFFFFFF);
+			mc.font.drawStringWithShadow(formatMillis(cpuMillisAvg[i]), x + 110, y, 0xFFFFFF);
+			if(gpuTiming) {
+				mc.font.drawStringWithShadow(formatMillis(gpuMillisAvg[i]), x + 150, y, 0xFFFFFF);
+			}
+			cpuTotal += cpuMillisAvg[i];
+			gpuTotal += gpuMillisAvg[i];
+		}
+		y += 10;
+		mc.font.drawStringWithShadow("Total", x, y, 0xFFFF00);
+		mc.font.drawStringWithShadow(formatMillis(cpuTotal), x + 110, y, 0xFFFF00);
+		if(gpuTiming) {
+			mc.font.drawStringWithShadow(formatMillis(gpuTotal), x + 150, y, 0xFFFF00);
+		}
+		
+		// rolling frame time histogram, full height is 33.3ms
+		float[] history = gpuTiming ? historyGPU : historyCPU;
+		int graphH = 50;
+		int graphY = y + 14 + graphH;
+		Gui.drawRect(x - 2, graphY - graphH - 2, x + HISTORY_SIZE + 2, graphY + 2, 0x7F000000);
+		for(int i = 0; i < HISTORY_SIZE; ++i) {
+			float ms = history[(historyPointer + i) % HISTORY_SIZE];
+			if(ms <= 0.0f) {
+				continue;
+			}
+			int h = Math.min((int)(ms * graphH / 33.3f), graphH);
+			int color = ms > 33.3f ? 0xFFFF3030 : (ms > 16.7f ? 0xFFFFFF30 : 0xFF30FF30);
+			Gui.drawRect(x + i, graphY - h, x + i + 1, graphY, color);
+		}
+		
+		GlStateManager.disableBlend();
+		GlStateManager.matrixMode(GL_PROJECTION);
+		GlStateManager.popMatrix();
+		GlStateManager.matrixMode(GL_MODELVIEW);
+		GlStateManager.popMatrix();
+	}
+
+	private static String formatMillis(float ms) {
+		int i = (int)(ms * 100.0f + 0.5f);
+		int frac = i % 100;
+		return (i / 100) + (frac < 10 ? ".0" : ".") + frac;
+	}
+
+	public static void destroy() {
+		if(queryActive) {
+			_wglEndQuery(GL_TIME_ELAPSED_EXT);
+			queryActive = false;
+		}
+		currentPass = -1;
+		recording = false;
+		if(recordingFrame != null) {
+			pendingFrames.add(recordingFrame);
+			recordingFrame = null;
+		}
+		for(int i = 0, l = pendingFrames.size(); i < l; ++i) {
+			pendingFrames.get(i).release();
+		}
+		pendingFrames.clear();
+		for(int i = 0, l = queryPool.size(); i < l; ++i) {
+			_wglDeleteQueries(queryPool.get(i));
+		}
+		queryPool.clear();
+		Arrays.fill(cpuMillisAvg, 0.0f);
+		Arrays.fill(gpuMillisAvg, 0.0f);
+		Arrays.fill(historyCPU, 0.0f);
+		Arrays.fill(historyGPU, 0.0f);
+	}
+
+}
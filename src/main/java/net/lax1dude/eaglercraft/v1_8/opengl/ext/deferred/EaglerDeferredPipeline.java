@@ -1390,11 +1390,13 @@ public class EaglerDeferredPipeline {
 
 	public void beginDrawDeferred() {
 		DeferredStateManager.checkGLError("Pre: beginDrawDeferred()");
+		DeferredPassProfiler.beginFrame();
 		DynamicLightManager.lightRenderList.clear();
 	}
 
 	public void beginDrawMainGBuffer() {
 		DeferredStateManager.checkGLError("Pre: beginDrawMainGBuffer()");
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_GBUFFER);
 		resize(mc.getWindow().getWidth(), mc.getWindow().getHeight());
 		_wglBindFramebuffer(_GL_FRAMEBUFFER, gBufferFramebuffer);
 		_wglDrawBuffers(gBufferDrawBuffers);
@@ -1434,11 +1436,13 @@ public class EaglerDeferredPipeline {
 	public void endDrawMainGBuffer() {
 		DeferredStateManager.checkGLError("Pre: endDrawMainGBuffer()");
 		_wglDrawBuffers(_GL_COLOR_ATTACHMENT0);
+		DeferredPassProfiler.end();
 		DeferredStateManager.checkGLError("Post: endDrawMainGBuffer()");
 	}
 
 	public void beginDrawMainShadowMap() {
 		DeferredStateManager.checkGLError("Pre: beginDrawMainShadowMap()");
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_SHADOW_MAP);
 		if(config.is_rendering_shadowsColored) {
 			_wglBindFramebuffer(_GL_FRAMEBUFFER, sunShadowColorFramebuffer);
 			_wglDrawBuffers(_GL_COLOR_ATTACHMENT0);
@@ -1465,6 +1469,7 @@ public class EaglerDeferredPipeline {
 		//GlStateManager.cullFace(GL_BACK);
 		DeferredStateManager.disableShadowRender();
 		GlStateManager.colorMask(true, true, true, true);
+		DeferredPassProfiler.end();
 		DeferredStateManager.checkGLError("Post: endDrawMainShadowMap()");
 	}
 
@@ -1475,6 +1480,7 @@ public class EaglerDeferredPipeline {
 
 	public void beginDrawColoredShadows() {
 		DeferredStateManager.checkGLError("Pre: beginDrawColoredShadows()");
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_COLORED_SHADOWS);
 		_wglBindFramebuffer(_GL_FRAMEBUFFER, sunShadowColorFramebuffer);
 		DeferredStateManager.enableForwardRender();
 		GlStateManager.globalEnableBlend();
@@ -1496,6 +1502,7 @@ public class EaglerDeferredPipeline {
 		GlStateManager.depthMask(true);
 		GlStateManager.disablePolygonOffset();
 		GlStateManager.colorMask(false, false, false, false);
+		DeferredPassProfiler.end();
 		DeferredStateManager.checkGLError("Post: endDrawColoredShadows()");
 	}
 
@@ -1551,11 +1558,14 @@ public class EaglerDeferredPipeline {
 		// ==================== UPDATE CLOUD RENDERER ===================== //
 
 		if(dim == 0) {
+			DeferredPassProfiler.begin(DeferredPassProfiler.PASS_CLOUDS);
 			CloudRenderWorker.setPosition(cloudRenderViewerOffsetX, (float)entityPosY, cloudRenderViewerOffsetZ);
 			CloudRenderWorker.update();
 			DeferredStateManager.checkGLError("combineGBuffersAndIlluminate(): UPDATE CLOUD RENDERER");
 		}
 
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_ATMOSPHERE);
+
 		if(millis - recalcAtmosphereTimer > 100l) {
 
 			if(dim == 0) {
@@ -1723,6 +1733,8 @@ public class EaglerDeferredPipeline {
 
 			// ============ DOWNSCALE DEPTH BUFFER, FOR PERFORMANCE =========== //
 
+			DeferredPassProfiler.begin(DeferredPassProfiler.PASS_REPROJECTION);
+
 			_wglBindFramebuffer(_GL_FRAMEBUFFER, gBufferQuarterFramebuffer);
 			GlStateManager.enableDepth();
 			GlStateManager.depthFunc(GL_ALWAYS);
@@ -1743,6 +1755,8 @@ public class EaglerDeferredPipeline {
 
 				// ====================== RUN SSAO ALGORITHM ====================== //
 
+				DeferredPassProfiler.begin(DeferredPassProfiler.PASS_SSAO);
+
 				_wglBindFramebuffer(_GL_FRAMEBUFFER, ssaoGenerateFramebuffer);
 				GlStateManager.viewport(0, 0, reprojectionTexWidth, reprojectionTexHeight);
 				GlStateManager.setActiveTexture(GL_TEXTURE2);
@@ -1771,6 +1785,8 @@ public class EaglerDeferredPipeline {
 
 			// ============== RUN REPROJECTION CONTROL SHADER ================ //
 
+			DeferredPassProfiler.begin(DeferredPassProfiler.PASS_REPROJECTION);
+
 			GlStateManager.setActiveTexture(GL_TEXTURE8);
 			if(config.is_rendering_raytracing) {
 				GlStateManager.bindTexture(gBufferMaterialTexture);
@@ -1851,6 +1867,8 @@ public class EaglerDeferredPipeline {
 
 				// =========== RUN SCREENSPACE REFLECTIONS ALGORITHM ============= //
 
+				DeferredPassProfiler.begin(DeferredPassProfiler.PASS_SSR);
+
 				GlStateManager.setActiveTexture(GL_TEXTURE5);
 				GlStateManager.bindTexture(lastFrameDepthTexture);
 				GlStateManager.setActiveTexture(GL_TEXTURE4);
@@ -1932,6 +1950,8 @@ public class EaglerDeferredPipeline {
 
 			// ==================== RENDER SUNLIGHT SHADOWS ===================== //
 
+			DeferredPassProfiler.begin(DeferredPassProfiler.PASS_SUN_SHADOWS);
+
 			_wglBindFramebuffer(_GL_FRAMEBUFFER, sunLightingShadowFramebuffer);
 			GlStateManager.viewport(0, 0, currentWidth, currentHeight);
 
@@ -2018,6 +2038,8 @@ public class EaglerDeferredPipeline {
 
 		// =================== RENDER SKYBOX MESH =================== //
 
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_LIGHTING);
+
 		_wglBindFramebuffer(_GL_FRAMEBUFFER, skyFramebuffer);
 		GlStateManager.viewport(0, 0, reprojectionTexWidth, reprojectionTexHeight);
 
@@ -2311,6 +2333,7 @@ public class EaglerDeferredPipeline {
 		GlStateManager.disableDepth();
 		GlStateManager.depthMask(true);
 		GlStateManager.disableBlend();
+		DeferredPassProfiler.end();
 	}
 
 	public void bindLightSourceBucket(int relativeBlockX, int relativeBlockY, int relativeBlockZ, int uboIndex) {
@@ -2505,6 +2528,7 @@ public class EaglerDeferredPipeline {
 
 	public void beginDrawEnvMap() {
 		DeferredStateManager.checkGLError("Pre: beginDrawEnvMap()");
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_ENV_MAP);
 		GlStateManager.enableDepth();
 		GlStateManager.depthMask(true);
 		DeferredStateManager.enableForwardRender();
@@ -2620,6 +2644,7 @@ public class EaglerDeferredPipeline {
 		GlStateManager.popMatrix();
 		GlStateManager.matrixMode(GL_MODELVIEW);
 		GlStateManager.popMatrix();
+		DeferredPassProfiler.end();
 		DeferredStateManager.checkGLError("Post: endDrawEnvMap()");
 	}
 
@@ -2700,6 +2725,7 @@ public class EaglerDeferredPipeline {
 
 	public void beginDrawRealisticWaterMask() {
 		DeferredStateManager.checkGLError("Pre: beginDrawRealisticWaterMask()");
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_WATER);
 		_wglBindFramebuffer(_GL_READ_FRAMEBUFFER, gBufferFramebuffer);
 		_wglBindFramebuffer(_GL_DRAW_FRAMEBUFFER, realisticWaterMaskFramebuffer);
 		_wglBlitFramebuffer(0, 0, currentWidth, currentHeight, 0, 0, currentWidth, currentHeight, GL_DEPTH_BUFFER_BIT, GL_NEAREST);
@@ -2960,6 +2986,7 @@ public class EaglerDeferredPipeline {
 		DrawUtils.drawStandardQuad2D();
 
 		DeferredStateManager.checkGLError("endDrawRealisticWaterMask(): GENERATE WAVE NORMAL MAP");
+		DeferredPassProfiler.end();
 	}
 
 	public void applyGBufferFog() {
@@ -2968,6 +2995,7 @@ public class EaglerDeferredPipeline {
 			_wglBindFramebuffer(_GL_FRAMEBUFFER, lightingHDRFramebuffer);
 			return;
 		}
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_FOG);
 		_wglBindFramebuffer(_GL_READ_FRAMEBUFFER, lightingHDRFramebuffer);
 		_wglBindFramebuffer(_GL_DRAW_FRAMEBUFFER, fogDepthCopyBuffer);
 		_wglBlitFramebuffer(0, 0, currentWidth, currentHeight, 0, 0, currentWidth, currentHeight, GL_DEPTH_BUFFER_BIT, GL_NEAREST);
@@ -3025,11 +3053,13 @@ public class EaglerDeferredPipeline {
 		GlStateManager.enableDepth();
 		GlStateManager.depthMask(true);
 		DeferredStateManager.setHDRTranslucentPassBlendFunc();
+		DeferredPassProfiler.end();
 		DeferredStateManager.checkGLError("Post: applyGBufferFog()");
 	}
 
 	public void beginDrawHDRTranslucent() {
 		DeferredStateManager.checkGLError("Pre: beginDrawHDRTranslucent()");
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_TRANSLUCENT);
 		GlStateManager.enableDepth();
 		GlStateManager.depthMask(true);
 		GlStateManager.enableAlpha();
@@ -3231,6 +3261,7 @@ public class EaglerDeferredPipeline {
 			GlStateManager.bindTexture(sunShadowDepthBuffer);
 			setNearest();
 		}
+		DeferredPassProfiler.end();
 		DeferredStateManager.checkGLError("Post: endDrawHDRTranslucent()");
 	}
 
@@ -3242,6 +3273,8 @@ public class EaglerDeferredPipeline {
 
 			// =============== CALCULATE SUN COORDINATES ================ //
 
+			DeferredPassProfiler.begin(DeferredPassProfiler.PASS_LENS_FLARES);
+
 			tmpVector2.x = DeferredStateManager.currentSunAngle.x * 10.0f;
 			tmpVector2.y = DeferredStateManager.currentSunAngle.y * 10.0f;
 			tmpVector2.z = DeferredStateManager.currentSunAngle.z * 10.0f;
@@ -3304,6 +3337,8 @@ public class EaglerDeferredPipeline {
 
 		// ================ DOWNSCALE AND AVERAGE LUMA =============== //
 
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_BLOOM);
+
 		long millis = EagRuntime.steadyTimeMillis();
 		if(millis - lastExposureUpdate > 33l) {
 			if(lumaAvgDownscaleFramebuffers.length == 0) {
@@ -3477,6 +3512,8 @@ public class EaglerDeferredPipeline {
 
 		// ==================== APPLY TONEMAPPING ==================== //
 
+		DeferredPassProfiler.begin(DeferredPassProfiler.PASS_TONEMAP);
+
 		float exposure = 1.0f;
 
 		if(config.is_rendering_fxaa) {
@@ -3510,6 +3547,8 @@ public class EaglerDeferredPipeline {
 			
 			// ======================= APPLY FXAA ======================== //
 
+			DeferredPassProfiler.begin(DeferredPassProfiler.PASS_FXAA);
+
 			if(config.is_rendering_lensDistortion) {
 				_wglBindFramebuffer(_GL_FRAMEBUFFER, lensDistortFramebuffer);
 			}else {
@@ -3527,6 +3566,8 @@ public class EaglerDeferredPipeline {
 			
 			// ================= APPLY LENS DISTORTION ================== //
 
+			DeferredPassProfiler.begin(DeferredPassProfiler.PASS_FXAA);
+
 			_wglBindFramebuffer(_GL_FRAMEBUFFER, null);
 			GlStateManager.setActiveTexture(GL_TEXTURE0);
 			GlStateManager.bindTexture(lensDistortTexture);
@@ -3562,6 +3603,8 @@ public class EaglerDeferredPipeline {
 
 		// ================= OPTIONAL DEBUG OUTPUT =================== //
 
+		DeferredPassProfiler.endFrame();
+
 		_wglBindFramebuffer(_GL_FRAMEBUFFER, null);
 		drawDebugViewIfEnabled();
 
@@ -3614,10 +3657,14 @@ public class EaglerDeferredPipeline {
 		if(DebugFramebufferView.debugViewShown) {
 			DebugFramebufferView.renderDebugView();
 		}
+		if(DeferredPassProfiler.profilerShown) {
+			DeferredPassProfiler.renderOverlay();
+		}
 	}
 
 	public void destroy() {
 		DeferredStateManager.checkGLError("Pre: destroy()");
+		DeferredPassProfiler.destroy();
 		if(gBufferFramebuffer != null) {
 			_wglDeleteFramebuffer(gBufferFramebuffer);
 			gBufferFramebuffer = null;
@@ -58,12 +58,17 @@ public class ConnectionHandshake {
 	private static final int protocolV2 = 2;
 	private static final int protocolV3 = 3;
 	private static final int protocolV4 = 4;
+
+	public static final int COMPRESSION_ZLIB = 1;
+
+	public static final int SERVER_FLAG_BATCHING = 1;
 	
 	private static final Logger logger = LogManager.getLogger();
 
 	public static String pluginVersion = null;
 	public static String pluginBrand = null;
 	public static int protocolVersion = -1;
+	public static boolean batchingAccepted = false;
 	
 	public static byte[] getSPHandshakeProtocolData() {
 		try {
@@ -88,6 +93,7 @@ public class ConnectionHandshake {
 			pluginVersion = null;
 			pluginBrand = null;
 			protocolVersion = -1;
+			batchingAccepted = false;
 			EaglerOutputStream bao = new EaglerOutputStream();
 			DataOutputStream d = new DataOutputStream(bao);
 			
@@ -340,6 +346,12 @@ public class ConnectionHandshake {
 					}
 					profileDataToSend.put("cape_v1", packetCape);
 					
+					// lets the server know it can send SetCompression, the threshold comes from the server
+					profileDataToSend.put("compression_v1", new byte[] { (byte)COMPRESSION_ZLIB });
+					
+					// asks the server to accept frames holding several length prefixed packets
+					profileDataToSend.put("batching_v1", new byte[] { 1 });
+					
 					byte[] packetSignatureData = UpdateService.getClientSignatureData();
 					if(packetSignatureData != null) {
 						profileDataToSend.put("update_cert_v1", packetSignatureData);
@@ -400,6 +412,9 @@ public class ConnectionHandshake {
 					di = new DataInputStream(new EaglerInputStream(read));
 					type = di.read();
 					if(type == HandshakePacketTypes.PROTOCOL_SERVER_FINISH_LOGIN) {
+						// servers that know about batching_v1 append a flags byte
+						int serverFlags = di.read();
+						batchingAccepted = serverFlags != -1 && (serverFlags & SERVER_FLAG_BATCHING) != 0;
 						return true;
 					}else if(type == HandshakePacketTypes.PROTOCOL_SERVER_ERROR) {
 						showError(mc, client, connecting, ret, di, protocolVersion == protocolV2);
@@ -22,9 +22,12 @@ import net.lax1dude.eaglercraft.v1_8.internal.EnumEaglerConnectionState;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
 import net.lax1dude.eaglercraft.v1_8.netty.Unpooled;
+import net.lax1dude.eaglercraft.v1_8.socket.protocol.client.GameProtocolMessageController;
+import net.minecraft.client.multiplayer.ClientPacketListener;
 import net.minecraft.network.ConnectionProtocol;
 import net.minecraft.network.PacketListener;
 import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketFlow;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.chat.Component;
 
@@ -33,14 +36,19 @@ public abstract class EaglercraftNetworkManager {
 	protected final String address;
 	protected PacketListener nethandler = null;
 	protected ConnectionProtocol packetState = ConnectionProtocol.HANDSHAKING;
+	protected PacketCodecTable inboundCodecs = null;
 	protected final FriendlyByteBuf temporaryBuffer;
 	protected int debugPacketCounter = 0;
 	
 	protected String pluginBrand = null;
 	protected String pluginVersion = null;
+
+	protected GameProtocolMessageController messageController = null;
 	
 	public static final Logger logger = LogManager.getLogger("Connection");
 
+	private static EaglercraftNetworkManager currentClientManager = null;
+
 	public EaglercraftNetworkManager(String address) {
 		this.address = address;
 		this.temporaryBuffer = new FriendlyByteBuf(Unpooled.buffer(0x1FFFF));
@@ -71,14 +79,68 @@ public abstract class EaglercraftNetworkManager {
 	
 	public void setConnectionState(ConnectionProtocol state) {
 		packetState = state;
+		inboundCodecs = null;
+	}
+
+	/**
+	 * The clientbound codecs of the current state, PLAY is bound to the
+	 * registries of the current ClientPacketListener
+	 */
+	protected PacketCodecTable getInboundCodecs() throws IOException {
+		if(inboundCodecs == null) {
+			if(packetState == ConnectionProtocol.PLAY) {
+				if(nethandler instanceof ClientPacketListener) {
+					inboundCodecs = PacketCodecTable.getPlay(PacketFlow.CLIENTBOUND, ((ClientPacketListener)nethandler).registryAccess());
+				}
+			}else {
+				inboundCodecs = PacketCodecTable.get(packetState, PacketFlow.CLIENTBOUND);
+			}
+			if(inboundCodecs == null) {
+				throw new IOException("No clientbound packets are defined in state " + packetState);
+			}
+		}
+		return inboundCodecs;
 	}
 	
 	public abstract void processReceivedPackets() throws IOException;
 
 	public abstract void sendPacket(Packet pkt);
+
+	/**
+	 * Sends anything held back by packet batching
+	 */
+	public void flush() {
+	}
+
+	/**
+	 * The plugin message controller of this connection, its queued messages
+	 * are flushed every client tick along with the connection
+	 */
+	public void setMessageController(GameProtocolMessageController messageController) {
+		this.messageController = messageController;
+	}
+
+	public GameProtocolMessageController getMessageController() {
+		return messageController;
+	}
+
+	/**
+	 * Called at the end of the client tick once everything for that tick has
+	 * been sent, flushes the connection that last had a handler set
+	 */
+	public static void flushClientTick() {
+		if(currentClientManager != null) {
+			if(currentClientManager.messageController != null) {
+				currentClientManager.messageController.flush();
+			}
+			currentClientManager.flush();
+		}
+	}
 	
 	public void setNetHandler(PacketListener nethandler) {
 		this.nethandler = nethandler;
+		inboundCodecs = null;
+		currentClientManager = this;
 	}
 	
 	public boolean isLocalChannel() {
@@ -97,6 +159,13 @@ public abstract class EaglercraftNetworkManager {
 		throw new CompressionNotSupportedException();
 	}
 
+	/**
+	 * Called with the threshold from the login compression packet, does
+	 * nothing on connections that never negotiate compression
+	 */
+	public void setupCompression(int compressionThreshold) {
+	}
+
 	public abstract boolean checkDisconnected();
 	
 	protected boolean clientDisconnected = false;
@@ -108,6 +177,9 @@ public abstract class EaglercraftNetworkManager {
 				this.nethandler.onDisconnect(msg);
 			}
 		}
+		if(currentClientManager == this) {
+			currentClientManager = null;
+		}
 	}
 	
 }
\ No newline at end of file
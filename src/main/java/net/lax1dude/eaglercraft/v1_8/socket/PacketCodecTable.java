@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.lax1dude.eaglercraft.v1_8.socket;
+
+import java.io.IOException;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.ConnectionProtocol;
+import net.minecraft.network.ProtocolInfo;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.IdDispatchCodec;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketFlow;
+import net.minecraft.network.protocol.PacketType;
+import net.minecraft.network.protocol.configuration.ConfigurationProtocols;
+import net.minecraft.network.protocol.game.GameProtocols;
+import net.minecraft.network.protocol.handshake.HandshakeProtocols;
+import net.minecraft.network.protocol.login.LoginProtocols;
+import net.minecraft.network.protocol.status.StatusProtocols;
+
+/**
+ * Packet id to codec table for one protocol and direction, taken out of the
+ * vanilla ProtocolInfo once so decoding is an array lookup and a direct call
+ * to the packet's codec, nothing is created reflectively.<br>
+ * <br>
+ * The tables for every state except PLAY are shared and built by
+ * {@link #init()}, PLAY depends on the registries of the connection and is
+ * bound again whenever those change
+ */
+public class PacketCodecTable {
+
+	private static final PacketCodecTable[][] sharedTables = new PacketCodecTable[ConnectionProtocol.values().length][PacketFlow.values().length];
+
+	private static RegistryAccess playRegistries = null;
+	private static final PacketCodecTable[] playTables = new PacketCodecTable[PacketFlow.values().length];
+
+	private final ConnectionProtocol protocol;
+	private final PacketFlow flow;
+	private final StreamCodec<ByteBuf, ? extends Packet<?>>[] codecs;
+	private final PacketType<?>[] types;
+
+	@SuppressWarnings("unchecked")
+	public PacketCodecTable(ProtocolInfo<?> info) {
+		this.protocol = info.id();
+		this.flow = info.flow();
+		if(!(info.codec() instanceof IdDispatchCodec)) {
+			throw new IllegalArgumentException("Protocol " + protocol.id() + " " + flow + " does not dispatch by packet id");
+		}
+		IdDispatchCodec<ByteBuf, ?, ?> dispatch = (IdDispatchCodec<ByteBuf, ?, ?>) info.codec();
+		int cnt = dispatch.size();
+		this.codecs = new StreamCodec[cnt];
+		this.types = new PacketType[cnt];
+		for(int i = 0; i < cnt; ++i) {
+			codecs[i] = (StreamCodec<ByteBuf, ? extends Packet<?>>) dispatch.getCodec(i);
+			types[i] = (PacketType<?>) dispatch.getType(i);
+		}
+	}
+
+	/**
+	 * Reads the packet body, the id must already have been read from the buffer
+	 */
+	public Packet<?> decode(int id, ByteBuf buffer) throws IOException {
+		if(id < 0 || id >= codecs.length) {
+			throw new IOException("Recieved packet type " + id + " which is undefined in state " + protocol.id());
+		}
+		try {
+			return codecs[id].decode(buffer);
+		}catch(Throwable t) {
+			throw new IOException("Failed to read packet type '" + types[id] + "'", t);
+		}
+	}
+
+	/**
+	 * @return the type of a packet id without decoding it, or null if the id
+	 * is not defined in this state
+	 */
+	public PacketType<?> getType(int id) {
+		return (id >= 0 && id < types.length) ? types[id] : null;
+	}
+
+	public int size() {
+		return codecs.length;
+	}
+
+	public ConnectionProtocol getProtocol() {
+		return protocol;
+	}
+
+	public PacketFlow getFlow() {
+		return flow;
+	}
+
+	/**
+	 * Builds every table that does not depend on the registries
+	 */
+	public static void init() {
+		for(ConnectionProtocol protocol : ConnectionProtocol.values()) {
+			for(PacketFlow flow : PacketFlow.values()) {
+				get(protocol, flow);
+			}
+		}
+	}
+
+	/**
+	 * @return the shared table, or null for PLAY and for states with no
+	 * packets in this direction
+	 */
+	public static PacketCodecTable get(ConnectionProtocol protocol, PacketFlow flow) {
+		PacketCodecTable ret = sharedTables[protocol.ordinal()][flow.ordinal()];
+		if(ret == null) {
+			ProtocolInfo<?> info = getSharedProtocol(protocol, flow);
+			if(info != null) {
+				sharedTables[protocol.ordinal()][flow.ordinal()] = ret = new PacketCodecTable(info);
+			}
+		}
+		return ret;
+	}
+
+	private static ProtocolInfo<?> getSharedProtocol(ConnectionProtocol protocol, PacketFlow flow) {
+		boolean clientbound = flow == PacketFlow.CLIENTBOUND;
+		switch(protocol) {
+		case HANDSHAKING:
+			return clientbound ? null : HandshakeProtocols.SERVERBOUND;
+		case STATUS:
+			return clientbound ? StatusProtocols.CLIENTBOUND : StatusProtocols.SERVERBOUND;
+		case LOGIN:
+			return clientbound ? LoginProtocols.CLIENTBOUND : LoginProtocols.SERVERBOUND;
+		case CONFIGURATION:
+			return clientbound ? ConfigurationProtocols.CLIENTBOUND : ConfigurationProtocols.SERVERBOUND;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * @return the PLAY table bound to these registries, the last one is kept
+	 * so this is cheap to call for every connection state change
+	 */
+	public static PacketCodecTable getPlay(PacketFlow flow, RegistryAccess registries) {
+		if(registries != playRegistries) {
+			playRegistries = registries;
+			for(int i = 0; i < playTables.length; ++i) {
+				playTables[i] = null;
+			}
+		}
+		PacketCodecTable ret = playTables[flow.ordinal()];
+		if(ret == null) {
+			ProtocolInfo<?> info = flow == PacketFlow.CLIENTBOUND
+					? GameProtocols.CLIENTBOUND_TEMPLATE.bind(RegistryFriendlyByteBuf.decorator(registries))
+					: GameProtocols.SERVERBOUND_TEMPLATE.bind(RegistryFriendlyByteBuf.decorator(registries));
+			playTables[flow.ordinal()] = ret = new PacketCodecTable(info);
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.socket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Per packet type counters for one side of a connection. The codec time is
+ * readPacketData for inbound packets and writePacketData (plus compression)
+ * for outbound ones, the handler time is only measured for inbound packets
+ */
+public class PacketStatistics {
+
+	public static final int INBOUND = 0;
+	public static final int OUTBOUND = 1;
+
+	/**
+	 * every client side network manager records here
+	 */
+	public static final PacketStatistics client = new PacketStatistics();
+
+	/**
+	 * recorded by IntegratedServerPlayerNetworkManager inside the integrated
+	 * server, reported to the client together with the server profile
+	 */
+	public static final PacketStatistics integratedServer = new PacketStatistics();
+
+	public static class Entry {
+
+		public final String name;
+		public final int direction;
+		public int count;
+		public long bytes;
+		public long codecNanos;
+		public long handlerNanos;
+
+		protected Entry(String name, int direction) {
+			this.name = name;
+			this.direction = direction;
+		}
+
+	}
+
+	private final Map<Class<?>, Entry>[] byClass;
+	private final Map<String, Entry>[] byName;
+	private long startTime = EagRuntime.steadyTimeMillis();
+	private long mergedDuration = -1l;
+
+	@SuppressWarnings("unchecked")
+	public PacketStatistics() {
+		byClass = new Map[] { new IdentityHashMap<>(), new IdentityHashMap<>() };
+		byName = new Map[] { new HashMap<>(), new HashMap<>() };
+	}
+
+	public void record(int direction, Class<?> type, int bytes, long codecNanos, long handlerNanos) {
+		Entry e = byClass[direction].get(type);
+		if(e == null) {
+			e = getEntry(direction, type.getSimpleName());
+			byClass[direction].put(type, e);
+		}
+		++e.count;
+		e.bytes += bytes;
+		e.codecNanos += codecNanos;
+		e.handlerNanos += handlerNanos;
+	}
+
+	public void merge(int direction, String name, int count, long bytes, long codecNanos, long handlerNanos) {
+		Entry e = getEntry(direction, name);
+		e.count += count;
+		e.bytes += bytes;
+		e.codecNanos += codecNanos;
+		e.handlerNanos += handlerNanos;
+	}
+
+	/**
+	 * Adds the time a merged report covered, once called the duration is the
+	 * sum of these instead of the time since the last reset
+	 */
+	public void mergeDuration(long millis) {
+		if(mergedDuration < 0l) {
+			mergedDuration = 0l;
+		}
+		mergedDuration += millis;
+	}
+
+	private Entry getEntry(int direction, String name) {
+		Entry e = byName[direction].get(name);
+		if(e == null) {
+			e = new Entry(name, direction);
+			byName[direction].put(name, e);
+		}
+		return e;
+	}
+
+	/**
+	 * Sorted by total time spent, most expensive first
+	 */
+	public List<Entry> getEntries(int direction) {
+		List<Entry> ret = new ArrayList<>(byName[direction].values());
+		Collections.sort(ret, (e1, e2) -> Long.compare(e2.codecNanos + e2.handlerNanos, e1.codecNanos + e1.handlerNanos));
+		return ret;
+	}
+
+	public void reset() {
+		for(int i = 0; i < 2; ++i) {
+			byClass[i].clear();
+			byName[i].clear();
+		}
+		startTime = EagRuntime.steadyTimeMillis();
+		mergedDuration = -1l;
+	}
+
+	/**
+	 * @return milliseconds since the counters were last reset, or the time
+	 * covered by the merged reports
+	 */
+	public long getDuration() {
+		return mergedDuration >= 0l ? mergedDuration : EagRuntime.steadyTimeMillis() - startTime;
+	}
+
+	public String exportCSV() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("direction,packet,count,bytes,codec_ms,handler_ms\n");
+		for(int i = 0; i < 2; ++i) {
+			List<Entry> lst = getEntries(i);
+			for(int j = 0, l = lst.size(); j < l; ++j) {
+				Entry e = lst.get(j);
+				sb.append(i == INBOUND ? "in" : "out").append(',').append(e.name).append(',').append(e.count).append(',')
+						.append(e.bytes).append(',').append(e.codecNanos / 1000000.0).append(',')
+						.append(e.handlerNanos / 1000000.0).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	public String exportJSON() {
+		JSONObject ret = new JSONObject();
+		ret.put("durationMillis", getDuration());
+		for(int i = 0; i < 2; ++i) {
+			JSONArray arr = new JSONArray();
+			List<Entry> lst = getEntries(i);
+			for(int j = 0, l = lst.size(); j < l; ++j) {
+				Entry e = lst.get(j);
+				JSONObject obj = new JSONObject();
+				obj.put("packet", e.name);
+				obj.put("count", e.count);
+				obj.put("bytes", e.bytes);
+				obj.put("codecMillis", e.codecNanos / 1000000.0);
+				obj.put("handlerMillis", e.handlerNanos / 1000000.0);
+				arr.put(obj);
+			}
+			ret.put(i == INBOUND ? "inbound" : "outbound", arr);
+		}
+		return ret.toString(4);
+	}
+
+}
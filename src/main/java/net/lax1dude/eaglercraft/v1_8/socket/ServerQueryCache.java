@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.lax1dude.eaglercraft.v1_8.socket;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.lax1dude.eaglercraft.v1_8.EaglerInputStream;
+import net.lax1dude.eaglercraft.v1_8.EaglerOutputStream;
+import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
+import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
+import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
+
+/**
+ * MOTD query results of the servers in the server list, kept on disk so the
+ * list can be shown right away and only servers whose entry is older than
+ * {@link #CACHE_TTL} get queried again
+ */
+public class ServerQueryCache {
+
+	private static final Logger logger = LogManager.getLogger("ServerQueryCache");
+
+	public static final long CACHE_TTL = 300000l;
+	public static final int MAX_ENTRIES = 64;
+
+	private static final int FILE_VERSION = 1;
+	private static final VFile2 cacheFile = new VFile2("server_query_cache.dat");
+
+	public static class CachedServerInfo {
+
+		public final String uri;
+		public long fetchedAt = 0l;
+		public long ping = -1l;
+		public String serverName = "";
+		public String serverVersion = "";
+		public List<String> motd = Collections.emptyList();
+		public List<String> players = Collections.emptyList();
+		public int onlineCount = 0;
+		public int maxCount = 0;
+
+		/**
+		 * 64x64 ARGB, decoded once when the icon changes and kept until it does again
+		 */
+		public int[] iconPixels = null;
+		public int iconHash = 0;
+
+		public boolean failed = false;
+
+		/**
+		 * incremented every time anything above changes
+		 */
+		public int updateCount = 0;
+
+		protected CachedServerInfo(String uri) {
+			this.uri = uri;
+		}
+
+		public boolean isExpired(long now) {
+			return now - fetchedAt > CACHE_TTL;
+		}
+
+		/**
+		 * @return false if the icon was the same as the cached one
+		 */
+		public boolean setIcon(byte[] rgba) {
+			int hash = Arrays.hashCode(rgba);
+			if(iconPixels != null && hash == iconHash) {
+				return false;
+			}
+			int[] px = new int[4096];
+			for(int i = 0, j; i < 4096; ++i) {
+				j = i << 2;
+				px[i] = ((rgba[j] & 0xFF) << 16) | ((rgba[j + 1] & 0xFF) << 8) | (rgba[j + 2] & 0xFF)
+						| ((rgba[j + 3] & 0xFF) << 24);
+			}
+			iconPixels = px;
+			iconHash = hash;
+			return true;
+		}
+
+	}
+
+	private static final Map<String, CachedServerInfo> entries = new HashMap<>();
+	private static boolean loaded = false;
+	private static boolean dirty = false;
+
+	public static CachedServerInfo get(String uri) {
+		load();
+		return entries.get(uri);
+	}
+
+	public static CachedServerInfo getOrCreate(String uri) {
+		load();
+		CachedServerInfo ret = entries.get(uri);
+		if(ret == null) {
+			entries.put(uri, ret = new CachedServerInfo(uri));
+		}
+		return ret;
+	}
+
+	public static void markDirty() {
+		dirty = true;
+	}
+
+	private static void load() {
+		if(loaded) {
+			return;
+		}
+		loaded = true;
+		if(!cacheFile.exists()) {
+			return;
+		}
+		try(DataInputStream is = new DataInputStream(new EaglerInputStream(cacheFile.getAllBytes()))) {
+			if(is.readInt() != FILE_VERSION) {
+				return;
+			}
+			int cnt = is.readInt();
+			for(int i = 0; i < cnt; ++i) {
+				CachedServerInfo e = new CachedServerInfo(is.readUTF());
+				e.fetchedAt = is.readLong();
+				e.ping = is.readLong();
+				e.serverName = is.readUTF();
+				e.serverVersion = is.readUTF();
+				e.motd = readStrings(is);
+				e.players = readStrings(is);
+				e.onlineCount = is.readInt();
+				e.maxCount = is.readInt();
+				if(is.readBoolean()) {
+					int[] px = new int[4096];
+					for(int j = 0; j < 4096; ++j) {
+						px[j] = is.readInt();
+					}
+					e.iconPixels = px;
+					e.iconHash = is.readInt();
+				}
+				e.updateCount = 1;
+				entries.put(e.uri, e);
+			}
+		}catch(IOException ex) {
+			logger.error("Failed to load the server query cache, starting over");
+			logger.error(ex);
+			entries.clear();
+		}
+	}
+
+	private static List<String> readStrings(DataInputStream is) throws IOException {
+		int cnt = is.readUnsignedShort();
+		if(cnt == 0) {
+			return Collections.emptyList();
+		}
+		List<String> ret = new ArrayList<>(cnt);
+		for(int i = 0; i < cnt; ++i) {
+			ret.add(is.readUTF());
+		}
+		return ret;
+	}
+
+	private static void writeStrings(DataOutputStream os, List<String> lst) throws IOException {
+		int cnt = Math.min(lst.size(), 0xFFFF);
+		os.writeShort(cnt);
+		for(int i = 0; i < cnt; ++i) {
+			os.writeUTF(lst.get(i));
+		}
+	}
+
+	/**
+	 * Writes the cache if anything changed, failed queries are not saved
+	 */
+	public static void save() {
+		if(!dirty) {
+			return;
+		}
+		dirty = false;
+		List<CachedServerInfo> lst = new ArrayList<>(entries.size());
+		for(CachedServerInfo e : entries.values()) {
+			if(e.fetchedAt > 0l && !e.failed) {
+				lst.add(e);
+			}
+		}
+		if(lst.size() > MAX_ENTRIES) {
+			Collections.sort(lst, (e1, e2) -> Long.compare(e2.fetchedAt, e1.fetchedAt));
+			lst = lst.subList(0, MAX_ENTRIES);
+		}
+		EaglerOutputStream bao = new EaglerOutputStream();
+		try(DataOutputStream os = new DataOutputStream(bao)) {
+			os.writeInt(FILE_VERSION);
+			os.writeInt(lst.size());
+			for(int i = 0, l = lst.size(); i < l; ++i) {
+				CachedServerInfo e = lst.get(i);
+				os.writeUTF(e.uri);
+				os.writeLong(e.fetchedAt);
+				os.writeLong(e.ping);
+				os.writeUTF(e.serverName);
+				os.writeUTF(e.serverVersion);
+				writeStrings(os, e.motd);
+				writeStrings(os, e.players);
+				os.writeInt(e.onlineCount);
+				os.writeInt(e.maxCount);
+				os.writeBoolean(e.iconPixels != null);
+				if(e.iconPixels != null) {
+					for(int j = 0; j < 4096; ++j) {
+						os.writeInt(e.iconPixels[j]);
+					}
+					os.writeInt(e.iconHash);
+				}
+			}
+		}catch(IOException ex) {
+			logger.error("Failed to serialize the server query cache");
+			logger.error(ex);
+			return;
+		}
+		cacheFile.setAllBytes(bao.toByteArray());
+	}
+
+	public static void clear() {
+		entries.clear();
+		loaded = true;
+		dirty = false;
+		cacheFile.delete();
+	}
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.lax1dude.eaglercraft.v1_8.socket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+import net.lax1dude.eaglercraft.v1_8.internal.EnumServerRateLimit;
+import net.lax1dude.eaglercraft.v1_8.internal.IServerQuery;
+import net.lax1dude.eaglercraft.v1_8.internal.QueryResponse;
+import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
+import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
+import net.lax1dude.eaglercraft.v1_8.socket.ServerQueryCache.CachedServerInfo;
+
+/**
+ * Queries the MOTD of servers in the server list, at most
+ * {@link #MAX_CONCURRENT} at a time. Servers are only queried when their
+ * cache entry has expired, and a server that fails or rate limits the query
+ * is retried with an exponential backoff instead of on every visit
+ */
+public class ServerQueryScheduler {
+
+	private static final Logger logger = LogManager.getLogger("ServerQueryScheduler");
+
+	public static final int MAX_CONCURRENT = 4;
+	public static final long QUERY_TIMEOUT = 10000l;
+	public static final long BACKOFF_MIN = 5000l;
+	public static final long BACKOFF_MAX = 300000l;
+
+	private static class ActiveQuery {
+
+		private final CachedServerInfo entry;
+		private final IServerQuery query;
+		private final long startTime;
+		private boolean hasMotd = false;
+		private boolean waitingForIcon = false;
+
+		private ActiveQuery(CachedServerInfo entry, IServerQuery query, long startTime) {
+			this.entry = entry;
+			this.query = query;
+			this.startTime = startTime;
+		}
+
+	}
+
+	private static class Backoff {
+
+		private int failures = 0;
+		private long nextAttempt = 0l;
+
+	}
+
+	private static final ArrayDeque<String> pending = new ArrayDeque<>();
+	private static final List<ActiveQuery> active = new ArrayList<>(MAX_CONCURRENT);
+	private static final Map<String, Backoff> backoff = new HashMap<>();
+	private static long lastSave = 0l;
+
+	public static boolean isQueryable(String address) {
+		return address.startsWith("ws://") || address.startsWith("wss://");
+	}
+
+	/**
+	 * Returns what is known about a server, possibly stale or null, and
+	 * schedules a query if the entry has expired or the last one failed and
+	 * its backoff is over. Cheap enough to call every frame
+	 */
+	public static CachedServerInfo request(String uri) {
+		CachedServerInfo entry = ServerQueryCache.get(uri);
+		if(entry == null || entry.failed || entry.isExpired(System.currentTimeMillis())) {
+			schedule(uri);
+		}
+		return entry;
+	}
+
+	/**
+	 * Queries the server again even if the cached entry is still fresh,
+	 * still respects the backoff
+	 */
+	public static void refresh(String uri) {
+		schedule(uri);
+	}
+
+	private static void schedule(String uri) {
+		if(pending.contains(uri) || isActive(uri) || RateLimitTracker.isLockedOut(uri)) {
+			return;
+		}
+		Backoff b = backoff.get(uri);
+		if(b != null && EagRuntime.steadyTimeMillis() < b.nextAttempt) {
+			return;
+		}
+		pending.add(uri);
+	}
+
+	private static boolean isActive(String uri) {
+		for(int i = 0, l = active.size(); i < l; ++i) {
+			if(active.get(i).entry.uri.equals(uri)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static void tick() {
+		long millis = EagRuntime.steadyTimeMillis();
+		Iterator<ActiveQuery> itr = active.iterator();
+		while(itr.hasNext()) {
+			ActiveQuery q = itr.next();
+			if(updateQuery(q, millis)) {
+				q.query.close();
+				itr.remove();
+			}
+		}
+		while(active.size() < MAX_CONCURRENT && !pending.isEmpty()) {
+			String uri = pending.poll();
+			IServerQuery query = ServerQueryDispatch.sendServerQuery(uri, "MOTD");
+			CachedServerInfo entry = ServerQueryCache.getOrCreate(uri);
+			if(query == null) {
+				fail(entry, false);
+				continue;
+			}
+			active.add(new ActiveQuery(entry, query, millis));
+		}
+		if(millis - lastSave > 5000l) {
+			lastSave = millis;
+			ServerQueryCache.save();
+		}
+	}
+
+	/**
+	 * @return true once the query is finished
+	 */
+	private static boolean updateQuery(ActiveQuery q, long millis) {
+		q.query.update();
+		EnumServerRateLimit rateLimit = q.query.getRateLimit();
+		if(rateLimit != EnumServerRateLimit.OK) {
+			if(rateLimit == EnumServerRateLimit.LOCKED_OUT) {
+				RateLimitTracker.registerLockOut(q.entry.uri);
+			}else {
+				RateLimitTracker.registerBlock(q.entry.uri);
+			}
+			fail(q.entry, true);
+			return true;
+		}
+		QueryResponse resp;
+		while((resp = q.query.getResponse()) != null) {
+			if(resp.isResponseJSON() && "motd".equals(resp.responseType)) {
+				readMotd(q.entry, resp);
+				q.hasMotd = true;
+				q.waitingForIcon = resp.getResponseJSON().optBoolean("icon", false);
+			}
+		}
+		byte[] bin;
+		while((bin = q.query.getBinaryResponse()) != null) {
+			if(bin.length == 16384) {
+				if(q.entry.setIcon(bin)) {
+					++q.entry.updateCount;
+				}
+				q.waitingForIcon = false;
+			}
+		}
+		if(q.hasMotd && !q.waitingForIcon) {
+			backoff.remove(q.entry.uri);
+			ServerQueryCache.markDirty();
+			return true;
+		}
+		if(q.query.isClosed() || millis - q.startTime > QUERY_TIMEOUT) {
+			if(q.hasMotd) {
+				// the icon never arrived, keep what we have
+				backoff.remove(q.entry.uri);
+				ServerQueryCache.markDirty();
+			}else {
+				fail(q.entry, false);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private static void readMotd(CachedServerInfo entry, QueryResponse resp) {
+		JSONObject data = resp.getResponseJSON();
+		entry.fetchedAt = System.currentTimeMillis();
+		entry.ping = resp.ping;
+		entry.serverName = resp.serverName;
+		entry.serverVersion = resp.serverVersion;
+		entry.motd = readStrings(data.optJSONArray("motd"));
+		entry.players = readStrings(data.optJSONArray("players"));
+		entry.onlineCount = data.optInt("online", 0);
+		entry.maxCount = data.optInt("max", 0);
+		entry.failed = false;
+		++entry.updateCount;
+	}
+
+	private static List<String> readStrings(JSONArray arr) {
+		if(arr == null) {
+			return new ArrayList<>(0);
+		}
+		List<String> ret = new ArrayList<>(arr.length());
+		for(int i = 0, l = arr.length(); i < l; ++i) {
+			ret.add(arr.optString(i, ""));
+		}
+		return ret;
+	}
+
+	private static void fail(CachedServerInfo entry, boolean rateLimited) {
+		Backoff b = backoff.get(entry.uri);
+		if(b == null) {
+			backoff.put(entry.uri, b = new Backoff());
+		}
+		++b.failures;
+		long delay = rateLimited ? BACKOFF_MAX : Math.min(BACKOFF_MIN << Math.min(b.failures - 1, 16), BACKOFF_MAX);
+		b.nextAttempt = EagRuntime.steadyTimeMillis() + delay;
+		logger.warn("Query to \"{}\" failed, retrying in {}s", entry.uri, delay / 1000l);
+		entry.failed = true;
+		++entry.updateCount;
+	}
+
+	/**
+	 * Closes the queries in progress and drops the ones that haven't started,
+	 * call when the server list is closed
+	 */
+	public static void cancelAll() {
+		for(int i = 0, l = active.size(); i < l; ++i) {
+			active.get(i).query.close();
+		}
+		active.clear();
+		pending.clear();
+		ServerQueryCache.save();
+	}
+
+}
@@ -17,15 +17,25 @@
 package net.lax1dude.eaglercraft.v1_8.socket;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.List;
 
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+import net.lax1dude.eaglercraft.v1_8.EaglerZLIB;
 import net.lax1dude.eaglercraft.v1_8.internal.EnumEaglerConnectionState;
 import net.lax1dude.eaglercraft.v1_8.internal.IWebSocketClient;
 import net.lax1dude.eaglercraft.v1_8.internal.IWebSocketFrame;
 import net.lax1dude.eaglercraft.v1_8.netty.ByteBuf;
+import net.lax1dude.eaglercraft.v1_8.netty.PooledByteBuf;
+import net.lax1dude.eaglercraft.v1_8.netty.PooledByteBufAllocator;
 import net.lax1dude.eaglercraft.v1_8.netty.Unpooled;
+import net.minecraft.network.ConnectionProtocol;
 import net.minecraft.network.protocol.PacketFlow;
 import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketType;
+import net.minecraft.network.protocol.common.CommonPacketTypes;
+import net.minecraft.network.protocol.game.GamePacketTypes;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.Component;
@@ -34,9 +44,58 @@ public class WebSocketNetworkManager extends EaglercraftNetworkManager {
 
 	protected final IWebSocketClient webSocketClient;
 
+	/**
+	 * same limit as vanilla's CompressionDecoder
+	 */
+	public static final int MAX_UNCOMPRESSED_LENGTH = 8388608;
+
+	protected int compressionThreshold = -1;
+	private byte[] compressBuffer = null;
+
+	protected long packetBudgetNanos = 8000000l;
+	protected final ArrayDeque<IWebSocketFrame> receivedFrames = new ArrayDeque<>();
+	protected final ArrayDeque<QueuedPacket> orderedQueue = new ArrayDeque<>();
+	protected final ArrayDeque<QueuedPacket> bulkQueue = new ArrayDeque<>();
+	protected boolean barrierQueued = false;
+
+	/**
+	 * Once batching has been negotiated every frame sent is a sequence of
+	 * VarInt length prefixed packets (each compressed as usual), held back
+	 * until flush or until the frame reaches this size
+	 */
+	public static final int BATCH_FLUSH_THRESHOLD = 0x4000;
+
+	protected boolean batchingEnabled;
+	private FriendlyByteBuf batchBuffer = null;
+
+	protected static class QueuedPacket {
+
+		protected final PacketCodecTable codecs;
+		protected final int pktId;
+		protected final ByteBuf buffer;
+		protected final FriendlyByteBuf input;
+		protected final int frameId;
+		protected final int frameLength;
+		protected final boolean barrier;
+		protected final boolean priority;
+
+		protected QueuedPacket(PacketCodecTable codecs, int pktId, ByteBuf buffer, FriendlyByteBuf input, int frameId, int frameLength, boolean barrier, boolean priority) {
+			this.codecs = codecs;
+			this.pktId = pktId;
+			this.buffer = buffer;
+			this.input = input;
+			this.frameId = frameId;
+			this.frameLength = frameLength;
+			this.barrier = barrier;
+			this.priority = priority;
+		}
+
+	}
+
 	public WebSocketNetworkManager(IWebSocketClient webSocketClient) {
 		super(webSocketClient.getCurrentURI());
 		this.webSocketClient = webSocketClient;
+		this.batchingEnabled = ConnectionHandshake.batchingAccepted;
 	}
 
 	public void connect() {
@@ -54,7 +113,30 @@ public class WebSocketNetworkManager extends EaglercraftNetworkManager {
 		clientDisconnected = true;
 	}
 
+	public void setPacketBudgetMillis(int millis) {
+		packetBudgetNanos = millis * 1000000l;
+	}
+
+	public int getPacketBudgetMillis() {
+		return (int)(packetBudgetNanos / 1000000l);
+	}
+
+	public int getQueuedPacketCount() {
+		return receivedFrames.size() + orderedQueue.size() + bulkQueue.size();
+	}
+
+	/**
+	 * Processes received packets until this call's budget is used up, the
+	 * rest carry over to the next call. Keep-alives and entity movement may
+	 * overtake queued chunk and light data and are handled regardless of the
+	 * budget so a burst of chunk data can't make the client time out or rubber
+	 * band, they are never reordered against any other packet
+	 */
 	public void processReceivedPackets() throws IOException {
+		processReceivedPackets(EagRuntime.nanoTime() + packetBudgetNanos);
+	}
+
+	public void processReceivedPackets(long timeout) throws IOException {
 		if(nethandler == null) return;
 		if(webSocketClient.availableStringFrames() > 0) {
 			logger.warn("discarding {} string frames recieved on a binary connection", webSocketClient.availableStringFrames());
@@ -62,36 +144,38 @@ public class WebSocketNetworkManager extends EaglercraftNetworkManager {
 		}
 		List<IWebSocketFrame> pkts = webSocketClient.getNextBinaryFrames();
 
-		if(pkts == null) {
-			return;
+		if(pkts != null) {
+			receivedFrames.addAll(pkts);
 		}
 
-		for(int i = 0, l = pkts.size(); i < l; ++i) {
-			IWebSocketFrame next = pkts.get(i);
-			++debugPacketCounter;
+		while(nethandler != null) {
+			decodeReceivedFrames();
+			QueuedPacket next = orderedQueue.peek();
+			QueuedPacket bulk = bulkQueue.peek();
+			if(next != null && next.priority) {
+				orderedQueue.poll();
+			}else if((next != null || bulk != null) && EagRuntime.nanoTime() < timeout) {
+				if(next == null || (bulk != null && bulk.frameId < next.frameId)) {
+					next = bulkQueue.poll();
+				}else {
+					orderedQueue.poll();
+				}
+			}else {
+				break;
+			}
+			if(next.barrier) {
+				barrierQueued = false;
+			}
 			try {
-				byte[] asByteArray = next.getByteArray();
-				ByteBuf nettyBuffer = Unpooled.buffer(asByteArray, asByteArray.length);
-				nettyBuffer.writerIndex(asByteArray.length);
-				FriendlyByteBuf input = new FriendlyByteBuf(nettyBuffer);
-				int pktId = input.readVarIntFromBuffer();
-				
+				long start = EagRuntime.nanoTime();
 				Packet pkt;
 				try {
-					pkt = packetState.getPacket(PacketFlow.CLIENTBOUND, pktId);
-				}catch(IllegalAccessException | InstantiationException ex) {
-					throw new IOException("Recieved a packet with type " + pktId + " which is invalid!");
+					pkt = next.codecs.decode(next.pktId, next.input);
+				}finally {
+					PooledByteBufAllocator.release(next.buffer);
 				}
 				
-				if(pkt == null) {
-					throw new IOException("Recieved packet type " + pktId + " which is undefined in state " + packetState);
-				}
-				
-				try {
-					pkt.readPacketData(input);
-				}catch(Throwable t) {
-					throw new IOException("Failed to read packet type '" + pkt.getClass().getSimpleName() + "'", t);
-				}
+				long decoded = EagRuntime.nanoTime();
 				
 				try {
 					pkt.processPacket(nethandler);
@@ -100,13 +184,86 @@ public class WebSocketNetworkManager extends EaglercraftNetworkManager {
 					logger.error(t);
 				}
 				
+				PacketStatistics.client.record(PacketStatistics.INBOUND, pkt.getClass(), next.frameLength, decoded - start, EagRuntime.nanoTime() - decoded);
+				
 			}catch(Throwable t) {
-				logger.error("Failed to process websocket frame {}! It'll be skipped for debug purposes.", debugPacketCounter);
+				logger.error("Failed to process websocket frame {}! It'll be skipped for debug purposes.", next.frameId);
 				logger.error(t);
 			}
 		}
 	}
 
+	/**
+	 * Moves received frames into the two lanes, chunk and light data go in
+	 * the bulk lane and everything else stays in order. Decoding stops after a
+	 * packet that can change the protocol state or the world, the frames
+	 * behind it are only looked at once it has been processed
+	 */
+	protected void decodeReceivedFrames() {
+		while(!barrierQueued && !receivedFrames.isEmpty()) {
+			IWebSocketFrame next = receivedFrames.poll();
+			int frameId = ++debugPacketCounter;
+			ByteBuf nettyBuffer = null;
+			try {
+				byte[] asByteArray = next.getByteArray();
+				nettyBuffer = Unpooled.buffer(asByteArray, asByteArray.length);
+				nettyBuffer.writerIndex(asByteArray.length);
+				if(compressionThreshold >= 0) {
+					nettyBuffer = decompressFrame(asByteArray, nettyBuffer);
+				}
+				FriendlyByteBuf input = new FriendlyByteBuf(nettyBuffer);
+				int pktId = input.readVarIntFromBuffer();
+				
+				// only the type is looked up here, the body is decoded when it is processed
+				PacketCodecTable codecs = getInboundCodecs();
+				PacketType<?> type = codecs.getType(pktId);
+				
+				if(type == null) {
+					throw new IOException("Recieved packet type " + pktId + " which is undefined in state " + packetState);
+				}
+				
+				if(packetState != ConnectionProtocol.PLAY || isBarrierPacket(type)) {
+					barrierQueued = true;
+					orderedQueue.add(new QueuedPacket(codecs, pktId, nettyBuffer, input, frameId, asByteArray.length, true, false));
+				}else if(isBulkPacket(type)) {
+					bulkQueue.add(new QueuedPacket(codecs, pktId, nettyBuffer, input, frameId, asByteArray.length, false, false));
+				}else {
+					orderedQueue.add(new QueuedPacket(codecs, pktId, nettyBuffer, input, frameId, asByteArray.length, false, isPriorityPacket(type)));
+				}
+			}catch(Throwable t) {
+				if(nettyBuffer != null) {
+					PooledByteBufAllocator.release(nettyBuffer);
+				}
+				logger.error("Failed to process websocket frame {}! It'll be skipped for debug purposes.", frameId);
+				logger.error(t);
+			}
+		}
+	}
+
+	/**
+	 * Packets that don't depend on chunk data or block state and are safe to
+	 * handle ahead of the bulk lane, they still wait for every other packet
+	 * that arrived before them
+	 */
+	protected static boolean isPriorityPacket(PacketType<?> type) {
+		return type == CommonPacketTypes.CLIENTBOUND_KEEP_ALIVE || type == CommonPacketTypes.CLIENTBOUND_PING
+				|| type == GamePacketTypes.CLIENTBOUND_MOVE_ENTITY_POS || type == GamePacketTypes.CLIENTBOUND_MOVE_ENTITY_POS_ROT
+				|| type == GamePacketTypes.CLIENTBOUND_MOVE_ENTITY_ROT || type == GamePacketTypes.CLIENTBOUND_SET_ENTITY_MOTION
+				|| type == GamePacketTypes.CLIENTBOUND_TELEPORT_ENTITY || type == GamePacketTypes.CLIENTBOUND_ENTITY_POSITION_SYNC
+				|| type == GamePacketTypes.CLIENTBOUND_ROTATE_HEAD || type == GamePacketTypes.CLIENTBOUND_ANIMATE
+				|| type == GamePacketTypes.CLIENTBOUND_SET_TIME;
+	}
+
+	protected static boolean isBulkPacket(PacketType<?> type) {
+		return type == GamePacketTypes.CLIENTBOUND_LEVEL_CHUNK_WITH_LIGHT || type == GamePacketTypes.CLIENTBOUND_LIGHT_UPDATE
+				|| type == GamePacketTypes.CLIENTBOUND_SECTION_BLOCKS_UPDATE || type == GamePacketTypes.CLIENTBOUND_CHUNKS_BIOMES;
+	}
+
+	protected static boolean isBarrierPacket(PacketType<?> type) {
+		return type == GamePacketTypes.CLIENTBOUND_LOGIN || type == GamePacketTypes.CLIENTBOUND_RESPAWN
+				|| type == GamePacketTypes.CLIENTBOUND_START_CONFIGURATION;
+	}
+
 	public void sendPacket(Packet pkt) {
 		if(!isChannelOpen()) {
 			logger.error("Packet was sent on a closed connection: {}", pkt.getClass().getSimpleName());
@@ -121,6 +278,7 @@ public class WebSocketNetworkManager extends EaglercraftNetworkManager {
 			return;
 		}
 		
+		long start = EagRuntime.nanoTime();
 		temporaryBuffer.clear();
 		temporaryBuffer.writeVarIntToBuffer(i);
 		try {
@@ -131,16 +289,146 @@ public class WebSocketNetworkManager extends EaglercraftNetworkManager {
 		}
 		
 		int len = temporaryBuffer.writerIndex();
-		byte[] bytes = new byte[len];
-		temporaryBuffer.getBytes(0, bytes);
+		if(batchingEnabled && compressionThreshold < 0) {
+			PacketStatistics.client.record(PacketStatistics.OUTBOUND, pkt.getClass(), len, EagRuntime.nanoTime() - start, 0l);
+			batchFrame(temporaryBuffer.array(), len);
+			return;
+		}
+		byte[] bytes;
+		if(compressionThreshold >= 0) {
+			try {
+				bytes = compressFrame(len);
+			}catch(IOException ex) {
+				logger.error("Failed to compress packet {}!", pkt.getClass().getSimpleName());
+				logger.error(ex);
+				return;
+			}
+		}else {
+			bytes = new byte[len];
+			temporaryBuffer.getBytes(0, bytes);
+		}
 		
-		webSocketClient.send(bytes);
+		PacketStatistics.client.record(PacketStatistics.OUTBOUND, pkt.getClass(), bytes.length, EagRuntime.nanoTime() - start, 0l);
+		if(batchingEnabled) {
+			batchFrame(bytes, bytes.length);
+		}else {
+			webSocketClient.send(bytes);
+		}
+	}
+
+	protected void batchFrame(byte[] data, int len) {
+		if(batchBuffer == null) {
+			batchBuffer = new FriendlyByteBuf(Unpooled.buffer(BATCH_FLUSH_THRESHOLD + 0x1000));
+		}
+		batchBuffer.writeVarIntToBuffer(len);
+		batchBuffer.writeBytes(data, 0, len);
+		if(batchBuffer.writerIndex() >= BATCH_FLUSH_THRESHOLD) {
+			flush();
+		}
+	}
+
+	@Override
+	public void flush() {
+		if(batchBuffer != null && batchBuffer.writerIndex() > 0) {
+			byte[] frame = new byte[batchBuffer.writerIndex()];
+			batchBuffer.getBytes(0, frame);
+			batchBuffer.clear();
+			if(isChannelOpen()) {
+				webSocketClient.send(frame);
+			}
+		}
+	}
+
+	public void setBatchingEnabled(boolean enable) {
+		if(!enable) {
+			flush();
+		}
+		batchingEnabled = enable;
+	}
+
+	public boolean isBatchingEnabled() {
+		return batchingEnabled;
+	}
+
+	@Override
+	public void setupCompression(int compressionThreshold) {
+		setCompressionTreshold(compressionThreshold);
+	}
+
+	@Override
+	public void setCompressionTreshold(int compressionTreshold) {
+		if(compressionTreshold != compressionThreshold) {
+			logger.info("Packet compression threshold is now {}", compressionTreshold);
+		}
+		compressionThreshold = compressionTreshold;
+		if(compressionTreshold < 0) {
+			compressBuffer = null;
+		}
+	}
+
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	/**
+	 * Frames are laid out like vanilla's compressed packets minus the outer
+	 * length prefix, a VarInt uncompressed length (0 if the payload was sent
+	 * as-is) followed by the zlib stream
+	 */
+	protected ByteBuf decompressFrame(byte[] frame, ByteBuf buf) throws IOException {
+		int dataLength = new FriendlyByteBuf(buf).readVarIntFromBuffer();
+		if(dataLength == 0) {
+			return buf;
+		}
+		if(dataLength < compressionThreshold) {
+			throw new IOException("Badly compressed packet - size of " + dataLength + " is below server threshold of " + compressionThreshold);
+		}
+		if(dataLength > MAX_UNCOMPRESSED_LENGTH) {
+			throw new IOException("Badly compressed packet - size of " + dataLength + " is larger than protocol maximum of " + MAX_UNCOMPRESSED_LENGTH);
+		}
+		// the packet may sit in a queue for a while, it is released once it has been read
+		PooledByteBuf ret = PooledByteBufAllocator.DEFAULT.buffer(dataLength);
+		int off = buf.readerIndex();
+		int r;
+		try {
+			r = EaglerZLIB.inflateFull(frame, off, frame.length - off, ret.array(), 0, dataLength);
+		}catch(IOException ex) {
+			ret.release();
+			throw ex;
+		}
+		if(r != dataLength) {
+			ret.release();
+			throw new IOException("Decompressed packet was " + r + " bytes but " + dataLength + " bytes were expected");
+		}
+		ret.writerIndex(dataLength);
+		return ret;
+	}
+
+	protected byte[] compressFrame(int len) throws IOException {
+		if(len < compressionThreshold) {
+			byte[] bytes = new byte[len + 1];
+			temporaryBuffer.getBytes(0, bytes, 1, len);
+			return bytes;
+		}
+		int bound = len + (len >> 10) + 64;
+		if(compressBuffer == null || compressBuffer.length < bound) {
+			compressBuffer = new byte[Math.max(bound, 0x10000)];
+		}
+		int off = 0;
+		int v = len;
+		while((v & 0xFFFFFF80) != 0) {
+			compressBuffer[off++] = (byte)((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		compressBuffer[off++] = (byte)v;
+		int cmpLen = EaglerZLIB.deflateFull(temporaryBuffer.array(), 0, len, compressBuffer, off, compressBuffer.length - off);
+		return Arrays.copyOf(compressBuffer, off + cmpLen);
 	}
 
 	public boolean checkDisconnected() {
 		if(webSocketClient.isClosed()) {
 			try {
-				processReceivedPackets(); // catch kick message
+				processReceivedPackets(Long.MAX_VALUE); // catch kick message
 			} catch (IOException e) {
 			}
 			doClientDisconnect(new Component("disconnect.endOfStream"));
@@ -17,9 +17,12 @@
 package net.lax1dude.eaglercraft.v1_8.socket.protocol.client;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import net.lax1dude.eaglercraft.v1_8.EagRuntime;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
@@ -30,6 +33,9 @@ import net.lax1dude.eaglercraft.v1_8.socket.protocol.GamePluginMessageConstants;
 import net.lax1dude.eaglercraft.v1_8.socket.protocol.GamePluginMessageProtocol;
 import net.lax1dude.eaglercraft.v1_8.socket.protocol.pkt.GameMessageHandler;
 import net.lax1dude.eaglercraft.v1_8.socket.protocol.pkt.GameMessagePacket;
+import net.lax1dude.eaglercraft.v1_8.socket.protocol.pkt.client.CPacketInstallSkinSPEAG;
+import net.lax1dude.eaglercraft.v1_8.socket.protocol.pkt.client.CPacketWebViewMessageEnV4EAG;
+import net.lax1dude.eaglercraft.v1_8.socket.protocol.pkt.client.CPacketWebViewMessageV4EAG;
 import net.lax1dude.eaglercraft.v1_8.sp.server.socket.protocol.ServerV3MessageHandler;
 import net.lax1dude.eaglercraft.v1_8.sp.server.socket.protocol.ServerV4MessageHandler;
 import net.minecraft.client.multiplayer.ClientPacketListener;
@@ -53,6 +59,38 @@ public class GameProtocolMessageController {
 	private final List<io.netty.buffer.ByteBuf> sendQueueV4;
 	private final boolean noDelay;
 
+	/**
+	 * Skin uploads and webview messages are sent through the bulk lane, which
+	 * only releases bulkBytesPerFlush bytes per flush after everything else.
+	 * The webview enable message goes through it too so it stays in order
+	 * with the messages. The lane is bypassed on noDelay connections
+	 */
+	public static final int LANE_DEFAULT = 0;
+	public static final int LANE_BULK = 1;
+
+	private static final Set<Class<? extends GameMessagePacket>> bulkPackets = new HashSet<>();
+
+	static {
+		bulkPackets.add(CPacketInstallSkinSPEAG.class);
+		bulkPackets.add(CPacketWebViewMessageEnV4EAG.class);
+		bulkPackets.add(CPacketWebViewMessageV4EAG.class);
+	}
+
+	private static class BulkMessage {
+
+		private final String channel;
+		private final io.netty.buffer.ByteBuf buffer;
+
+		private BulkMessage(String channel, io.netty.buffer.ByteBuf buffer) {
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+	}
+
+	private final ArrayDeque<BulkMessage> sendQueueBulk = new ArrayDeque<>();
+	private int bulkBytesPerFlush = 0x8000;
+
 	public GameProtocolMessageController(GamePluginMessageProtocol protocol, int sendDirection, GameMessageHandler handler,
 			IPluginMessageSendFunction sendCallback) {
 		this.protocol = protocol;
@@ -132,14 +170,61 @@ public class GameProtocolMessageController {
 			logger.warn("Packet {} was expected to be {} bytes but was serialized to {} bytes!",
 					packet.getClass().getSimpleName(), len, j);
 		}
-		if(sendQueueV4 != null && chan.equals(GamePluginMessageConstants.V4_CHANNEL)) {
+		// noDelay connections are never flushed, so nothing can be held back on them
+		if(!noDelay && getLane(packet) == LANE_BULK) {
+			sendQueueBulk.add(new BulkMessage(chan, buf));
+		}else if(sendQueueV4 != null && chan.equals(GamePluginMessageConstants.V4_CHANNEL)) {
 			sendQueueV4.add(buf);
 		}else {
 			sendFunction.sendPluginMessage(chan, buf);
 		}
 	}
 
+	public static int getLane(GameMessagePacket packet) {
+		return bulkPackets.contains(packet.getClass()) ? LANE_BULK : LANE_DEFAULT;
+	}
+
+	public void setBulkBytesPerFlush(int bytes) {
+		bulkBytesPerFlush = bytes;
+	}
+
+	public int getBulkBytesPerFlush() {
+		return bulkBytesPerFlush;
+	}
+
+	public int getQueuedBulkMessages() {
+		return sendQueueBulk.size();
+	}
+
+	/**
+	 * Releases bulk messages up to this flush's byte budget, always at least
+	 * one so a single big payload can't block the lane
+	 */
+	private void releaseBulk() {
+		int budget = bulkBytesPerFlush;
+		BulkMessage msg;
+		while((msg = sendQueueBulk.peek()) != null) {
+			int len = msg.buffer.readableBytes();
+			if(budget < len && budget != bulkBytesPerFlush) {
+				break;
+			}
+			sendQueueBulk.poll();
+			budget -= len;
+			if(sendQueueV4 != null && msg.channel.equals(GamePluginMessageConstants.V4_CHANNEL)) {
+				sendQueueV4.add(msg.buffer);
+			}else {
+				sendFunction.sendPluginMessage(msg.channel, msg.buffer);
+			}
+			if(budget <= 0) {
+				break;
+			}
+		}
+	}
+
 	public void flush() {
+		if(!sendQueueBulk.isEmpty()) {
+			releaseBulk();
+		}
 		if(sendQueueV4 != null) {
 			int queueLen = sendQueueV4.size();
 			io.netty.buffer.ByteBuf pkt;
@@ -37,6 +37,7 @@ import net.lax1dude.eaglercraft.v1_8.internal.PlatformApplication;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
 import net.lax1dude.eaglercraft.v1_8.profile.EaglerProfile;
+import net.lax1dude.eaglercraft.v1_8.socket.PacketStatistics;
 import net.lax1dude.eaglercraft.v1_8.sp.internal.ClientPlatformSingleplayer;
 import net.lax1dude.eaglercraft.v1_8.sp.ipc.*;
 import net.lax1dude.eaglercraft.v1_8.sp.lan.LANServerController;
@@ -88,6 +89,10 @@ public class SingleplayerServerController {
 	private static boolean isPaused = false;
 	private static List<String> integratedServerTPS = new ArrayList<>();
 	private static long integratedServerLastTPSUpdate = 0;
+	private static IPCPacket1EServerProfile integratedServerProfile = null;
+	private static long integratedServerProfileRequested = 0l;
+	private static boolean profilerState = false;
+	private static final PacketStatistics integratedServerPacketStats = new PacketStatistics();
 	public static final ClientIntegratedServerNetworkManager localPlayerNetworkManager = new ClientIntegratedServerNetworkManager(PLAYER_CHANNEL);
 	private static final List<String> openLANChannels = new ArrayList<>();
 
@@ -102,6 +107,7 @@ public class SingleplayerServerController {
 			issuesDetected.clear();
 			statusState = IntegratedServerState.WORLD_WORKER_BOOTING;
 			loggingState = true;
+			profilerState = false;
 			callFailed = false;
 			boolean singleThreadSupport = ClientPlatformSingleplayer.isSingleThreadModeSupported();
 			if(!singleThreadSupport && forceSingleThread) {
@@ -234,6 +240,7 @@ public class SingleplayerServerController {
 	public static void clearTPS() { 
 		integratedServerTPS.clear();
 		integratedServerLastTPSUpdate = 0l;
+		integratedServerProfile = null;
 	}
 
 	public static List<String> getTPS() {
@@ -244,6 +251,26 @@ public class SingleplayerServerController {
 		return EagRuntime.steadyTimeMillis() - integratedServerLastTPSUpdate;
 	}
 
+	/**
+	 * Keeps the integrated server profiler running, it is switched off again
+	 * a few seconds after the last call
+	 */
+	public static void requestServerProfile() {
+		integratedServerProfileRequested = EagRuntime.steadyTimeMillis();
+	}
+
+	public static IPCPacket1EServerProfile getServerProfile() {
+		return integratedServerProfile;
+	}
+
+	/**
+	 * Packet counters of the integrated server, only updated while the
+	 * profiler is kept running with requestServerProfile
+	 */
+	public static PacketStatistics getServerPacketStatistics() {
+		return integratedServerPacketStats;
+	}
+
 	public static boolean hangupEaglercraftServer() {
 		LANServerController.closeLAN();
 		if(isLevelRunning()) {
@@ -321,6 +348,15 @@ public class SingleplayerServerController {
 			}
 		}
 
+		boolean profilerWanted = isLevelRunning() && EagRuntime.steadyTimeMillis() - integratedServerProfileRequested < 3000l;
+		if(profilerState != profilerWanted) {
+			profilerState = profilerWanted;
+			sendIPCPacket(new IPCPacket1DEnableProfiler(profilerWanted));
+			if(!profilerWanted) {
+				integratedServerProfile = null;
+			}
+		}
+
 		if(ClientPlatformSingleplayer.isRunningSingleThreadMode()) {
 			ClientPlatformSingleplayer.updateSingleThreadMode();
 		}
@@ -454,6 +490,14 @@ public class SingleplayerServerController {
 			issuesDetected.add(pkt.issueID);
 			break;
 		}
+		case IPCPacket1EServerProfile.ID: {
+			integratedServerProfile = (IPCPacket1EServerProfile)ipc;
+			break;
+		}
+		case IPCPacket1FPacketStatistics.ID: {
+			((IPCPacket1FPacketStatistics)ipc).mergeInto(integratedServerPacketStats);
+			break;
+		}
 		default:
 			throw new RuntimeException("Unexpected IPC packet type recieved on client: " + ipc.id());
 		}
@@ -466,7 +510,7 @@ public class SingleplayerServerController {
 		}catch (IOException ex) {
 			throw new RuntimeException("Failed to serialize IPC packet", ex);
 		}
-		ClientPlatformSingleplayer.sendPacket(new IPCPacketData(IPC_CHANNEL, pkt));
+		ClientPlatformSingleplayer.sendPacket(new IPCPacketData(IPC_CHANNEL, pkt, true));
 	}
 	
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.sp.gui;
+
+import java.util.List;
+
+import net.lax1dude.eaglercraft.v1_8.HString;
+import net.lax1dude.eaglercraft.v1_8.sp.SingleplayerServerController;
+import net.lax1dude.eaglercraft.v1_8.sp.ipc.IPCPacket1EServerProfile;
+import net.minecraft.ChatFormatting;
+
+/**
+ * Integrated server profiler section of the F3 overlay, shown together with
+ * the client profiler chart (F3+1)
+ */
+public class GuiServerProfilerOverlay {
+
+	private static final String[] PHASE_SHORT_NAMES = new String[] { "E", "BE", "C", "L", "IO", "N", "O" };
+
+	public static void addDebugLines(List<String> list) {
+		SingleplayerServerController.requestServerProfile();
+		list.add("");
+		list.add(ChatFormatting.UNDERLINE + "Integrated Server");
+		IPCPacket1EServerProfile profile = SingleplayerServerController.getServerProfile();
+		if(profile == null) {
+			list.add("Waiting for profiler data...");
+			return;
+		}
+		list.add(HString.format("TPS: %d, MSPT: %.1f ms", profile.tickCount, profile.tickAvgMillis));
+		list.add(HString.format("p50: %.1f p90: %.1f p99: %.1f max: %.1f", profile.tickP50Millis, profile.tickP90Millis,
+				profile.tickP99Millis, profile.tickMaxMillis));
+		int total = 0;
+		for(int i = 0; i < IPCPacket1EServerProfile.PHASE_COUNT; ++i) {
+			total += profile.phaseMicros[i];
+		}
+		int ticks = Math.max(profile.tickCount, 1);
+		for(int i = 0; i < IPCPacket1EServerProfile.PHASE_COUNT; ++i) {
+			int us = profile.phaseMicros[i];
+			list.add(HString.format("%s: %.2f ms/t (%d%%)", IPCPacket1EServerProfile.PHASE_NAMES[i], us * 0.001f / ticks,
+					total > 0 ? (int)(us * 100l / total) : 0));
+		}
+		for(int i = 0, l = profile.dimensions.size(); i < l; ++i) {
+			IPCPacket1EServerProfile.DimensionProfile dim = profile.dimensions.get(i);
+			StringBuilder sb = new StringBuilder();
+			sb.append(dim.name).append(':');
+			for(int j = 0; j < IPCPacket1EServerProfile.PHASE_COUNT; ++j) {
+				int us = dim.phaseMicros[j];
+				if(us > 0) {
+					sb.append(' ').append(PHASE_SHORT_NAMES[j]).append(' ').append(HString.format("%.1f", us * 0.001f / ticks));
+				}
+			}
+			list.add(sb.toString());
+		}
+	}
+
+}
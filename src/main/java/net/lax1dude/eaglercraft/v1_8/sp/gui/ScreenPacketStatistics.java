@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+package net.lax1dude.eaglercraft.v1_8.sp.gui;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+import net.lax1dude.eaglercraft.v1_8.HString;
+import net.lax1dude.eaglercraft.v1_8.socket.PacketStatistics;
+import net.lax1dude.eaglercraft.v1_8.sp.SingleplayerServerController;
+import net.minecraft.client.gui.components.Button;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.client.resources.language.I18n;
+
+/**
+ * Per packet type network statistics (F3+J), the integrated server's numbers
+ * are only collected while this screen is requesting them
+ */
+public class ScreenPacketStatistics extends Screen {
+
+	private static final int MAX_ROWS = 12;
+
+	private final Screen parent;
+	private boolean showServer = false;
+	private Button sideButton;
+
+	public ScreenPacketStatistics(Screen parent) {
+		this.parent = parent;
+	}
+
+	private PacketStatistics getStats() {
+		return showServer ? SingleplayerServerController.getServerPacketStatistics() : PacketStatistics.client;
+	}
+
+	public void initGui() {
+		this.buttonList.clear();
+		int y = this.height - 52;
+		this.buttonList.add(sideButton = new Button(1, this.width / 2 - 154, y, 100, 20, getSideString()));
+		this.buttonList.add(new Button(2, this.width / 2 - 50, y, 100, 20, "Reset"));
+		this.buttonList.add(new Button(3, this.width / 2 + 54, y, 48, 20, "CSV"));
+		this.buttonList.add(new Button(4, this.width / 2 + 106, y, 48, 20, "JSON"));
+		this.buttonList.add(new Button(0, this.width / 2 - 100, y + 24, I18n.get("gui.done")));
+		sideButton.enabled = SingleplayerServerController.isLevelRunning();
+	}
+
+	private String getSideString() {
+		return showServer ? "Integrated Server" : "Client";
+	}
+
+	public void updateScreen() {
+		if(showServer) {
+			SingleplayerServerController.requestServerProfile();
+		}
+	}
+
+	public void drawScreen(int mx, int my, float partialTicks) {
+		this.drawDefaultBackground();
+		PacketStatistics stats = getStats();
+		long duration = Math.max(stats.getDuration(), 1l);
+		this.drawCenteredString(fontRendererObj, "Packet Statistics - " + getSideString() + HString.format(" (%.1fs)", duration * 0.001f),
+				this.width / 2, 10, 16777215);
+		int y = 26;
+		y = drawDirection(stats, PacketStatistics.INBOUND, "Inbound", duration, y);
+		drawDirection(stats, PacketStatistics.OUTBOUND, "Outbound", duration, y + 6);
+		super.drawScreen(mx, my, partialTicks);
+	}
+
+	private int drawDirection(PacketStatistics stats, int direction, String title, long duration, int y) {
+		List<PacketStatistics.Entry> entries = stats.getEntries(direction);
+		long totalBytes = 0l;
+		for(int i = 0, l = entries.size(); i < l; ++i) {
+			totalBytes += entries.get(i).bytes;
+		}
+		int x = this.width / 2 - 154;
+		this.drawString(fontRendererObj, HString.format("%s: %.1f KiB/s", title, totalBytes * 1000.0f / 1024.0f / duration), x, y, 16777045);
+		y += 10;
+		this.drawString(fontRendererObj, "packet", x, y, 11184810);
+		this.drawString(fontRendererObj, "count", x + 160, y, 11184810);
+		this.drawString(fontRendererObj, "bytes", x + 200, y, 11184810);
+		this.drawString(fontRendererObj, "codec", x + 244, y, 11184810);
+		this.drawString(fontRendererObj, "handler", x + 280, y, 11184810);
+		y += 10;
+		for(int i = 0, l = Math.min(entries.size(), MAX_ROWS); i < l; ++i) {
+			PacketStatistics.Entry e = entries.get(i);
+			String name = e.name;
+			if(name.length() > 28) {
+				name = name.substring(0, 27) + "~";
+			}
+			this.drawString(fontRendererObj, name, x, y, 14737632);
+			this.drawString(fontRendererObj, "" + e.count, x + 160, y, 14737632);
+			this.drawString(fontRendererObj, formatBytes(e.bytes), x + 200, y, 14737632);
+			this.drawString(fontRendererObj, HString.format("%.1f", e.codecNanos * 0.000001f), x + 244, y, 14737632);
+			this.drawString(fontRendererObj, HString.format("%.1f", e.handlerNanos * 0.000001f), x + 280, y, 14737632);
+			y += 9;
+		}
+		return y;
+	}
+
+	private static String formatBytes(long bytes) {
+		if(bytes < 10240l) {
+			return "" + bytes;
+		}else if(bytes < 10485760l) {
+			return (bytes >> 10) + "K";
+		}else {
+			return (bytes >> 20) + "M";
+		}
+	}
+
+	protected void actionPerformed(Button par1Button) {
+		if(par1Button.id == 0) {
+			this.minecraft.displayScreen(parent);
+		}else if(par1Button.id == 1) {
+			showServer = !showServer;
+			sideButton.displayString = getSideString();
+		}else if(par1Button.id == 2) {
+			getStats().reset();
+		}else if(par1Button.id == 3) {
+			EagRuntime.downloadFileWithName(showServer ? "server-packet-stats.csv" : "packet-stats.csv",
+					getStats().exportCSV().getBytes(StandardCharsets.UTF_8));
+		}else if(par1Button.id == 4) {
+			EagRuntime.downloadFileWithName(showServer ? "server-packet-stats.json" : "packet-stats.json",
+					getStats().exportJSON().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+}
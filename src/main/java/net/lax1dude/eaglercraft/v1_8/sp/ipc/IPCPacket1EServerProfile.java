@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.sp.ipc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One second of integrated server profiler data, all phase times are in
+ * microseconds summed over every tick in the window
+ */
+public class IPCPacket1EServerProfile implements IPCPacketBase {
+
+	public static final int ID = 0x1E;
+
+	public static final int PHASE_ENTITIES = 0;
+	public static final int PHASE_BLOCK_ENTITIES = 1;
+	public static final int PHASE_CHUNK_TICK = 2;
+	public static final int PHASE_LIGHTING = 3;
+	public static final int PHASE_CHUNK_IO = 4;
+	public static final int PHASE_NETWORK = 5;
+	public static final int PHASE_OTHER = 6;
+	public static final int PHASE_COUNT = 7;
+
+	public static final String[] PHASE_NAMES = new String[] { "Entities", "Block Entities", "Chunk Tick", "Lighting",
+			"Chunk I/O", "Network", "Other" };
+
+	public static class DimensionProfile {
+
+		public final String name;
+		public final int[] phaseMicros;
+
+		public DimensionProfile(String name, int[] phaseMicros) {
+			this.name = name;
+			this.phaseMicros = phaseMicros;
+		}
+
+	}
+
+	public int tickCount;
+	public float tickAvgMillis;
+	public float tickP50Millis;
+	public float tickP90Millis;
+	public float tickP99Millis;
+	public float tickMaxMillis;
+	public final int[] phaseMicros = new int[PHASE_COUNT];
+	public final List<DimensionProfile> dimensions = new ArrayList<>();
+
+	public IPCPacket1EServerProfile() {
+	}
+
+	@Override
+	public void deserialize(DataInput bin) throws IOException {
+		tickCount = bin.readInt();
+		tickAvgMillis = bin.readFloat();
+		tickP50Millis = bin.readFloat();
+		tickP90Millis = bin.readFloat();
+		tickP99Millis = bin.readFloat();
+		tickMaxMillis = bin.readFloat();
+		for(int i = 0; i < PHASE_COUNT; ++i) {
+			phaseMicros[i] = bin.readInt();
+		}
+		dimensions.clear();
+		int cnt = bin.readUnsignedByte();
+		for(int i = 0; i < cnt; ++i) {
+			String name = bin.readUTF();
+			int[] micros = new int[PHASE_COUNT];
+			for(int j = 0; j < PHASE_COUNT; ++j) {
+				micros[j] = bin.readInt();
+			}
+			dimensions.add(new DimensionProfile(name, micros));
+		}
+	}
+
+	@Override
+	public void serialize(DataOutput bin) throws IOException {
+		bin.writeInt(tickCount);
+		bin.writeFloat(tickAvgMillis);
+		bin.writeFloat(tickP50Millis);
+		bin.writeFloat(tickP90Millis);
+		bin.writeFloat(tickP99Millis);
+		bin.writeFloat(tickMaxMillis);
+		for(int i = 0; i < PHASE_COUNT; ++i) {
+			bin.writeInt(phaseMicros[i]);
+		}
+		int cnt = dimensions.size();
+		bin.writeByte(cnt);
+		for(int i = 0; i < cnt; ++i) {
+			DimensionProfile dim = dimensions.get(i);
+			bin.writeUTF(dim.name);
+			for(int j = 0; j < PHASE_COUNT; ++j) {
+				bin.writeInt(dim.phaseMicros[j]);
+			}
+		}
+	}
+
+	@Override
+	public int id() {
+		return ID;
+	}
+
+	@Override
+	public int size() {
+		int len = 25 + PHASE_COUNT * 4;
+		for(int i = 0, l = dimensions.size(); i < l; ++i) {
+			len += IPCPacketBase.strLen(dimensions.get(i).name) + PHASE_COUNT * 4;
+		}
+		return len;
+	}
+
+}
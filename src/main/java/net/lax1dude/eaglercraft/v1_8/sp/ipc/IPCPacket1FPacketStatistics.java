@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.sp.ipc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.lax1dude.eaglercraft.v1_8.socket.PacketStatistics;
+
+/**
+ * Packet counters the integrated server collected since the last report and
+ * how long it was collecting them, the client adds them onto its own copy.
+ * Times are in microseconds
+ */
+public class IPCPacket1FPacketStatistics implements IPCPacketBase {
+
+	public static final int ID = 0x1F;
+
+	public static class PacketTypeStats {
+
+		public final int direction;
+		public final String name;
+		public final int count;
+		public final long bytes;
+		public final int codecMicros;
+		public final int handlerMicros;
+
+		public PacketTypeStats(int direction, String name, int count, long bytes, int codecMicros, int handlerMicros) {
+			this.direction = direction;
+			this.name = name;
+			this.count = count;
+			this.bytes = bytes;
+			this.codecMicros = codecMicros;
+			this.handlerMicros = handlerMicros;
+		}
+
+	}
+
+	public final List<PacketTypeStats> stats = new ArrayList<>();
+	public int durationMillis;
+
+	public IPCPacket1FPacketStatistics() {
+	}
+
+	/**
+	 * Takes everything recorded so far and resets the counters
+	 */
+	public IPCPacket1FPacketStatistics(PacketStatistics source) {
+		durationMillis = (int)source.getDuration();
+		for(int i = 0; i < 2; ++i) {
+			List<PacketStatistics.Entry> lst = source.getEntries(i);
+			for(int j = 0, l = lst.size(); j < l; ++j) {
+				PacketStatistics.Entry e = lst.get(j);
+				stats.add(new PacketTypeStats(i, e.name, e.count, e.bytes, (int)(e.codecNanos / 1000l),
+						(int)(e.handlerNanos / 1000l)));
+			}
+		}
+		source.reset();
+	}
+
+	public void mergeInto(PacketStatistics target) {
+		target.mergeDuration(durationMillis);
+		for(int i = 0, l = stats.size(); i < l; ++i) {
+			PacketTypeStats s = stats.get(i);
+			target.merge(s.direction, s.name, s.count, s.bytes, s.codecMicros * 1000l, s.handlerMicros * 1000l);
+		}
+	}
+
+	@Override
+	public void deserialize(DataInput bin) throws IOException {
+		stats.clear();
+		durationMillis = bin.readInt();
+		int cnt = bin.readUnsignedShort();
+		for(int i = 0; i < cnt; ++i) {
+			stats.add(new PacketTypeStats(bin.readUnsignedByte(), bin.readUTF(), bin.readInt(), bin.readLong(),
+					bin.readInt(), bin.readInt()));
+		}
+	}
+
+	@Override
+	public void serialize(DataOutput bin) throws IOException {
+		bin.writeInt(durationMillis);
+		int cnt = stats.size();
+		bin.writeShort(cnt);
+		for(int i = 0; i < cnt; ++i) {
+			PacketTypeStats s = stats.get(i);
+			bin.writeByte(s.direction);
+			bin.writeUTF(s.name);
+			bin.writeInt(s.count);
+			bin.writeLong(s.bytes);
+			bin.writeInt(s.codecMicros);
+			bin.writeInt(s.handlerMicros);
+		}
+	}
+
+	@Override
+	public int id() {
+		return ID;
+	}
+
+	@Override
+	public int size() {
+		int len = 6;
+		for(int i = 0, l = stats.size(); i < l; ++i) {
+			len += 21 + IPCPacketBase.strLen(stats.get(i).name);
+		}
+		return len;
+	}
+
+}
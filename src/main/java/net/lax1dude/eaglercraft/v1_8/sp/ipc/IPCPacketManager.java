@@ -61,6 +61,9 @@ public class IPCPacketManager {
 		mappings.put(IPCPacket1ALoggerMessage.ID, IPCPacket1ALoggerMessage::new);
 		mappings.put(IPCPacket1BEnableLogging.ID, IPCPacket1BEnableLogging::new);
 		mappings.put(IPCPacket1CIssueDetected.ID, IPCPacket1CIssueDetected::new);
+		mappings.put(IPCPacket1DEnableProfiler.ID, IPCPacket1DEnableProfiler::new);
+		mappings.put(IPCPacket1EServerProfile.ID, IPCPacket1EServerProfile::new);
+		mappings.put(IPCPacket1FPacketStatistics.ID, IPCPacket1FPacketStatistics::new);
 		mappings.put(IPCPacketFFProcessKeepAlive.ID, IPCPacketFFProcessKeepAlive::new);
 	}
 	
@@ -24,8 +24,12 @@ import net.lax1dude.eaglercraft.v1_8.internal.PlatformWebRTC;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
 import net.lax1dude.eaglercraft.v1_8.netty.ByteBuf;
+import net.lax1dude.eaglercraft.v1_8.netty.PooledByteBuf;
+import net.lax1dude.eaglercraft.v1_8.netty.PooledByteBufAllocator;
 import net.lax1dude.eaglercraft.v1_8.netty.Unpooled;
 import net.lax1dude.eaglercraft.v1_8.socket.EaglercraftNetworkManager;
+import net.lax1dude.eaglercraft.v1_8.socket.PacketStatistics;
+import net.lax1dude.eaglercraft.v1_8.sp.server.socket.IntegratedServerPlayerNetworkManager;
 import net.lax1dude.eaglercraft.v1_8.sp.relay.RelayServerSocket;
 import net.lax1dude.eaglercraft.v1_8.sp.relay.pkt.*;
 import net.minecraft.network.protocol.PacketFlow;
@@ -35,6 +39,7 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -46,6 +51,8 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 
 	public static final int fragmentSize = 0xFF00;
 
+	public static final int batchFlushThreshold = 0x4000;
+
 	private static final String[] initStateNames = new String[] { "PRE", "INIT", "SENT_ICE_CANDIDATE", "SENT_DESCRIPTION" };
 
 	public final String displayCode;
@@ -53,6 +60,9 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 
 	private boolean firstPacket = true;
 
+	private boolean batchingEnabled = false;
+	private FriendlyByteBuf batchBuffer = null;
+
 	private LANClientNetworkManager(String displayCode, String displayRelay) {
 		super("");
 		this.displayCode = displayCode;
@@ -255,6 +265,7 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 			return;
 		}
 
+		long start = EagRuntime.nanoTime();
 		temporaryBuffer.clear();
 		temporaryBuffer.writeVarIntToBuffer(i);
 		try {
@@ -265,6 +276,22 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 		}
 
 		int len = temporaryBuffer.readableBytes();
+		PacketStatistics.client.record(PacketStatistics.OUTBOUND, pkt.getClass(), len, EagRuntime.nanoTime() - start, 0l);
+		if(batchingEnabled) {
+			if(batchBuffer.writerIndex() + len + 5 <= fragmentSize) {
+				if(batchBuffer.writerIndex() == 0) {
+					batchBuffer.writeByte(IntegratedServerPlayerNetworkManager.FRAME_BATCH);
+				}
+				batchBuffer.writeVarIntToBuffer(len);
+				batchBuffer.writeBytes(temporaryBuffer.array(), 0, len);
+				if(batchBuffer.writerIndex() >= batchFlushThreshold) {
+					flush();
+				}
+				return;
+			}
+			// too big to batch, send what is queued first to keep the order
+			flush();
+		}
 		int fragmentSizeN1 = fragmentSize - 1;
 		if(len > fragmentSizeN1) {
 			do {
@@ -282,6 +309,18 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 		}
 	}
 
+	@Override
+	public void flush() {
+		if(batchBuffer != null && batchBuffer.writerIndex() > 0) {
+			byte[] frame = new byte[batchBuffer.writerIndex()];
+			batchBuffer.getBytes(0, frame);
+			batchBuffer.clear();
+			if(isChannelOpen()) {
+				PlatformWebRTC.clientLANSendPacket(frame);
+			}
+		}
+	}
+
 	@Override
 	public boolean isLocalChannel() {
 		return true;
@@ -319,13 +358,33 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 				}
 
 				byte[] fullData;
+				int fullDataLength = data.length;
+				PooledByteBuf pooledBuffer = null;
 				boolean compressed = false;
 				int off = 0;
+				int wireLength = data.length - 1;
 
 				if (data[0] == 0 || data[0] == 2) {
+					compressed = data[0] == 2;
 					if(fragmentedPacket.isEmpty()) {
 						fullData = data;
 						off = 1;
+					}else if(compressed) {
+						// inflate straight out of the fragments, the compressed
+						// packet is never put back together in one array
+						fragmentedPacket.add(data);
+						wireLength = 0;
+						for(int i = 0, l = fragmentedPacket.size(); i < l; ++i) {
+							wireLength += fragmentedPacket.get(i).length - 1;
+						}
+						try {
+							pooledBuffer = inflateFragments(fragmentedPacket);
+						}finally {
+							fragmentedPacket.clear();
+						}
+						fullData = pooledBuffer.array();
+						fullDataLength = pooledBuffer.writerIndex();
+						compressed = false;
 					}else {
 						fragmentedPacket.add(data);
 						int len = 0;
@@ -333,7 +392,10 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 						for(int i = 0; i < fragCount; ++i) {
 							len += fragmentedPacket.get(i).length - 1;
 						}
-						fullData = new byte[len];
+						wireLength = len;
+						pooledBuffer = PooledByteBufAllocator.DEFAULT.buffer(len);
+						fullData = pooledBuffer.array();
+						fullDataLength = len;
 						len = 0;
 						for(int i = 0; i < fragCount; ++i) {
 							byte[] f = fragmentedPacket.get(i);
@@ -342,24 +404,39 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 						}
 						fragmentedPacket.clear();
 					}
-					compressed = data[0] == 2;
 				} else if (data[0] == 1) {
 					fragmentedPacket.add(data);
 					continue;
+				} else if (data[0] == IntegratedServerPlayerNetworkManager.FRAME_CAPABILITIES) {
+					if(!batchingEnabled && data.length > 1 && (data[1] & IntegratedServerPlayerNetworkManager.CAPABILITY_BATCHING) != 0) {
+						logger.info("LAN host accepts packet batching");
+						batchBuffer = new FriendlyByteBuf(Unpooled.buffer(fragmentSize));
+						batchingEnabled = true;
+					}
+					continue;
 				} else {
 					logger.error("Recieved {} byte fragment of unknown type: {}", data.length, ((int)data[0] & 0xFF));
 					continue;
 				}
 
 				if(compressed) {
-					if(fullData.length < 4 + off) {
-						throw new IOException("Recieved invalid " + fullData.length + " byte compressed packet");
+					if(fullDataLength < 4 + off) {
+						throw new IOException("Recieved invalid " + fullDataLength + " byte compressed packet");
 					}
 					int i = (((int) fullData[off] & 0xFF) << 24) | (((int) fullData[off + 1] & 0xFF) << 16)
 							| (((int) fullData[off + 2] & 0xFF) << 8) | ((int) fullData[off + 3] & 0xFF);
-					byte[] fullData2 = new byte[i];
-					int r = EaglerZLIB.inflateFull(fullData, off + 4, fullData.length - off - 4, fullData2, 0, i);
-					fullData = fullData2;
+					PooledByteBuf inflated = PooledByteBufAllocator.DEFAULT.buffer(i);
+					int r;
+					try {
+						r = EaglerZLIB.inflateFull(fullData, off + 4, fullDataLength - off - 4, inflated.array(), 0, i);
+					}finally {
+						if(pooledBuffer != null) {
+							pooledBuffer.release();
+						}
+					}
+					pooledBuffer = inflated;
+					fullData = inflated.array();
+					fullDataLength = i;
 					off = 0;
 					if (i != r) {
 						logger.warn("Decompressed packet expected size {} differs from actual size {}!", i, r);
@@ -367,27 +444,22 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 				}
 
 				ByteBuf nettyBuffer = Unpooled.buffer(fullData, fullData.length);
-				nettyBuffer.writerIndex(fullData.length);
+				nettyBuffer.writerIndex(fullDataLength);
 				nettyBuffer.readerIndex(off);
 				FriendlyByteBuf input = new FriendlyByteBuf(nettyBuffer);
 				int pktId = input.readVarIntFromBuffer();
 
+				long start = EagRuntime.nanoTime();
 				Packet pkt;
 				try {
-					pkt = packetState.getPacket(PacketFlow.CLIENTBOUND, pktId);
-				}catch(IllegalAccessException | InstantiationException ex) {
-					throw new IOException("Recieved a packet with type " + pktId + " which is invalid!");
+					pkt = getInboundCodecs().decode(pktId, input);
+				}finally {
+					if(pooledBuffer != null) {
+						pooledBuffer.release();
+					}
 				}
 
-				if(pkt == null) {
-					throw new IOException("Recieved packet type " + pktId + " which is undefined in state " + packetState);
-				}
-
-				try {
-					pkt.readPacketData(input);
-				}catch(Throwable t) {
-					throw new IOException("Failed to read packet type '" + pkt.getClass().getSimpleName() + "'", t);
-				}
+				long decoded = EagRuntime.nanoTime();
 
 				try {
 					pkt.processPacket(nethandler);
@@ -395,10 +467,88 @@ public class LANClientNetworkManager extends EaglercraftNetworkManager {
 					logger.error("Failed to process {}! It'll be skipped for debug purposes.", pkt.getClass().getSimpleName());
 					logger.error(t);
 				}
+
+				PacketStatistics.client.record(PacketStatistics.INBOUND, pkt.getClass(), wireLength, decoded - start, EagRuntime.nanoTime() - decoded);
 			}
 		}
 	}
 
+	private static PooledByteBuf inflateFragments(List<byte[]> fragments) throws IOException {
+		byte[] first = fragments.get(0);
+		if(first.length < 5) {
+			throw new IOException("Recieved invalid " + first.length + " byte compressed fragment");
+		}
+		int len = (((int) first[1] & 0xFF) << 24) | (((int) first[2] & 0xFF) << 16)
+				| (((int) first[3] & 0xFF) << 8) | ((int) first[4] & 0xFF);
+		PooledByteBuf ret = PooledByteBufAllocator.DEFAULT.buffer(len);
+		try(InputStream is = EaglerZLIB.newInflaterInputStream(new FragmentInputStream(fragments, 5))) {
+			byte[] arr = ret.array();
+			int r = 0;
+			int i;
+			while(r < len && (i = is.read(arr, r, len - r)) != -1) {
+				r += i;
+			}
+			if (r != len) {
+				logger.warn("Decompressed packet expected size {} differs from actual size {}!", len, r);
+			}
+			ret.writerIndex(r);
+		}catch(IOException ex) {
+			ret.release();
+			throw ex;
+		}
+		return ret;
+	}
+
+	/**
+	 * Reads the payloads of a list of LAN fragments as one stream, skipping
+	 * over the frame type byte at the start of each one
+	 */
+	private static class FragmentInputStream extends InputStream {
+
+		private final List<byte[]> fragments;
+		private int index = 0;
+		private int pos;
+
+		private FragmentInputStream(List<byte[]> fragments, int pos) {
+			this.fragments = fragments;
+			this.pos = pos;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = current();
+			return b != null ? ((int)b[pos++] & 0xFF) : -1;
+		}
+
+		@Override
+		public int read(byte[] dst, int off, int len) throws IOException {
+			if(len == 0) {
+				return 0;
+			}
+			byte[] b = current();
+			if(b == null) {
+				return -1;
+			}
+			int n = Math.min(len, b.length - pos);
+			System.arraycopy(b, pos, dst, off, n);
+			pos += n;
+			return n;
+		}
+
+		private byte[] current() {
+			while(index < fragments.size()) {
+				byte[] b = fragments.get(index);
+				if(pos < b.length) {
+					return b;
+				}
+				++index;
+				pos = 1;
+			}
+			return null;
+		}
+
+	}
+
 	@Override
 	public void closeChannel(Component reason) {
 		if(!PlatformWebRTC.clientLANClosed()) {
@@ -18,10 +18,17 @@ package net.lax1dude.eaglercraft.v1_8.sp.server;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+import net.lax1dude.eaglercraft.v1_8.EaglerInputStream;
+import net.lax1dude.eaglercraft.v1_8.EaglerOutputStream;
+import net.lax1dude.eaglercraft.v1_8.internal.EaglerFilesystemBatch;
 import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
@@ -29,6 +36,7 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtIo;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.profiling.Profiler;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.chunk.ChunkAccess;
@@ -71,20 +79,41 @@ public class EaglerChunkLoader extends ChunkStorage {
 
 	public final VFile2 chunkDirectory;
 
+	private static final int MAX_PENDING_WRITES = 64;
+
+	private final Map<Long,byte[]> pendingWrites = new LinkedHashMap<>();
+
+	/**
+	 * Chunks waiting to be written, saving a chunk that is already queued
+	 * replaces its data but keeps its place in the queue
+	 */
+	private final Map<Long,CompoundTag> saveQueue = new LinkedHashMap<>();
+
+	private static final long SAVE_QUEUE_TICK_NANOS = 3000000l;
+	private static final int SAVE_QUEUE_SOFT_LIMIT = 256;
+	private static final int SAVE_QUEUE_HARD_LIMIT = 1024;
+
 	public EaglerChunkLoader(VFile2 chunkDirectory) {
 		this.chunkDirectory = chunkDirectory;
 	}
 
 	@Override
 	public CompletableFuture<ChunkAccess> loadChunk(ServerLevel level, ChunkPos pos) {
-		VFile2 file = LevelsDB.newVFile(chunkDirectory, getChunkPath(pos.x, pos.z) + ".dat");
-		if(!file.exists()) {
-			return CompletableFuture.completedFuture(null);
-		}
 		try {
-			CompoundTag nbt;
-			try(InputStream is = file.getInputStream()) {
-				nbt = NbtIo.readCompressed(is);
+			CompoundTag nbt = getQueuedSave(pos);
+			if(nbt == null) {
+				Profiler.get().push("chunkIO");
+				try {
+					nbt = readChunkData(pos);
+				}finally {
+					Profiler.get().pop();
+				}
+				if(nbt != null) {
+					++EaglerMinecraftServer.counterChunkRead;
+				}
+			}
+			if(nbt == null) {
+				return CompletableFuture.completedFuture(null);
 			}
 			return CompletableFuture.completedFuture(checkedReadChunkFromNBT(level, pos, nbt));
 		}catch(Throwable t) {
@@ -99,18 +128,123 @@ public class EaglerChunkLoader extends ChunkStorage {
 		chunk.save(level.registryAccess(), chunkData);
 		CompoundTag fileData = new CompoundTag();
 		fileData.put("Level", chunkData);
-		
-		return CompletableFuture.runAsync(() -> {
+		queueSave(chunk.getPos(), fileData);
+		return CompletableFuture.completedFuture(null);
+	}
+
+	protected synchronized void queueSave(ChunkPos pos, CompoundTag fileData) {
+		saveQueue.put(pos.toLong(), fileData);
+		if(saveQueue.size() > SAVE_QUEUE_HARD_LIMIT) {
+			// the tick drain is not keeping up, stall the caller until it has caught up
+			drainSaveQueue(Long.MAX_VALUE, SAVE_QUEUE_SOFT_LIMIT);
+		}
+	}
+
+	protected synchronized CompoundTag getQueuedSave(ChunkPos pos) {
+		CompoundTag tag = saveQueue.get(pos.toLong());
+		return tag != null ? tag.copy() : null;
+	}
+
+	public synchronized int getSaveQueueSize() {
+		return saveQueue.size();
+	}
+
+	/**
+	 * Writes queued chunks oldest first until either the time budget runs out
+	 * or no more than targetSize chunks are left, returns the number written.
+	 * Chunks that fail to write stay queued and are retried on the next drain
+	 */
+	protected synchronized int drainSaveQueue(long budgetNanos, int targetSize) {
+		if(saveQueue.size() <= targetSize) {
+			return 0;
+		}
+		long start = EagRuntime.nanoTime();
+		int cnt = 0;
+		Iterator<Entry<Long,CompoundTag>> itr = saveQueue.entrySet().iterator();
+		while(itr.hasNext() && saveQueue.size() > targetSize) {
+			Entry<Long,CompoundTag> etr = itr.next();
+			long l = etr.getKey();
 			try {
-				VFile2 file = LevelsDB.newVFile(chunkDirectory, 
-					getChunkPath(chunk.getPos().x, chunk.getPos().z) + ".dat");
-				try(OutputStream os = file.getOutputStream()) {
-					NbtIo.writeCompressed(fileData, os);
-				}
-			} catch (IOException e) {
-				logger.error("Failed to save chunk", e);
+				writeChunkData(new ChunkPos(ChunkPos.getX(l), ChunkPos.getZ(l)), etr.getValue());
+				itr.remove();
+				++EaglerMinecraftServer.counterChunkWrite;
+			}catch(Throwable t) {
+				logger.error("Failed to save chunk [{}, {}]", ChunkPos.getX(l), ChunkPos.getZ(l));
+				logger.error(t);
+			}
+			++cnt;
+			if(EagRuntime.nanoTime() - start >= budgetNanos) {
+				break;
+			}
+		}
+		flushPendingWrites();
+		return cnt;
+	}
+
+	protected void flushSaveQueue() {
+		drainSaveQueue(Long.MAX_VALUE, 0);
+	}
+
+	protected synchronized CompoundTag readChunkData(ChunkPos pos) throws IOException {
+		byte[] pending = pendingWrites.get(pos.toLong());
+		if(pending != null) {
+			return NbtIo.readCompressed(new EaglerInputStream(pending));
+		}
+		VFile2 file = LevelsDB.newVFile(chunkDirectory, getChunkPath(pos.x, pos.z) + ".dat");
+		if(!file.exists()) {
+			return null;
+		}
+		try(InputStream is = file.getInputStream()) {
+			return NbtIo.readCompressed(is);
+		}
+	}
+
+	protected synchronized void writeChunkData(ChunkPos pos, CompoundTag fileData) throws IOException {
+		EaglerOutputStream bao = new EaglerOutputStream(8192);
+		NbtIo.writeCompressed(fileData, bao);
+		pendingWrites.put(pos.toLong(), bao.toByteArray());
+		if(pendingWrites.size() >= MAX_PENDING_WRITES) {
+			flushPendingWrites();
+		}
+	}
+
+	protected synchronized void flushPendingWrites() {
+		if(pendingWrites.isEmpty()) {
+			return;
+		}
+		EaglerFilesystemBatch batch = chunkDirectory.beginBatch();
+		try {
+			for(Entry<Long,byte[]> etr : pendingWrites.entrySet()) {
+				long l = etr.getKey();
+				LevelsDB.newVFile(chunkDirectory, getChunkPath(ChunkPos.getX(l), ChunkPos.getZ(l)) + ".dat").setAllBytes(batch, etr.getValue());
 			}
-		});
+			batch.commit();
+			pendingWrites.clear();
+			return;
+		}catch(Throwable t) {
+			batch.discard();
+			logger.error("Failed to write {} chunks to \"{}\" in one batch, writing them one at a time", pendingWrites.size(), chunkDirectory.getPath());
+			logger.error(t);
+		}
+		// chunks that still can't be written stay queued and are retried on the next flush
+		Iterator<Entry<Long,byte[]>> itr = pendingWrites.entrySet().iterator();
+		while(itr.hasNext()) {
+			Entry<Long,byte[]> etr = itr.next();
+			long l = etr.getKey();
+			try {
+				LevelsDB.newVFile(chunkDirectory, getChunkPath(ChunkPos.getX(l), ChunkPos.getZ(l)) + ".dat").setAllBytes(etr.getValue());
+				itr.remove();
+			}catch(Throwable t) {
+				logger.error("Failed to write chunk [{}, {}]", ChunkPos.getX(l), ChunkPos.getZ(l));
+				logger.error(t);
+			}
+		}
+	}
+
+	@Override
+	public void flushWorker() {
+		flushSaveQueue();
+		flushPendingWrites();
 	}
 
 	@Override
@@ -121,12 +255,16 @@ public class EaglerChunkLoader extends ChunkStorage {
 
 	@Override
 	public void tick() {
-		// Process any pending chunk operations
+		// spend more of the tick on saving once the queue starts backing up
+		Profiler.get().push("chunkIO");
+		drainSaveQueue(getSaveQueueSize() > SAVE_QUEUE_SOFT_LIMIT ? SAVE_QUEUE_TICK_NANOS * 4l : SAVE_QUEUE_TICK_NANOS, 0);
+		Profiler.get().pop();
 	}
 
 	@Override
 	public void close() throws IOException {
-		// Clean up any resources
+		flushSaveQueue();
+		flushPendingWrites();
 	}
 
 	private ChunkAccess checkedReadChunkFromNBT(ServerLevel level, ChunkPos pos, CompoundTag nbt) {
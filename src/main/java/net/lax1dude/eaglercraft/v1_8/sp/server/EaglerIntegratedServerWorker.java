@@ -69,6 +69,7 @@ public class EaglerIntegratedServerWorker {
 
 	private static EaglerMinecraftServer currentProcess = null;
 	private static LevelSettings newLevelSettings = null;
+	private static boolean profilerEnabled = false;
 
 	public static final EaglerSaveFormat saveFormat = new EaglerSaveFormat(EaglerSaveFormat.worldsFolder);
 
@@ -415,6 +416,10 @@ public class EaglerIntegratedServerWorker {
 				enableLoggingRedirector(((IPCPacket1BEnableLogging)ipc).enable);
 				break;
 			}
+			case IPCPacket1DEnableProfiler.ID: {
+				profilerEnabled = ((IPCPacket1DEnableProfiler)ipc).enable;
+				break;
+			}
 			default: 
 				logger.error("IPC packet type 0x{} class \"{}\" was not handled", Integer.toHexString(id), ipc.getClass().getSimpleName());
 				sendTaskFailed();
@@ -437,6 +442,10 @@ public class EaglerIntegratedServerWorker {
 		} : null;
 	}
 
+	public static boolean isProfilerEnabled() {
+		return profilerEnabled;
+	}
+
 	public static void sendLogMessagePacket(String txt, boolean err) {
 		sendIPCPacket(new IPCPacket1ALoggerMessage(txt, err));
 	}
@@ -448,7 +457,7 @@ public class EaglerIntegratedServerWorker {
 		}catch (IOException ex) {
 			throw new RuntimeException("Failed to serialize IPC packet", ex);
 		}
-		ServerPlatformSingleplayer.sendPacket(new IPCPacketData(SingleplayerServerController.IPC_CHANNEL, pkt));
+		ServerPlatformSingleplayer.sendPacket(new IPCPacketData(SingleplayerServerController.IPC_CHANNEL, pkt, true));
 	}
 
 	public static void reportTPS(List<String> texts) {
@@ -25,12 +25,15 @@ import com.google.common.collect.Lists;
 import net.lax1dude.eaglercraft.v1_8.EagRuntime;
 import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
+import net.lax1dude.eaglercraft.v1_8.socket.PacketStatistics;
+import net.lax1dude.eaglercraft.v1_8.sp.ipc.IPCPacket1FPacketStatistics;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.SharedConstants;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.Difficulty;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.profiling.Profiler;
 import net.minecraft.world.level.LevelSettings;
 import net.minecraft.world.level.GameType; // MCP Reborn 1.21.4 package
 import net.lax1dude.eaglercraft.v1_8.sp.server.skins.IntegratedCapeService;
@@ -53,6 +56,7 @@ public class EaglerMinecraftServer extends MinecraftServer {
 	protected IntegratedVoiceService voiceService;
 
 	private long lastTPSUpdate = 0l;
+	private IntegratedServerProfiler profiler = null;
 
 	public static int counterTicksPerSecond = 0;
 	public static int counterChunkRead = 0;
@@ -67,6 +71,8 @@ public class EaglerMinecraftServer extends MinecraftServer {
 		super(world);
 		Bootstrap.register();
 		this.saveHandler = new EaglerSaveHandler(savesDir, world);
+		// new worlds start out as regions, existing ones are converted on load
+		this.saveHandler.setChunkFormat(EaglerSaveHandler.CHUNK_FORMAT_REGION);
 		this.skinService = new IntegratedSkinService(LevelsDB.newVFile(saveHandler.getLevelDirectory(), "eagler/skulls"));
 		this.capeService = new IntegratedCapeService();
 		this.voiceService = null;
@@ -159,17 +165,32 @@ public class EaglerMinecraftServer extends MinecraftServer {
 
 		if (this.worldServers[0].areAllPlayersAsleep()) {
 			this.currentTime = k;
-			this.tick();
+			this.profiledTick();
 			++counterTicksPerSecond;
 		} else {
 			if (j > 50L) {
 				this.currentTime += 50l;
-				this.tick();
+				this.profiledTick();
 				++counterTicksPerSecond;
 			}
 		}
 	}
 
+	private void profiledTick() {
+		if(EaglerIntegratedServerWorker.isProfilerEnabled()) {
+			if(profiler == null) {
+				profiler = new IntegratedServerProfiler();
+				PacketStatistics.integratedServer.reset();
+			}
+			try(Profiler.Scope scope = Profiler.use(profiler)) {
+				this.tick();
+			}
+		}else {
+			profiler = null;
+			this.tick();
+		}
+	}
+
 	public void updateTimeLightAndEntities() {
 		this.skinService.flushCache();
 		super.updateTimeLightAndEntities();
@@ -193,6 +214,10 @@ public class EaglerMinecraftServer extends MinecraftServer {
 				counterTicksPerSecond = counterChunkRead = counterChunkGenerate = 0;
 				counterChunkWrite = counterTileUpdate = counterLightUpdate = 0;
 				EaglerIntegratedServerWorker.reportTPS(lst);
+				if(profiler != null) {
+					EaglerIntegratedServerWorker.sendIPCPacket(profiler.createReport());
+					EaglerIntegratedServerWorker.sendIPCPacket(new IPCPacket1FPacketStatistics(PacketStatistics.integratedServer));
+				}
 			}
 		}
 	}
@@ -16,10 +16,16 @@
 
 package net.lax1dude.eaglercraft.v1_8.sp.server;
 
+import java.io.IOException;
+
+import net.lax1dude.eaglercraft.v1_8.EaglerOutputStream;
+import net.lax1dude.eaglercraft.v1_8.internal.EaglerFilesystemBatch;
+import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.players.PlayerList;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
 import net.minecraft.world.level.GameType; // MCP Reborn 1.21.4 package
 
 public class EaglerPlayerList extends PlayerList {
@@ -39,6 +45,29 @@ public class EaglerPlayerList extends PlayerList {
 		super.writePlayerData(par1ServerPlayer);
 	}
 	
+	public void saveAllPlayerData() {
+		EaglerMinecraftServer svr = (EaglerMinecraftServer)getServerInstance();
+		VFile2 playersDir = LevelsDB.newVFile(svr.saveHandler.getLevelDirectory(), "player");
+		EaglerFilesystemBatch batch = playersDir.beginBatch();
+		try {
+			for(ServerPlayer player : svr.func_181057_v()) {
+				CompoundTag playerNBT = new CompoundTag();
+				player.writeToNBT(playerNBT);
+				if (player.getName().equals(svr.getServerOwner())) {
+					this.hostPlayerNBT = playerNBT;
+				}
+				EaglerOutputStream bao = new EaglerOutputStream();
+				NbtIo.writeCompressed(playerNBT, bao);
+				LevelsDB.newVFile(playersDir, player.getName().toLowerCase() + ".dat").setAllBytes(batch, bao.toByteArray());
+			}
+			batch.commit();
+		}catch(IOException ex) {
+			batch.discard();
+			EaglerMinecraftServer.logger.error("Failed to save player data!");
+			EaglerMinecraftServer.logger.error(ex);
+		}
+	}
+
 	public CompoundTag getHostPlayerData() {
 		return this.hostPlayerNBT;
 	}
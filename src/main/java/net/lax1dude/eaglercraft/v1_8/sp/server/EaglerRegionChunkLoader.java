@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.sp.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.lax1dude.eaglercraft.v1_8.internal.EaglerFilesystemBatch;
+import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
+import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
+import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.ChunkPos;
+
+public class EaglerRegionChunkLoader extends EaglerChunkLoader {
+
+	private static final Logger logger = LogManager.getLogger("EaglerRegionChunkLoader");
+
+	public static final String REGION_EXT = ".eagr";
+
+	private static final int MAX_CACHED_REGIONS = 16;
+
+	public static String getRegionPath(int regionX, int regionZ) {
+		return getChunkPath(regionX, regionZ) + REGION_EXT;
+	}
+
+	private final Map<Long, EaglerRegionFile> regionCache = new LinkedHashMap<Long, EaglerRegionFile>(32, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, EaglerRegionFile> eldest) {
+			// a region that could not be written stays cached so its changes aren't lost
+			return size() > MAX_CACHED_REGIONS && flushRegion(eldest.getValue());
+		}
+	};
+
+	public EaglerRegionChunkLoader(VFile2 chunkDirectory) {
+		super(chunkDirectory);
+	}
+
+	@Override
+	protected synchronized CompoundTag readChunkData(ChunkPos pos) throws IOException {
+		EaglerRegionFile region = getRegion(pos.x >> 5, pos.z >> 5);
+		if(region.hasChunk(pos.x, pos.z)) {
+			return region.readChunk(pos.x, pos.z);
+		}
+		// chunk files that failed to convert are still read until they are rewritten
+		return super.readChunkData(pos);
+	}
+
+	@Override
+	protected synchronized void writeChunkData(ChunkPos pos, CompoundTag fileData) throws IOException {
+		getRegion(pos.x >> 5, pos.z >> 5).writeChunk(pos.x, pos.z, fileData);
+	}
+
+	@Override
+	public void flushWorker() {
+		flushSaveQueue();
+		flushAllRegions();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flushSaveQueue();
+		if(!flushAllRegions()) {
+			throw new IOException("Failed to write region files in: " + chunkDirectory.getPath());
+		}
+		synchronized(this) {
+			regionCache.clear();
+		}
+	}
+
+	/**
+	 * Writes every changed region in one batch, returns false if the batch
+	 * could not be committed in which case the regions are left dirty
+	 */
+	public synchronized boolean flushAllRegions() {
+		return commitRegions(chunkDirectory.beginBatch());
+	}
+
+	private boolean commitRegions(EaglerFilesystemBatch batch) {
+		List<EaglerRegionFile> flushed = new ArrayList<>();
+		Iterator<EaglerRegionFile> itr = regionCache.values().iterator();
+		while(itr.hasNext()) {
+			EaglerRegionFile region = itr.next();
+			if(region.flush(batch)) {
+				flushed.add(region);
+			}
+		}
+		try {
+			batch.commit();
+		}catch(Throwable t) {
+			logger.error("Failed to write region files in: {}", chunkDirectory.getPath());
+			logger.error(t);
+			return false;
+		}
+		for(int i = 0, l = flushed.size(); i < l; ++i) {
+			flushed.get(i).markFlushed();
+		}
+		return true;
+	}
+
+	private EaglerRegionFile getRegion(int regionX, int regionZ) {
+		Long key = ChunkPos.asLong(regionX, regionZ);
+		EaglerRegionFile region = regionCache.get(key);
+		if(region == null) {
+			region = new EaglerRegionFile(LevelsDB.newVFile(chunkDirectory, getRegionPath(regionX, regionZ)));
+			regionCache.put(key, region);
+		}
+		return region;
+	}
+
+	private static boolean flushRegion(EaglerRegionFile region) {
+		try {
+			region.flush();
+			return true;
+		}catch(Throwable t) {
+			logger.error("Failed to write region file: {}", region.file.getPath());
+			logger.error(t);
+			return false;
+		}
+	}
+
+	/**
+	 * Repacks any loose per-chunk .dat files left in the directory into regions,
+	 * used when an existing world is switched over to the region format. The
+	 * .dat files are deleted in the same batch that writes the regions, returns
+	 * the number of chunks converted or -1 if that batch failed
+	 */
+	public synchronized int convertLegacyChunks() {
+		List<VFile2> files = chunkDirectory.listFiles(false);
+		List<VFile2> converted = new ArrayList<>();
+		for(int i = 0, l = files.size(); i < l; ++i) {
+			VFile2 f = files.get(i);
+			String name = f.getName();
+			if(name.length() != 16 || !name.endsWith(".dat")) {
+				continue;
+			}
+			ChunkPos pos = getChunkCoords(name.substring(0, 12));
+			try {
+				CompoundTag tag = super.readChunkData(pos);
+				if(tag != null) {
+					getRegion(pos.x >> 5, pos.z >> 5).writeChunk(pos.x, pos.z, tag);
+					converted.add(f);
+				}
+			}catch(IOException ex) {
+				logger.error("Could not convert chunk file: {}", f.getPath());
+				logger.error(ex);
+			}
+		}
+		EaglerFilesystemBatch batch = chunkDirectory.beginBatch();
+		for(int i = 0, l = converted.size(); i < l; ++i) {
+			converted.get(i).delete(batch);
+		}
+		if(!commitRegions(batch)) {
+			logger.error("Kept {} chunk files in \"{}\" since the regions could not be written", converted.size(), chunkDirectory.getPath());
+			return -1;
+		}
+		if(!converted.isEmpty()) {
+			logger.info("Converted {} chunk files to regions in \"{}\"", converted.size(), chunkDirectory.getPath());
+		}
+		return converted.size();
+	}
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.sp.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import net.lax1dude.eaglercraft.v1_8.EaglerInputStream;
+import net.lax1dude.eaglercraft.v1_8.EaglerOutputStream;
+import net.lax1dude.eaglercraft.v1_8.EaglerZLIB;
+import net.lax1dude.eaglercraft.v1_8.internal.EaglerFilesystemBatch;
+import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+
+/**
+ * Packs a 32x32 area of chunks into a single filesystem record, the layout is
+ * a magic number and a 1024 entry offset table followed by sector aligned
+ * chunk payloads, each payload is prefixed with its length and compression
+ * type just like anvil so chunks can be rewritten in place when they fit
+ */
+public class EaglerRegionFile {
+
+	public static final int MAGIC = 0x45414752; // "EAGR"
+
+	public static final int SECTOR_SIZE = 1024;
+	public static final int HEADER_SECTORS = 5;
+
+	public static final int COMPRESSION_GZIP = 1;
+	public static final int COMPRESSION_DEFLATE = 2;
+	public static final int COMPRESSION_NONE = 3;
+
+	private static final int MAX_SECTOR_COUNT = 0xFFF;
+
+	public final VFile2 file;
+
+	private final int[] offsets = new int[1024];
+	private final BitSet usedSectors = new BitSet();
+	private byte[] data;
+	private int chunkCount = 0;
+	private boolean dirty = false;
+
+	public EaglerRegionFile(VFile2 file) {
+		this.file = file;
+		byte[] b = file.exists() ? file.getAllBytes() : null;
+		if(b != null && b.length >= HEADER_SECTORS * SECTOR_SIZE && readInt(b, 0) == MAGIC) {
+			data = b;
+			int totalSectors = b.length / SECTOR_SIZE;
+			for(int i = 0; i < 1024; ++i) {
+				int j = readInt(b, 4 + (i << 2));
+				int start = j >>> 12;
+				int cnt = j & MAX_SECTOR_COUNT;
+				if(j != 0 && start >= HEADER_SECTORS && start + cnt <= totalSectors) {
+					offsets[i] = j;
+					usedSectors.set(start, start + cnt);
+					++chunkCount;
+				}
+			}
+		}else {
+			data = new byte[HEADER_SECTORS * SECTOR_SIZE];
+			writeInt(data, 0, MAGIC);
+		}
+		usedSectors.set(0, HEADER_SECTORS);
+	}
+
+	public boolean hasChunk(int x, int z) {
+		return offsets[index(x, z)] != 0;
+	}
+
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	public int getDataSize() {
+		return usedSectors.length() * SECTOR_SIZE;
+	}
+
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	public CompoundTag readChunk(int x, int z) throws IOException {
+		int j = offsets[index(x, z)];
+		if(j == 0) {
+			return null;
+		}
+		int pos = (j >>> 12) * SECTOR_SIZE;
+		int len = readInt(data, pos);
+		if(len <= 0 || len + 4 > (j & MAX_SECTOR_COUNT) * SECTOR_SIZE) {
+			throw new IOException("Chunk " + x + ", " + z + " in region " + file.getPath() + " has an invalid length: " + len);
+		}
+		InputStream is = new EaglerInputStream(data, pos + 5, len - 1);
+		switch(data[pos + 4]) {
+		case COMPRESSION_GZIP:
+			is = EaglerZLIB.newGZIPInputStream(is);
+			break;
+		case COMPRESSION_DEFLATE:
+			is = EaglerZLIB.newInflaterInputStream(is);
+			break;
+		case COMPRESSION_NONE:
+			break;
+		default:
+			throw new IOException("Chunk " + x + ", " + z + " in region " + file.getPath() + " has unknown compression type: " + data[pos + 4]);
+		}
+		try(DataInputStream dis = new DataInputStream(is)) {
+			return NbtIo.read(dis);
+		}
+	}
+
+	public void writeChunk(int x, int z, CompoundTag tag) throws IOException {
+		EaglerOutputStream bao = new EaglerOutputStream(8192);
+		bao.skipBytes(4);
+		bao.write(COMPRESSION_DEFLATE);
+		try(DataOutputStream dos = new DataOutputStream(EaglerZLIB.newDeflaterOutputStream(bao))) {
+			NbtIo.write(tag, dos);
+		}
+		int len = bao.size();
+		int sectors = (len + SECTOR_SIZE - 1) / SECTOR_SIZE;
+		if(sectors > MAX_SECTOR_COUNT) {
+			throw new IOException("Chunk " + x + ", " + z + " is too large to fit in a region: " + len + " bytes");
+		}
+		byte[] b = bao.toByteArray();
+		writeInt(b, 0, len - 4);
+		int idx = index(x, z);
+		int j = offsets[idx];
+		int start;
+		if(j != 0 && (j & MAX_SECTOR_COUNT) >= sectors) {
+			start = j >>> 12;
+			usedSectors.clear(start + sectors, start + (j & MAX_SECTOR_COUNT));
+		}else {
+			if(j != 0) {
+				usedSectors.clear(j >>> 12, (j >>> 12) + (j & MAX_SECTOR_COUNT));
+			}else {
+				++chunkCount;
+			}
+			start = allocateSectors(sectors);
+		}
+		int end = (start + sectors) * SECTOR_SIZE;
+		if(data.length < end) {
+			data = Arrays.copyOf(data, Math.max(end, data.length + (data.length >> 1)));
+		}
+		System.arraycopy(b, 0, data, start * SECTOR_SIZE, len);
+		usedSectors.set(start, start + sectors);
+		setOffset(idx, (start << 12) | sectors);
+	}
+
+	public boolean deleteChunk(int x, int z) {
+		int idx = index(x, z);
+		int j = offsets[idx];
+		if(j == 0) {
+			return false;
+		}
+		usedSectors.clear(j >>> 12, (j >>> 12) + (j & MAX_SECTOR_COUNT));
+		setOffset(idx, 0);
+		--chunkCount;
+		return true;
+	}
+
+	public void flush() {
+		if(dirty) {
+			if(chunkCount == 0) {
+				if(file.exists()) {
+					file.delete();
+				}
+			}else {
+				file.setAllBytes(getTrimmedData());
+			}
+			dirty = false;
+		}
+	}
+
+	/**
+	 * Adds the region to the batch if it has changed, returns true if it did.
+	 * The region stays dirty until markFlushed is called after the batch has
+	 * been committed
+	 */
+	public boolean flush(EaglerFilesystemBatch batch) {
+		if(dirty) {
+			if(chunkCount == 0) {
+				file.delete(batch);
+			}else {
+				file.setAllBytes(batch, getTrimmedData());
+			}
+			return true;
+		}
+		return false;
+	}
+
+	public void markFlushed() {
+		dirty = false;
+	}
+
+	private byte[] getTrimmedData() {
+		int len = getDataSize();
+		return len == data.length ? data : Arrays.copyOf(data, len);
+	}
+
+	private int allocateSectors(int count) {
+		int i = HEADER_SECTORS;
+		while(true) {
+			i = usedSectors.nextClearBit(i);
+			int j = usedSectors.nextSetBit(i);
+			if(j == -1 || j - i >= count) {
+				return i;
+			}
+			i = j;
+		}
+	}
+
+	private void setOffset(int idx, int value) {
+		offsets[idx] = value;
+		writeInt(data, 4 + (idx << 2), value);
+		dirty = true;
+	}
+
+	private static int index(int x, int z) {
+		return (x & 31) | ((z & 31) << 5);
+	}
+
+	private static int readInt(byte[] b, int off) {
+		return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+	}
+
+	private static void writeInt(byte[] b, int off, int i) {
+		b[off] = (byte)(i >>> 24);
+		b[off + 1] = (byte)(i >>> 16);
+		b[off + 2] = (byte)(i >>> 8);
+		b[off + 3] = (byte)i;
+	}
+
+}
@@ -16,25 +16,96 @@
 
 package net.lax1dude.eaglercraft.v1_8.sp.server;
 
+import java.io.IOException;
+
+import net.lax1dude.eaglercraft.v1_8.EaglerOutputStream;
+import net.lax1dude.eaglercraft.v1_8.internal.EaglerFilesystemBatch;
 import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
+import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
+import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
 import net.minecraft.world.level.storage.LevelStorageSource; // Updated to new package name
 import net.minecraft.world.level.storage.LevelStorageSource.LevelStorageAccess; // Updated to new package name
 //import net.minecraft.world.level.storage.LevelStorageSource.LevelStorageAccess;
 import net.minecraft.world.level.storage.LevelData;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
 
+/**
+ * The chunk storage format is recorded per world in chunk_format.txt. New
+ * worlds are created with region files, worlds that still use one file per
+ * chunk are converted to regions by EaglerMinecraftServer the next time they
+ * are loaded, there is nothing to pick in the world options. Chunk files that
+ * fail to convert are kept and still read by the region loader
+ */
 public class EaglerSaveHandler extends net.minecraft.world.level.storage.LevelStorageSource {
 
+	private static final Logger logger = LogManager.getLogger("EaglerSaveHandler");
+
+	public static final String CHUNK_FORMAT_FILE = "chunk_format.txt";
+	public static final String CHUNK_FORMAT_LEGACY = "legacy";
+	public static final String CHUNK_FORMAT_REGION = "region";
+
 	public EaglerSaveHandler(VFile2 savesDirectory, String directoryName) {
 		super(savesDirectory, directoryName);
 	}
 
-	public net.minecraft.world.level.storage.LevelStorageSource.LevelStorageAccess getChunkLoader(net.minecraft.world.level.storage.LevelStorageSource.LevelStorageAccess provider) {
-		return new EaglerChunkLoader(LevelsDB.newVFile(this.getLevelDirectory(), "level" + provider.getDimensionId()));
+	public EaglerChunkLoader getChunkLoader(net.minecraft.world.level.storage.LevelStorageSource.LevelStorageAccess provider) {
+		VFile2 chunkDir = LevelsDB.newVFile(this.getLevelDirectory(), "level" + provider.getDimensionId());
+		if(CHUNK_FORMAT_REGION.equals(getChunkFormat())) {
+			return new EaglerRegionChunkLoader(chunkDir);
+		}else {
+			return new EaglerChunkLoader(chunkDir);
+		}
+	}
+
+	public String getChunkFormat() {
+		String[] fmt = LevelsDB.newVFile(this.getLevelDirectory(), CHUNK_FORMAT_FILE).getAllLines();
+		return (fmt != null && fmt.length > 0) ? fmt[0].trim() : CHUNK_FORMAT_LEGACY;
+	}
+
+	/**
+	 * Returns false if some chunks could not be converted to regions, those
+	 * are left as chunk files which the region loader falls back to
+	 */
+	public boolean setChunkFormat(String format) {
+		boolean success = true;
+		if(!format.equals(getChunkFormat())) {
+			if(CHUNK_FORMAT_REGION.equals(format)) {
+				for(String dim : new String[] { "level0", "level-1", "level1" }) {
+					if(new EaglerRegionChunkLoader(LevelsDB.newVFile(this.getLevelDirectory(), dim)).convertLegacyChunks() < 0) {
+						logger.error("Could not convert \"{}\" to region files, its chunk files were kept", dim);
+						success = false;
+					}
+				}
+			}else if(!CHUNK_FORMAT_LEGACY.equals(format)) {
+				throw new IllegalArgumentException("Unknown chunk format: " + format);
+			}else {
+				throw new UnsupportedOperationException("Region worlds cannot be converted back to the legacy chunk format");
+			}
+			LevelsDB.newVFile(this.getLevelDirectory(), CHUNK_FORMAT_FILE).setAllChars(format);
+		}
+		return success;
 	}
 
 	public void saveLevelDataWithPlayer(LevelData worldInformation, CompoundTag tagCompound) {
 		worldInformation.setSaveVersion(19133);
-		super.saveLevelDataWithPlayer(worldInformation, tagCompound);
+		CompoundTag dataTag = new CompoundTag();
+		dataTag.setTag("Data", worldInformation.cloneNBTCompound(tagCompound));
+		VFile2 levelDat = LevelsDB.newVFile(this.getLevelDirectory(), "level.dat");
+		EaglerFilesystemBatch batch = levelDat.beginBatch();
+		try {
+			EaglerOutputStream bao = new EaglerOutputStream();
+			NbtIo.writeCompressed(dataTag, bao);
+			byte[] oldLevelDat = levelDat.getAllBytes();
+			if(oldLevelDat != null) {
+				LevelsDB.newVFile(this.getLevelDirectory(), "level.dat_old").setAllBytes(batch, oldLevelDat);
+			}
+			levelDat.setAllBytes(batch, bao.toByteArray());
+			batch.commit();
+		}catch(IOException ex) {
+			batch.discard();
+			logger.error("Failed to save level.dat for \"{}\"", this.getLevelDirectory().getPath());
+			logger.error(ex);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2024 lax1dude. All Rights Reserved.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * 
+ */
+
+package net.lax1dude.eaglercraft.v1_8.sp.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
+import net.lax1dude.eaglercraft.v1_8.sp.ipc.IPCPacket1EServerProfile;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.util.profiling.metrics.MetricCategory;
+
+/**
+ * Folds the vanilla profiler sections of the server tick into a few phases,
+ * time is charged to the innermost phase only and to whichever dimension is
+ * being ticked at the time. Installed with Profiler.use for each tick while
+ * the client has the profiler overlay open.
+ */
+public class IntegratedServerProfiler implements ProfilerFiller {
+
+	private static final int TICK_HISTORY = 200;
+
+	private int[] phaseStack = new int[32];
+	private int[] dimensionStack = new int[32];
+	private boolean[] levelsStack = new boolean[32];
+	private int depth = 0;
+	private long lastMark = 0l;
+	private long tickStart = 0l;
+	private boolean inTick = false;
+
+	private final long[] phaseNanos = new long[IPCPacket1EServerProfile.PHASE_COUNT];
+	private final List<String> dimensionNames = new ArrayList<>();
+	private final List<long[]> dimensionNanos = new ArrayList<>();
+
+	private final long[] tickHistory = new long[TICK_HISTORY];
+	private int tickHistoryIndex = 0;
+	private int tickHistoryCount = 0;
+	private int windowTicks = 0;
+	private long windowTickNanos = 0l;
+
+	@Override
+	public void startTick() {
+		long now = EagRuntime.nanoTime();
+		inTick = true;
+		tickStart = lastMark = now;
+		depth = 0;
+		phaseStack[0] = IPCPacket1EServerProfile.PHASE_OTHER;
+		dimensionStack[0] = -1;
+		levelsStack[0] = false;
+	}
+
+	@Override
+	public void endTick() {
+		if(!inTick) {
+			return;
+		}
+		long now = EagRuntime.nanoTime();
+		charge(now);
+		inTick = false;
+		long dur = now - tickStart;
+		tickHistory[tickHistoryIndex] = dur;
+		tickHistoryIndex = (tickHistoryIndex + 1) % TICK_HISTORY;
+		if(tickHistoryCount < TICK_HISTORY) {
+			++tickHistoryCount;
+		}
+		++windowTicks;
+		windowTickNanos += dur;
+	}
+
+	@Override
+	public void push(String name) {
+		if(inTick) {
+			pushPhase(name, false);
+		}
+	}
+
+	@Override
+	public void push(Supplier<String> name) {
+		if(inTick) {
+			// only the per-level sections are named by supplier and need resolving, the
+			// per-entity ones would just allocate a string for nothing
+			pushPhase(levelsStack[depth] ? name.get() : null, true);
+		}
+	}
+
+	@Override
+	public void pop() {
+		if(inTick && depth > 0) {
+			charge(EagRuntime.nanoTime());
+			--depth;
+		}
+	}
+
+	@Override
+	public void popPush(String name) {
+		pop();
+		push(name);
+	}
+
+	@Override
+	public void popPush(Supplier<String> name) {
+		pop();
+		push(name);
+	}
+
+	@Override
+	public void markForCharting(MetricCategory category) {
+	}
+
+	@Override
+	public void incrementCounter(String name, int amount) {
+	}
+
+	@Override
+	public void incrementCounter(Supplier<String> name, int amount) {
+	}
+
+	private void pushPhase(String name, boolean fromSupplier) {
+		charge(EagRuntime.nanoTime());
+		int parent = depth++;
+		if(depth == phaseStack.length) {
+			phaseStack = Arrays.copyOf(phaseStack, depth << 1);
+			dimensionStack = Arrays.copyOf(dimensionStack, depth << 1);
+			levelsStack = Arrays.copyOf(levelsStack, depth << 1);
+		}
+		int dim = dimensionStack[parent];
+		if(fromSupplier && name != null) {
+			dim = getDimensionIndex(name);
+		}
+		phaseStack[depth] = name != null && !fromSupplier ? classify(name, phaseStack[parent]) : phaseStack[parent];
+		dimensionStack[depth] = dim;
+		levelsStack[depth] = "levels".equals(name);
+	}
+
+	private void charge(long now) {
+		long dt = now - lastMark;
+		lastMark = now;
+		int phase = phaseStack[depth];
+		phaseNanos[phase] += dt;
+		int dim = dimensionStack[depth];
+		if(dim != -1) {
+			dimensionNanos.get(dim)[phase] += dt;
+		}
+	}
+
+	private int getDimensionIndex(String levelName) {
+		// vanilla names these sections "<level> <dimension id>"
+		String name = levelName.substring(levelName.lastIndexOf(' ') + 1);
+		if(name.startsWith("minecraft:")) {
+			name = name.substring(10);
+		}
+		int i = dimensionNames.indexOf(name);
+		if(i == -1) {
+			i = dimensionNames.size();
+			dimensionNames.add(name);
+			dimensionNanos.add(new long[IPCPacket1EServerProfile.PHASE_COUNT]);
+		}
+		return i;
+	}
+
+	private static int classify(String name, int parent) {
+		switch(name) {
+		case "entities":
+		case "entityManagement":
+		case "dragonFight":
+			return IPCPacket1EServerProfile.PHASE_ENTITIES;
+		case "blockEntities":
+			return IPCPacket1EServerProfile.PHASE_BLOCK_ENTITIES;
+		case "chunkSource":
+		case "tickPending":
+		case "tickBlocks":
+		case "blockEvents":
+		case "raid":
+			return IPCPacket1EServerProfile.PHASE_CHUNK_TICK;
+		case "light":
+		case "lighting":
+		case "lightUpdates":
+		case "runLightUpdates":
+			return IPCPacket1EServerProfile.PHASE_LIGHTING;
+		case "chunkIO":
+		case "save":
+			return IPCPacket1EServerProfile.PHASE_CHUNK_IO;
+		case "connection":
+		case "players":
+		case "send chunks":
+			return IPCPacket1EServerProfile.PHASE_NETWORK;
+		default:
+			return parent;
+		}
+	}
+
+	/**
+	 * Builds the packet for the time since the last call and starts a new window,
+	 * the percentiles are taken over the last 200 ticks
+	 */
+	public IPCPacket1EServerProfile createReport() {
+		IPCPacket1EServerProfile ret = new IPCPacket1EServerProfile();
+		ret.tickCount = windowTicks;
+		ret.tickAvgMillis = windowTicks > 0 ? (float)(windowTickNanos / windowTicks) * 0.000001f : 0.0f;
+		if(tickHistoryCount > 0) {
+			long[] sorted = Arrays.copyOf(tickHistory, tickHistoryCount);
+			Arrays.sort(sorted);
+			ret.tickP50Millis = percentile(sorted, 0.5f);
+			ret.tickP90Millis = percentile(sorted, 0.9f);
+			ret.tickP99Millis = percentile(sorted, 0.99f);
+			ret.tickMaxMillis = sorted[sorted.length - 1] * 0.000001f;
+		}
+		for(int i = 0; i < IPCPacket1EServerProfile.PHASE_COUNT; ++i) {
+			ret.phaseMicros[i] = (int)(phaseNanos[i] / 1000l);
+			phaseNanos[i] = 0l;
+		}
+		for(int i = 0, l = dimensionNames.size(); i < l; ++i) {
+			long[] nanos = dimensionNanos.get(i);
+			int[] micros = new int[IPCPacket1EServerProfile.PHASE_COUNT];
+			for(int j = 0; j < micros.length; ++j) {
+				micros[j] = (int)(nanos[j] / 1000l);
+				nanos[j] = 0l;
+			}
+			ret.dimensions.add(new IPCPacket1EServerProfile.DimensionProfile(dimensionNames.get(i), micros));
+		}
+		windowTicks = 0;
+		windowTickNanos = 0l;
+		return ret;
+	}
+
+	private static float percentile(long[] sorted, float p) {
+		int i = Math.min((int)(sorted.length * p), sorted.length - 1);
+		return sorted[i] * 0.000001f;
+	}
+
+}
@@ -21,6 +21,7 @@ import java.util.List;
 
 import net.lax1dude.eaglercraft.v1_8.EaglerInputStream;
 import net.lax1dude.eaglercraft.v1_8.EaglerOutputStream;
+import net.lax1dude.eaglercraft.v1_8.internal.EaglerFilesystemBatch;
 import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
@@ -35,6 +36,8 @@ public class LevelConverterEPK {
 
 	private static final Logger logger = LogManager.getLogger("LevelConverterEPK");
 
+	private static final int IMPORT_BATCH_BYTES = 0x400000;
+
 	public static void importLevel(byte[] archiveContents, String newName) throws IOException {
 		logger.info("Importing world \"{}\" from EPK", newName);
 		String folderName = newName.replaceAll("[\\./\"]", "_");
@@ -43,10 +46,12 @@ public class LevelConverterEPK {
 			folderName += "_";
 			worldDir = EaglerIntegratedServerWorker.saveFormat.getSaveLoader(folderName, false).getLevelDirectory();
 		}
+		EaglerFilesystemBatch batch = worldDir.beginBatch();
 		try(EPKDecompiler dc = new EPKDecompiler(archiveContents)) {
 			EPKDecompiler.FileEntry f = null;
 			int lastProgUpdate = 0;
 			int prog = 0;
+			int batchBytes = 0;
 			String hasReadType = null;
 			boolean has152Format = false;
 			int cnt = 0;
@@ -77,9 +82,14 @@ public class LevelConverterEPK {
 						b = tmp.toByteArray();
 					}
 					VFile2 ff = LevelsDB.newVFile(worldDir, f.name);
-					ff.setAllBytes(b);
+					ff.setAllBytes(batch, b);
 					prog += b.length;
+					batchBytes += b.length;
 					++cnt;
+					if(batchBytes > IMPORT_BATCH_BYTES) {
+						batch.commit();
+						batchBytes = 0;
+					}
 					if(prog - lastProgUpdate > 25000) {
 						lastProgUpdate = prog;
 						logger.info("Extracted {} files, {} bytes from EPK...", cnt, prog);
@@ -87,6 +97,10 @@ public class LevelConverterEPK {
 					}
 				}
 			}
+			batch.commit();
+		}catch(IOException ex) {
+			batch.discard();
+			throw ex;
 		}
 		logger.info("EPK was successfully extracted into directory \"{}\"", worldDir.getPath());
 		String[] worldsTxt = EaglerSaveFormat.worldsList.getAllLines();
@@ -18,7 +18,9 @@ package net.lax1dude.eaglercraft.v1_8.sp.server.export;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,13 +31,18 @@ import java.util.zip.ZipOutputStream;
 
 import net.lax1dude.eaglercraft.v1_8.EaglerInputStream;
 import net.lax1dude.eaglercraft.v1_8.EaglerOutputStream;
+import net.lax1dude.eaglercraft.v1_8.internal.EaglerFilesystemBatch;
 import net.lax1dude.eaglercraft.v1_8.internal.vfs2.VFile2;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
 import net.lax1dude.eaglercraft.v1_8.sp.server.EaglerChunkLoader;
 import net.lax1dude.eaglercraft.v1_8.sp.server.EaglerIntegratedServerWorker;
+import net.lax1dude.eaglercraft.v1_8.sp.server.EaglerRegionChunkLoader;
+import net.lax1dude.eaglercraft.v1_8.sp.server.EaglerRegionFile;
 import net.lax1dude.eaglercraft.v1_8.sp.server.EaglerSaveFormat;
+import net.lax1dude.eaglercraft.v1_8.sp.server.EaglerSaveHandler;
 import net.lax1dude.eaglercraft.v1_8.sp.server.LevelsDB;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.chunk.storage.RegionFile;
 import net.minecraft.world.level.storage.LevelData;
 import net.minecraft.nbt.NbtIo;
@@ -45,6 +52,8 @@ public class LevelConverterMCA {
 
 	private static final Logger logger = LogManager.getLogger("LevelConverterMCA");
 
+	private static final int IMPORT_BATCH_BYTES = 0x400000;
+
 	public static void importLevel(byte[] archiveContents, String newName, byte gameRules) throws IOException {
 		logger.info("Importing world \"{}\" from MCA", newName);
 		String folderName = newName.replaceAll("[\\./\"]", "_");
@@ -64,32 +73,39 @@ public class LevelConverterMCA {
 				fileNames.add(folderNameFile.getName().toCharArray());
 			}
 		}
+		if(fileNames.isEmpty()) {
+			throw new IOException("Archive does not contain a minecraft world!");
+		}
 		final int[] i = new int[] { 0 };
 		while(fileNames.get(0).length > i[0] && fileNames.stream().allMatch(w -> w[i[0]] == fileNames.get(0)[i[0]])) i[0]++;
 		int folderPrefixOffset = i[0];
+		EaglerFilesystemBatch batch = worldDir.beginBatch();
 		try(ZipInputStream zis = new ZipInputStream(new EaglerInputStream(archiveContents))) {
 			ZipEntry f = null;
 			int lastProgUpdate = 0;
 			int prog = 0;
+			int batchBytes = 0;
+			byte[] b = new byte[65536];
 			while ((f = zis.getNextEntry()) != null) {
 				if (f.getName().contains("__MACOSX/")) continue;
 				if (f.isDirectory()) continue;
 				String lowerName = f.getName().toLowerCase();
 				if (!(lowerName.endsWith(".dat") || lowerName.endsWith(".dat_old") || lowerName.endsWith(".mca") || lowerName.endsWith(".mcr") || lowerName.endsWith(".bmp"))) continue;
-				byte[] b;
+				// only one entry is ever held in memory, the buffer is reused for the next one
 				int sz = (int)f.getSize();
-				if(sz >= 0) {
-					b = new byte[sz];
-					int j = 0, k;
-					while(j < b.length && (k = zis.read(b, j, b.length - j)) != -1) {
-						j += k;
+				if(sz >= b.length) {
+					b = new byte[sz + 1];
+				}
+				int len = 0, r;
+				while((r = zis.read(b, len, b.length - len)) != -1) {
+					len += r;
+					if(len == b.length) {
+						b = Arrays.copyOf(b, b.length << 1);
 					}
-				}else {
-					b = EaglerInputStream.inputStreamToBytesNoClose(zis);
 				}
 				String fileName = f.getName().substring(folderPrefixOffset);
 				if (fileName.equals("level.dat") || fileName.equals("level.dat_old")) {
-					CompoundTag worldDatNBT = NbtIo.readCompressed(new EaglerInputStream(b));
+					CompoundTag worldDatNBT = NbtIo.readCompressed(new EaglerInputStream(b, 0, len));
 	
 					CompoundTag gameRulesNBT = worldDatNBT.getCompoundTag("Data").getCompoundTag("GameRules");
 					gameRulesNBT.setString("loadSpawnChunks", (gameRules & 2) != 0 ? "true" : "false");
@@ -105,13 +121,14 @@ public class LevelConverterMCA {
 					LevelData.initEaglerVersion(worldDatNBT.getCompoundTag("Data"));
 					EaglerOutputStream bo = new EaglerOutputStream();
 					NbtIo.writeCompressed(worldDatNBT, bo);
-					b = bo.toByteArray();
-					VFile2 ff = LevelsDB.newVFile(worldDir, fileName);
-					ff.setAllBytes(b);
-					prog += b.length;
+					byte[] levelDat = bo.toByteArray();
+					LevelsDB.newVFile(worldDir, fileName).setAllBytes(batch, levelDat);
+					prog += levelDat.length;
+					batchBytes += levelDat.length;
 				} else if ((fileName.endsWith(".mcr") || fileName.endsWith(".mca")) && (fileName.startsWith("region/") || fileName.startsWith("DIM1/region/") || fileName.startsWith("DIM-1/region/"))) {
 					VFile2 chunkFolder = LevelsDB.newVFile(worldDir, fileName.startsWith("DIM1") ? "level1" : (fileName.startsWith("DIM-1") ? "level-1" : "level0"));
-					RegionFile mca = new RegionFile(new RandomAccessMemoryFile(b, b.length));
+					RegionFile mca = new RegionFile(new RandomAccessMemoryFile(b, len));
+					Map<Long,EaglerRegionFile> regionFiles = new HashMap<>();
 					int loadChunksCount = 0;
 					for(int j = 0; j < 32; ++j) {
 						for(int k = 0; k < 32; ++k) {
@@ -131,39 +148,53 @@ public class LevelConverterMCA {
 								}
 								int chunkX = chunkLevel.getInteger("xPos");
 								int chunkZ = chunkLevel.getInteger("zPos");
-								VFile2 chunkOut = LevelsDB.newVFile(chunkFolder, EaglerChunkLoader.getChunkPath(chunkX, chunkZ) + ".dat");
-								if(chunkOut.exists()) {
-									logger.error("{}: Chunk already exists: {}", fileName, chunkOut.getPath());
-									continue;
+								long regionKey = ChunkPos.asLong(chunkX >> 5, chunkZ >> 5);
+								EaglerRegionFile regionOut = regionFiles.get(regionKey);
+								if(regionOut == null) {
+									regionOut = new EaglerRegionFile(LevelsDB.newVFile(chunkFolder, EaglerRegionChunkLoader.getRegionPath(chunkX >> 5, chunkZ >> 5)));
+									regionFiles.put(regionKey, regionOut);
 								}
-								EaglerOutputStream bao = new EaglerOutputStream();
-								NbtIo.writeCompressed(chunkNBT, bao);
-								b = bao.toByteArray();
-								chunkOut.setAllBytes(b);
-								prog += b.length;
-								if (prog - lastProgUpdate > 25000) {
-									lastProgUpdate = prog;
-									EaglerIntegratedServerWorker.sendProgress("singleplayer.busy.importing.2", prog);
+								if(regionOut.hasChunk(chunkX & 31, chunkZ & 31)) {
+									logger.error("{}: Chunk already exists: {}, {}", fileName, chunkX, chunkZ);
+									continue;
 								}
+								regionOut.writeChunk(chunkX & 31, chunkZ & 31, chunkNBT);
 								++loadChunksCount;
 							}
 						}
 					}
+					for(EaglerRegionFile regionOut : regionFiles.values()) {
+						regionOut.flush(batch);
+					}
+					prog += len;
+					// commit right away so a second file for the same region sees these chunks
+					batch.commit();
+					batchBytes = 0;
 					logger.info("{}: Imported {} chunks successfully ({} bytes)", fileName, loadChunksCount, prog);
 				} else if (fileName.startsWith("playerdata/") || fileName.startsWith("stats/")) {
 					//TODO: LAN player inventories
 				} else if (fileName.startsWith("data/") || fileName.startsWith("players/") || fileName.startsWith("eagler/skulls/")) {
-					VFile2 ff = LevelsDB.newVFile(worldDir, fileName);
-					ff.setAllBytes(b);
-					prog += b.length;
+					LevelsDB.newVFile(worldDir, fileName).setAllBytes(batch, Arrays.copyOf(b, len));
+					prog += len;
+					batchBytes += len;
 				} else if (!fileName.equals("level.dat_mcr") && !fileName.equals("session.lock")) {
 					logger.info("Skipping file: {}", fileName);
 				}
+				if (batchBytes > IMPORT_BATCH_BYTES) {
+					batch.commit();
+					batchBytes = 0;
+				}
 				if (prog - lastProgUpdate > 25000) {
 					lastProgUpdate = prog;
 					EaglerIntegratedServerWorker.sendProgress("singleplayer.busy.importing.2", prog);
 				}
 			}
+			LevelsDB.newVFile(worldDir, EaglerSaveHandler.CHUNK_FORMAT_FILE).setAllBytes(batch,
+					EaglerSaveHandler.CHUNK_FORMAT_REGION.getBytes(StandardCharsets.UTF_8));
+			batch.commit();
+		}catch(IOException ex) {
+			batch.discard();
+			throw ex;
 		}
 		logger.info("MCA was successfully extracted into directory \"{}\"", worldDir.getPath());
 		String[] worldsTxt = EaglerSaveFormat.worldsList.getAllLines();
@@ -212,58 +243,104 @@ public class LevelConverterMCA {
 			String[] srcFolderNames = new String[] { "level0", "level-1", "level1" };
 			String[] dstFolderNames = new String[] { "/region/", "/DIM-1/region/", "/DIM1/region/" };
 			List<VFile2> fileList;
+			RandomAccessMemoryFile regionBuffer = new RandomAccessMemoryFile(new byte[0x80000], 0);
 			for(int i = 0; i < 3; ++i) {
 				vf = LevelsDB.newVFile(worldFolder, srcFolderNames[i]);
 				fileList = vf.listFiles(true);
 				String regionFolder = folderName + dstFolderNames[i];
 				logger.info("Converting chunks in \"{}\" as MCA to \"{}\"...", vf.getPath(), regionFolder);
-				Map<String,RegionFile> regionFiles = new HashMap<>();
+				// group the sources by their target region so only one region is in memory at a time
+				Map<Long,List<VFile2>> regionSources = new HashMap<>();
 				for(int k = 0, l = fileList.size(); k < l; ++k) {
 					VFile2 chunkFile = fileList.get(k);
-					CompoundTag chunkNBT;
-					CompoundTag chunkLevel;
-					try {
-						b = chunkFile.getAllBytes();
-						chunkNBT = NbtIo.readCompressed(new EaglerInputStream(b));
-						if(!chunkNBT.hasKey("Level", 10)) {
-							throw new IOException("Chunk is missing level data!");
-						}
-						chunkLevel = chunkNBT.getCompoundTag("Level");
-					}catch(IOException t) {
-						logger.error("Could not read chunk: {}", chunkFile.getPath());
-						logger.error(t);
-						continue;
-					}
-					int chunkX = chunkLevel.getInteger("xPos");
-					int chunkZ = chunkLevel.getInteger("zPos");
-					String regionFileName = "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca";
-					RegionFile rf = regionFiles.get(regionFileName);
-					if(rf == null) {
-						rf = new RegionFile(new RandomAccessMemoryFile(new byte[65536], 0));
-						regionFiles.put(regionFileName, rf);
-					}
-					try(DataOutputStream dos = rf.getChunkDataOutputStream(chunkX & 31, chunkZ & 31)) {
-						NbtIo.write(chunkNBT, dos);
-					}catch(IOException t) {
-						logger.error("Could not write chunk to {}: {}", regionFileName, chunkFile.getPath());
-						logger.error(t);
+					String name = chunkFile.getName();
+					long regionKey;
+					if(name.length() == 12 + EaglerRegionChunkLoader.REGION_EXT.length() && name.endsWith(EaglerRegionChunkLoader.REGION_EXT)) {
+						regionKey = EaglerChunkLoader.getChunkCoords(name.substring(0, 12)).toLong();
+					}else if(name.length() == 16 && name.endsWith(".dat")) {
+						ChunkPos pos = EaglerChunkLoader.getChunkCoords(name.substring(0, 12));
+						regionKey = ChunkPos.asLong(pos.x >> 5, pos.z >> 5);
+					}else {
+						logger.warn("Skipping unknown file in chunk directory: {}", chunkFile.getPath());
 						continue;
 					}
-					prog += b.length;
-					if (prog - lastProgUpdate > 25000) {
-						lastProgUpdate = prog;
-						EaglerIntegratedServerWorker.sendProgress("singleplayer.busy.exporting.2", prog);
+					List<VFile2> sources = regionSources.get(regionKey);
+					if(sources == null) {
+						sources = new ArrayList<>();
+						regionSources.put(regionKey, sources);
 					}
+					sources.add(chunkFile);
 				}
-				if(regionFiles.isEmpty()) {
+				if(regionSources.isEmpty()) {
 					logger.info("No region files were generated");
 					continue;
 				}
-				for(Entry<String,RegionFile> etr : regionFiles.entrySet()) {
-					String regionPath = regionFolder + etr.getKey();
+				for(Entry<Long,List<VFile2>> etr : regionSources.entrySet()) {
+					int regionX = ChunkPos.getX(etr.getKey());
+					int regionZ = ChunkPos.getZ(etr.getKey());
+					String regionFileName = "r." + regionX + "." + regionZ + ".mca";
+					regionBuffer.reset();
+					RegionFile rf = new RegionFile(regionBuffer);
+					int chunkCount = 0;
+					List<VFile2> sources = etr.getValue();
+					for(int k = 0, l = sources.size(); k < l; ++k) {
+						VFile2 chunkFile = sources.get(k);
+						List<CompoundTag> chunkNBTs = new ArrayList<>();
+						int eagrSize = 0;
+						try {
+							if(chunkFile.getName().endsWith(EaglerRegionChunkLoader.REGION_EXT)) {
+								EaglerRegionFile eagr = new EaglerRegionFile(chunkFile);
+								for(int j = 0; j < 1024; ++j) {
+									if(eagr.hasChunk(j & 31, j >> 5)) {
+										chunkNBTs.add(eagr.readChunk(j & 31, j >> 5));
+									}
+								}
+								eagrSize = eagr.getDataSize();
+								b = null;
+							}else {
+								b = chunkFile.getAllBytes();
+								chunkNBTs.add(NbtIo.readCompressed(new EaglerInputStream(b)));
+							}
+						}catch(IOException t) {
+							logger.error("Could not read chunk: {}", chunkFile.getPath());
+							logger.error(t);
+							continue;
+						}
+						for(int m = 0, n = chunkNBTs.size(); m < n; ++m) {
+							CompoundTag chunkNBT = chunkNBTs.get(m);
+							if(!chunkNBT.hasKey("Level", 10)) {
+								logger.error("Chunk is missing level data: {}", chunkFile.getPath());
+								continue;
+							}
+							CompoundTag chunkLevel = chunkNBT.getCompoundTag("Level");
+							int chunkX = chunkLevel.getInteger("xPos");
+							int chunkZ = chunkLevel.getInteger("zPos");
+							if((chunkX >> 5) != regionX || (chunkZ >> 5) != regionZ) {
+								logger.error("Chunk {}, {} does not belong in {}: {}", chunkX, chunkZ, regionFileName, chunkFile.getPath());
+								continue;
+							}
+							try(DataOutputStream dos = rf.getChunkDataOutputStream(chunkX & 31, chunkZ & 31)) {
+								NbtIo.write(chunkNBT, dos);
+							}catch(IOException t) {
+								logger.error("Could not write chunk to {}: {}", regionFileName, chunkFile.getPath());
+								logger.error(t);
+								continue;
+							}
+							++chunkCount;
+						}
+						prog += b != null ? b.length : eagrSize;
+						if (prog - lastProgUpdate > 25000) {
+							lastProgUpdate = prog;
+							EaglerIntegratedServerWorker.sendProgress("singleplayer.busy.exporting.2", prog);
+						}
+					}
+					if(chunkCount == 0) {
+						continue;
+					}
+					String regionPath = regionFolder + regionFileName;
 					logger.info("Writing region file: {}", regionPath);
 					zos.putNextEntry(new ZipEntry(regionPath));
-					zos.write(etr.getValue().getFile().getByteArray());
+					regionBuffer.writeTo(zos);
 				}
 			}
 			logger.info("Copying extra world data...");
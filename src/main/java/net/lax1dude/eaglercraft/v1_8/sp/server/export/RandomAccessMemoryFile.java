@@ -20,6 +20,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 
 public class RandomAccessMemoryFile implements DataInput, DataOutput {
 
@@ -36,9 +38,12 @@ public class RandomAccessMemoryFile implements DataInput, DataOutput {
 	private void grow(int newMaxSize) {
 		if (length < newMaxSize) {
 			if (buffer.length < newMaxSize) {
-				byte[] newBuffer = new byte[newMaxSize | 0x7FFFF];
+				byte[] newBuffer = new byte[Math.max(newMaxSize | 0x7FFFF, buffer.length + (buffer.length >> 1))];
 				System.arraycopy(buffer, 0, newBuffer, 0, length);
 				buffer = newBuffer;
+			}else {
+				// buffer may be reused after reset(), never expose stale bytes
+				Arrays.fill(buffer, length, newMaxSize, (byte)0);
 			}
 			length = newMaxSize;
 		}
@@ -50,6 +55,21 @@ public class RandomAccessMemoryFile implements DataInput, DataOutput {
 		return b;
 	}
 
+	/**
+	 * Writes the contents to a stream without copying them into a new array first
+	 */
+	public void writeTo(OutputStream os) throws IOException {
+		os.write(buffer, 0, length);
+	}
+
+	/**
+	 * Empties the file but keeps the buffer so the next file can be built in it
+	 */
+	public void reset() {
+		length = 0;
+		pos = 0;
+	}
+
 	public int read() throws IOException {
 		return (pos < length) ? (buffer[pos++] & 0xff) : -1;
 	}
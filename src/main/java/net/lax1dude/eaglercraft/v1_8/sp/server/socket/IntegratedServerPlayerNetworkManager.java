@@ -18,10 +18,9 @@ package net.lax1dude.eaglercraft.v1_8.sp.server.socket;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.ArrayDeque;
 
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
 import net.lax1dude.eaglercraft.v1_8.EaglerOutputStream;
 import net.lax1dude.eaglercraft.v1_8.EaglerZLIB;
 import net.lax1dude.eaglercraft.v1_8.internal.EnumEaglerConnectionState;
@@ -29,8 +28,11 @@ import net.lax1dude.eaglercraft.v1_8.internal.IPCPacketData;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
 import net.lax1dude.eaglercraft.v1_8.log4j.Logger;
 import net.lax1dude.eaglercraft.v1_8.netty.ByteBuf;
+import net.lax1dude.eaglercraft.v1_8.netty.PooledByteBuf;
+import net.lax1dude.eaglercraft.v1_8.netty.PooledByteBufAllocator;
 import net.lax1dude.eaglercraft.v1_8.netty.Unpooled;
 import net.lax1dude.eaglercraft.v1_8.socket.CompressionNotSupportedException;
+import net.lax1dude.eaglercraft.v1_8.socket.PacketStatistics;
 import net.lax1dude.eaglercraft.v1_8.sp.SingleplayerServerController;
 import net.lax1dude.eaglercraft.v1_8.sp.server.EaglerIntegratedServerWorker;
 import net.minecraft.network.ConnectionProtocol;
@@ -51,15 +53,30 @@ public class IntegratedServerPlayerNetworkManager {
 	private static FriendlyByteBuf temporaryBuffer;
 	private static byte[] compressedPacketTmp;
 	private int debugPacketCounter = 0;
-	private final List<byte[]> recievedFriendlyByteBuf = new LinkedList<>();
+	private final ArrayDeque<byte[]> recievedFriendlyByteBuf = new ArrayDeque<>();
 	private final boolean enableSendCompression;
 
 	private boolean firstPacket = true;
 
-	private List<byte[]> fragmentedPacket = new ArrayList<>();
+	/**
+	 * fragments are appended here as they arrive, the last one hands the
+	 * whole buffer to the decoder
+	 */
+	private PooledByteBuf fragmentedPacket = null;
 
 	public static final int fragmentSize = 0xFF00;
 	public static final int compressionThreshold = 1024;
+
+	/**
+	 * LAN frame types, 0 is a whole packet, 1 is a fragment with more to
+	 * follow and 2 is the last part of a compressed packet. A batch frame
+	 * holds several whole packets, each prefixed with its VarInt length.
+	 * The capabilities frame is sent once by the host when the channel opens
+	 */
+	public static final int FRAME_BATCH = 3;
+	public static final int FRAME_CAPABILITIES = 4;
+
+	public static final int CAPABILITY_BATCHING = 1;
 	
 	public static final Logger logger = LogManager.getLogger("Connection");
 
@@ -69,12 +86,23 @@ public class IntegratedServerPlayerNetworkManager {
 		}
 		this.playerChannel = playerChannel;
 		this.enableSendCompression = !SingleplayerServerController.PLAYER_CHANNEL.equals(playerChannel);
+		if(enableSendCompression) {
+			// older clients log this as an unknown frame type and carry on
+			ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, new byte[] { (byte)FRAME_CAPABILITIES, (byte)CAPABILITY_BATCHING }, true));
+		}
 	}
 	
 	public void connect() {
-		fragmentedPacket.clear();
+		clearFragments();
 		firstPacket = true;
 	}
+
+	private void clearFragments() {
+		if(fragmentedPacket != null) {
+			fragmentedPacket.release();
+			fragmentedPacket = null;
+		}
+	}
 	
 	public EnumEaglerConnectionState getConnectStatus() {
 		return EaglerIntegratedServerWorker.getChannelExists(playerChannel) ? EnumEaglerConnectionState.CONNECTED : EnumEaglerConnectionState.CLOSED;
@@ -82,6 +110,7 @@ public class IntegratedServerPlayerNetworkManager {
 	
 	public void closeChannel(Component reason) {
 		EaglerIntegratedServerWorker.closeChannel(playerChannel);
+		clearFragments();
 		if(nethandler != null) {
 			nethandler.onDisconnect(reason);
 		}
@@ -99,8 +128,11 @@ public class IntegratedServerPlayerNetworkManager {
 		if(nethandler == null) return;
 
 		while(!recievedFriendlyByteBuf.isEmpty()) {
-			byte[] data = recievedFriendlyByteBuf.remove(0);
+			byte[] data = recievedFriendlyByteBuf.poll();
 			byte[] fullData;
+			int fullDataOffset = 0;
+			int fullDataLength = data.length;
+			PooledByteBuf pooledBuffer = null;
 
 			if(enableSendCompression) {
 				if(firstPacket) {
@@ -127,27 +159,21 @@ public class IntegratedServerPlayerNetworkManager {
 					firstPacket = false;
 				}
 				if (data[0] == 0) {
-					if(fragmentedPacket.isEmpty()) {
-						fullData = new byte[data.length - 1];
-						System.arraycopy(data, 1, fullData, 0, fullData.length);
+					if(fragmentedPacket == null) {
+						// read the packet in place, skipping over the frame type byte
+						fullData = data;
+						fullDataOffset = 1;
 					}else {
-						fragmentedPacket.add(data);
-						int len = 0;
-						int fragCount = fragmentedPacket.size();
-						for(int j = 0; j < fragCount; ++j) {
-							len += fragmentedPacket.get(j).length - 1;
-						}
-						fullData = new byte[len];
-						len = 0;
-						for(int j = 0; j < fragCount; ++j) {
-							byte[] f = fragmentedPacket.get(j);
-							System.arraycopy(f, 1, fullData, len, f.length - 1);
-							len += f.length - 1;
-						}
-						fragmentedPacket.clear();
+						pooledBuffer = PooledByteBufAllocator.DEFAULT.append(fragmentedPacket, data, 1, data.length - 1);
+						fragmentedPacket = null;
+						fullData = pooledBuffer.array();
+						fullDataLength = pooledBuffer.writerIndex();
 					}
 				} else if (data[0] == 1) {
-					fragmentedPacket.add(data);
+					fragmentedPacket = PooledByteBufAllocator.DEFAULT.append(fragmentedPacket, data, 1, data.length - 1);
+					continue;
+				} else if (data[0] == FRAME_BATCH) {
+					processBatch(data);
 					continue;
 				} else {
 					logger.error("Recieved {} byte fragment of unknown type: {}", data.length, ((int)data[0] & 0xFF));
@@ -158,41 +184,82 @@ public class IntegratedServerPlayerNetworkManager {
 				fullData = data;
 			}
 			
-			++debugPacketCounter;
-			try {
-				ByteBuf nettyBuffer = Unpooled.buffer(fullData, fullData.length);
-				nettyBuffer.writerIndex(fullData.length);
-				FriendlyByteBuf input = new FriendlyByteBuf(nettyBuffer);
-				int pktId = input.readVarIntFromBuffer();
-				
-				Packet pkt;
-				try {
-					pkt = packetState.getPacket(PacketFlow.SERVERBOUND, pktId);
-				}catch(IllegalAccessException | InstantiationException ex) {
-					throw new IOException("Recieved a packet with type " + pktId + " which is invalid!");
-				}
+			processPacketData(fullData, fullDataOffset, fullDataLength, pooledBuffer);
+		}
+	}
 
-				if(pkt == null) {
-					throw new IOException("Recieved packet type " + pktId + " which is undefined in state " + packetState);
+	private void processBatch(byte[] data) {
+		int off = 1;
+		while(off < data.length) {
+			int len = 0;
+			int shift = 0;
+			byte b;
+			do {
+				if(off >= data.length || shift > 28) {
+					logger.error("Recieved a truncated {} byte packet batch", data.length);
+					return;
 				}
+				b = data[off++];
+				len |= (b & 0x7F) << shift;
+				shift += 7;
+			}while((b & 0x80) != 0);
+			if(len <= 0 || off + len > data.length) {
+				logger.error("Recieved a truncated {} byte packet batch", data.length);
+				return;
+			}
+			processPacketData(data, off, off + len, null);
+			off += len;
+		}
+	}
 
-				try {
-					pkt.readPacketData(input);
-				}catch(Throwable t) {
-					throw new IOException("Failed to read packet type '" + pkt.getClass().getSimpleName() + "'", t);
-				}
-				
-				try {
-					pkt.processPacket(nethandler);
-				}catch(Throwable t) {
-					logger.error("Failed to process {}! It'll be skipped for debug purposes.", pkt.getClass().getSimpleName());
-					logger.error(t);
+	private void processPacketData(byte[] fullData, int fullDataOffset, int fullDataLength, PooledByteBuf pooledBuffer) {
+		++debugPacketCounter;
+		try {
+			ByteBuf nettyBuffer = Unpooled.buffer(fullData, fullData.length);
+			nettyBuffer.writerIndex(fullDataLength);
+			nettyBuffer.readerIndex(fullDataOffset);
+			FriendlyByteBuf input = new FriendlyByteBuf(nettyBuffer);
+			int pktId = input.readVarIntFromBuffer();
+			
+			Packet pkt;
+			try {
+				pkt = packetState.getPacket(PacketFlow.SERVERBOUND, pktId);
+			}catch(IllegalAccessException | InstantiationException ex) {
+				throw new IOException("Recieved a packet with type " + pktId + " which is invalid!");
+			}
+
+			if(pkt == null) {
+				throw new IOException("Recieved packet type " + pktId + " which is undefined in state " + packetState);
+			}
+
+			long start = EagRuntime.nanoTime();
+			try {
+				pkt.readPacketData(input);
+			}catch(Throwable t) {
+				throw new IOException("Failed to read packet type '" + pkt.getClass().getSimpleName() + "'", t);
+			}finally {
+				if(pooledBuffer != null) {
+					pooledBuffer.release();
+					pooledBuffer = null;
 				}
-				
+			}
+			long decoded = EagRuntime.nanoTime();
+			
+			try {
+				pkt.processPacket(nethandler);
 			}catch(Throwable t) {
-				logger.error("Failed to process socket frame {}! It'll be skipped for debug purposes.", debugPacketCounter);
+				logger.error("Failed to process {}! It'll be skipped for debug purposes.", pkt.getClass().getSimpleName());
 				logger.error(t);
 			}
+			
+			PacketStatistics.integratedServer.record(PacketStatistics.INBOUND, pkt.getClass(), fullDataLength - fullDataOffset, decoded - start, EagRuntime.nanoTime() - decoded);
+			
+		}catch(Throwable t) {
+			logger.error("Failed to process socket frame {}! It'll be skipped for debug purposes.", debugPacketCounter);
+			logger.error(t);
+			if(pooledBuffer != null) {
+				pooledBuffer.release();
+			}
 		}
 	}
 
@@ -209,6 +276,7 @@ public class IntegratedServerPlayerNetworkManager {
 			return;
 		}
 		
+		long start = EagRuntime.nanoTime();
 		temporaryBuffer.clear();
 		temporaryBuffer.writeVarIntToBuffer(i);
 		try {
@@ -219,36 +287,41 @@ public class IntegratedServerPlayerNetworkManager {
 		}
 		
 		int len = temporaryBuffer.readableBytes();
+		PacketStatistics.integratedServer.record(PacketStatistics.OUTBOUND, pkt.getClass(), len, EagRuntime.nanoTime() - start, 0l);
 		if(enableSendCompression) {
 			if(len > compressionThreshold) {
-				if(compressedPacketTmp == null || compressedPacketTmp.length < len) {
-					compressedPacketTmp = new byte[len];
+				// deflate straight into the scratch buffer after the header, so the
+				// only copy made is into the frames that actually get sent
+				if(compressedPacketTmp == null || compressedPacketTmp.length < len + 5) {
+					compressedPacketTmp = new byte[len + 5];
 				}
 				int cmpLen;
 				try {
-					cmpLen = EaglerZLIB.deflateFull(temporaryBuffer.array(), 0, len, compressedPacketTmp, 0, compressedPacketTmp.length);
+					cmpLen = EaglerZLIB.deflateFull(temporaryBuffer.array(), 0, len, compressedPacketTmp, 5, compressedPacketTmp.length - 5);
 				}catch(IOException ex) {
 					logger.error("Failed to compress packet {}!", pkt.getClass().getSimpleName());
 					logger.error(ex);
 					return;
 				}
-				byte[] compressedData = new byte[5 + cmpLen];
+				byte[] compressedData = compressedPacketTmp;
+				int compressedLen = 5 + cmpLen;
 				compressedData[0] = (byte)2;
 				compressedData[1] = (byte)((len >>> 24) & 0xFF);
 				compressedData[2] = (byte)((len >>> 16) & 0xFF);
 				compressedData[3] = (byte)((len >>> 8) & 0xFF);
 				compressedData[4] = (byte)(len & 0xFF);
-				System.arraycopy(compressedPacketTmp, 0, compressedData, 5, cmpLen);
-				if(compressedData.length > fragmentSize) {
+				if(compressedLen > fragmentSize) {
 					int fragmentSizeN1 = fragmentSize - 1;
-					for (int j = 1; j < compressedData.length; j += fragmentSizeN1) {
-						byte[] fragData = new byte[((j + fragmentSizeN1 > (compressedData.length - 1)) ? ((compressedData.length - 1) % fragmentSizeN1) : fragmentSizeN1) + 1];
+					for (int j = 1; j < compressedLen; j += fragmentSizeN1) {
+						byte[] fragData = new byte[((j + fragmentSizeN1 > (compressedLen - 1)) ? ((compressedLen - 1) % fragmentSizeN1) : fragmentSizeN1) + 1];
 						System.arraycopy(compressedData, j, fragData, 1, fragData.length - 1);
-						fragData[0] = (j + fragmentSizeN1 < compressedData.length) ? (byte) 1 : (byte) 2;
-						ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, fragData));
+						fragData[0] = (j + fragmentSizeN1 < compressedLen) ? (byte) 1 : (byte) 2;
+						ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, fragData, true));
 					}
 				}else {
-					ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, compressedData));
+					byte[] frame = new byte[compressedLen];
+					System.arraycopy(compressedData, 0, frame, 0, compressedLen);
+					ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, frame, true));
 				}
 			}else {
 				int fragmentSizeN1 = fragmentSize - 1;
@@ -258,19 +331,19 @@ public class IntegratedServerPlayerNetworkManager {
 						byte[] frag = new byte[readLen + 1];
 						temporaryBuffer.readBytes(frag, 1, readLen);
 						frag[0] = temporaryBuffer.readableBytes() == 0 ? (byte)0 : (byte)1;
-						ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, frag));
+						ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, frag, true));
 					}while((len = temporaryBuffer.readableBytes()) > 0);
 				}else {
 					byte[] bytes = new byte[len + 1];
 					bytes[0] = 0;
 					temporaryBuffer.readBytes(bytes, 1, len);
-					ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, bytes));
+					ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, bytes, true));
 				}
 			}
 		}else {
 			byte[] bytes = new byte[len];
 			temporaryBuffer.readBytes(bytes, 0, len);
-			ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, bytes));
+			ServerPlatformSingleplayer.sendPacket(new IPCPacketData(playerChannel, bytes, true));
 		}
 	}
 	
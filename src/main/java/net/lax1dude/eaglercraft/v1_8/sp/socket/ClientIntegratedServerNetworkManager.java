@@ -20,11 +20,13 @@ import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 
+import net.lax1dude.eaglercraft.v1_8.EagRuntime;
 import net.lax1dude.eaglercraft.v1_8.internal.EnumEaglerConnectionState;
 import net.lax1dude.eaglercraft.v1_8.internal.IPCPacketData;
 import net.lax1dude.eaglercraft.v1_8.netty.ByteBuf;
 import net.lax1dude.eaglercraft.v1_8.netty.Unpooled;
 import net.lax1dude.eaglercraft.v1_8.socket.EaglercraftNetworkManager;
+import net.lax1dude.eaglercraft.v1_8.socket.PacketStatistics;
 import net.lax1dude.eaglercraft.v1_8.sp.SingleplayerServerController;
 import net.lax1dude.eaglercraft.v1_8.sp.internal.ClientPlatformSingleplayer;
 import net.lax1dude.eaglercraft.v1_8.sp.lan.LANServerController;
@@ -83,22 +85,10 @@ public class ClientIntegratedServerNetworkManager extends EaglercraftNetworkMana
 				FriendlyByteBuf input = new FriendlyByteBuf(nettyBuffer);
 				int pktId = input.readVarIntFromBuffer();
 				
-				Packet pkt;
-				try {
-					pkt = packetState.getPacket(PacketFlow.CLIENTBOUND, pktId);
-				}catch(IllegalAccessException | InstantiationException ex) {
-					throw new IOException("Recieved a packet with type " + pktId + " which is invalid!");
-				}
-				
-				if(pkt == null) {
-					throw new IOException("Recieved packet type " + pktId + " which is undefined in state " + packetState);
-				}
+				long start = EagRuntime.nanoTime();
+				Packet pkt = getInboundCodecs().decode(pktId, input);
 				
-				try {
-					pkt.readPacketData(input);
-				}catch(Throwable t) {
-					throw new IOException("Failed to read packet type '" + pkt.getClass().getSimpleName() + "'", t);
-				}
+				long decoded = EagRuntime.nanoTime();
 				
 				try {
 					pkt.processPacket(nethandler);
@@ -107,6 +97,8 @@ public class ClientIntegratedServerNetworkManager extends EaglercraftNetworkMana
 					logger.error(t);
 				}
 				
+				PacketStatistics.client.record(PacketStatistics.INBOUND, pkt.getClass(), next.length, decoded - start, EagRuntime.nanoTime() - decoded);
+				
 			}catch(Throwable t) {
 				logger.error("Failed to process socket frame {}! It'll be skipped for debug purposes.", debugPacketCounter);
 				logger.error(t);
@@ -129,6 +121,7 @@ public class ClientIntegratedServerNetworkManager extends EaglercraftNetworkMana
 			return;
 		}
 		
+		long start = EagRuntime.nanoTime();
 		temporaryBuffer.clear();
 		temporaryBuffer.writeVarIntToBuffer(i);
 		try {
@@ -138,11 +131,13 @@ public class ClientIntegratedServerNetworkManager extends EaglercraftNetworkMana
 			return;
 		}
 		
+		// this is the only copy the packet makes on its way to the worker
 		int len = temporaryBuffer.writerIndex();
 		byte[] bytes = new byte[len];
 		temporaryBuffer.getBytes(0, bytes);
+		PacketStatistics.client.record(PacketStatistics.OUTBOUND, pkt.getClass(), len, EagRuntime.nanoTime() - start, 0l);
 		
-		ClientPlatformSingleplayer.sendPacket(new IPCPacketData(address, bytes));
+		ClientPlatformSingleplayer.sendPacket(new IPCPacketData(address, bytes, true));
 	}
 
 	@Override
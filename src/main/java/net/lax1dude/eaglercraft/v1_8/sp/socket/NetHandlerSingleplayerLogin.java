@@ -200,21 +200,21 @@ public class NetHandlerSingleplayerLogin implements ClientLoginPacketListener {
 		);
 		
 		// Set up message controller for the protocol
-		netHandler.setEaglerMessageController(
-			new GameProtocolMessageController(
-				mp, 
-				GamePluginMessageConstants.CLIENT_TO_SERVER,
-				GameProtocolMessageController.createClientHandler(protocolVersion, netHandler),
-				(ch, msg) -> {
-					FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer().writeBytes(msg));
-					try {
-						netHandler.send(new ServerboundCustomPayloadPacket(ch, buf));
-					} finally {
-						buf.release();
-					}
+		GameProtocolMessageController messageController = new GameProtocolMessageController(
+			mp, 
+			GamePluginMessageConstants.CLIENT_TO_SERVER,
+			GameProtocolMessageController.createClientHandler(protocolVersion, netHandler),
+			(ch, msg) -> {
+				FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer().writeBytes(msg));
+				try {
+					netHandler.send(new ServerboundCustomPayloadPacket(ch, buf));
+				} finally {
+					buf.release();
 				}
-			)
+			}
 		);
+		netHandler.setEaglerMessageController(messageController);
+		this.networkManager.setMessageController(messageController);
 		
 		// Set the new packet handler
 		this.networkManager.setNetHandler(netHandler);
@@ -241,8 +241,7 @@ public class NetHandlerSingleplayerLogin implements ClientLoginPacketListener {
 	 */
 	@Override
 	public void handleCompression(ClientboundLoginCompressionPacket packet) {
-		// Set up compression if needed
-		this.networkManager.setupCompression(packet.getCompressionThreshold(), false);
+		this.networkManager.setupCompression(packet.getCompressionThreshold());
 	}
 
 	// Required interface methods with default implementations
@@ -19,6 +19,7 @@ package net.lax1dude.eaglercraft.v1_8.internal;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.teavm.jso.JSBody;
 import org.teavm.jso.webgl.WebGLUniformLocation;
 
 import net.lax1dude.eaglercraft.v1_8.internal.buffer.ByteBuffer;
@@ -30,6 +31,7 @@ import net.lax1dude.eaglercraft.v1_8.internal.teavm.WebGL2RenderingContext;
 import net.lax1dude.eaglercraft.v1_8.internal.teavm.WebGLANGLEInstancedArrays;
 import net.lax1dude.eaglercraft.v1_8.internal.teavm.WebGLBackBuffer;
 import net.lax1dude.eaglercraft.v1_8.internal.teavm.WebGLOESVertexArrayObject;
+import net.lax1dude.eaglercraft.v1_8.internal.teavm.WebGLQuery;
 import net.lax1dude.eaglercraft.v1_8.internal.teavm.WebGLVertexArray;
 import net.lax1dude.eaglercraft.v1_8.log4j.Level;
 import net.lax1dude.eaglercraft.v1_8.log4j.LogManager;
@@ -54,6 +56,7 @@ public class PlatformOpenGL {
 	static boolean hasOESTextureHalfFloat = false;
 	static boolean hasOESTextureHalfFloatLinear = false;
 	static boolean hasEXTTextureFilterAnisotropic = false;
+	static boolean hasEXTDisjointTimerQuery = false;
 	static boolean hasWEBGLDebugRendererInfo = false;
 
 	static WebGLANGLEInstancedArrays ANGLEInstancedArrays = null;
@@ -94,6 +97,7 @@ public class PlatformOpenGL {
 				hasOESTextureHalfFloat = glesVersIn == 200 && ctx.getExtension("OES_texture_half_float") != null;
 				hasOESTextureHalfFloatLinear = glesVersIn == 200 && ctx.getExtension("OES_texture_half_float_linear") != null;
 				hasEXTTextureFilterAnisotropic = ctx.getExtension("EXT_texture_filter_anisotropic") != null;
+				hasEXTDisjointTimerQuery = glesVersIn >= 300 && ctx.getExtension("EXT_disjoint_timer_query_webgl2") != null;
 			}else {
 				hasANGLEInstancedArrays = false;
 				hasEXTColorBufferFloat = false;
@@ -106,6 +110,7 @@ public class PlatformOpenGL {
 				hasOESTextureHalfFloat = false;
 				hasOESTextureHalfFloatLinear = false;
 				hasEXTTextureFilterAnisotropic = false;
+				hasEXTDisjointTimerQuery = false;
 			}
 			hasWEBGLDebugRendererInfo = ctx.getExtension("WEBGL_debug_renderer_info") != null;
 			
@@ -139,6 +144,7 @@ public class PlatformOpenGL {
 			hasOESTextureHalfFloat = false;
 			hasOESTextureHalfFloatLinear = false;
 			hasEXTTextureFilterAnisotropic = false;
+			hasEXTDisjointTimerQuery = false;
 			hasWEBGLDebugRendererInfo = false;
 			ANGLEInstancedArrays = null;
 			OESVertexArrayObject = null;
@@ -162,6 +168,7 @@ public class PlatformOpenGL {
 		if(hasOESTextureHalfFloat) exts.add("OES_texture_half_float");
 		if(hasOESTextureHalfFloatLinear) exts.add("OES_texture_half_float_linear");
 		if(hasEXTTextureFilterAnisotropic) exts.add("EXT_texture_filter_anisotropic");
+		if(hasEXTDisjointTimerQuery) exts.add("EXT_disjoint_timer_query_webgl2");
 		if(hasWEBGLDebugRendererInfo) exts.add("WEBGL_debug_renderer_info");
 		return exts;
 	}
@@ -352,6 +359,21 @@ public class PlatformOpenGL {
 		ctx.deleteQuery(((OpenGLObjects.QueryGL)obj).ptr);
 	}
 	
+	public static void _wglBeginQuery(int target, IQueryGL obj) {
+		ctx.beginQuery(target, ((OpenGLObjects.QueryGL)obj).ptr);
+	}
+	
+	public static void _wglEndQuery(int target) {
+		ctx.endQuery(target);
+	}
+	
+	public static int _wglGetQueryObjecti(IQueryGL obj, int param) {
+		return getQueryParameterN(ctx, ((OpenGLObjects.QueryGL)obj).ptr, param);
+	}
+	
+	@JSBody(params = { "ctx", "obj", "param" }, script = "return +ctx.getQueryParameter(obj, param);")
+	private static native int getQueryParameterN(WebGL2RenderingContext ctx, WebGLQuery obj, int param);
+	
 	public static void _wglBindBuffer(int target, IBufferGL obj) {
 		ctx.bindBuffer(target, obj != null ? ((OpenGLObjects.BufferGL)obj).ptr : null);
 	}
@@ -763,6 +785,13 @@ public class PlatformOpenGL {
 		return ctx.getParameteri(param);
 	}
 	
+	public static boolean _wglGetBoolean(int param) {
+		return getParameterBooleanN(ctx, param);
+	}
+	
+	@JSBody(params = { "ctx", "param" }, script = "return !!ctx.getParameter(param);")
+	private static native boolean getParameterBooleanN(WebGL2RenderingContext ctx, int param);
+	
 	public static int _wglGetError() {
 		return ctx.getError();
 	}
@@ -830,6 +859,10 @@ public class PlatformOpenGL {
 		return hasEXTTextureFilterAnisotropic;
 	}
 	
+	public static boolean checkTimerQueryCapable() {
+		return hasEXTDisjointTimerQuery;
+	}
+	
 	public static boolean checkNPOTCapable() {
 		return glesVers >= 300;
 	}
@@ -16,6 +16,11 @@
 
 package net.lax1dude.eaglercraft.v1_8.internal.teavm;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
 import org.teavm.interop.Async;
 import org.teavm.interop.AsyncCallback;
 import org.teavm.jso.JSBody;
@@ -29,6 +34,7 @@ import org.teavm.jso.indexeddb.IDBCursorRequest;
 import org.teavm.jso.indexeddb.IDBDatabase;
 import org.teavm.jso.indexeddb.IDBFactory;
 import org.teavm.jso.indexeddb.IDBGetRequest;
+import org.teavm.jso.indexeddb.IDBObjectStore;
 import org.teavm.jso.indexeddb.IDBObjectStoreParameters;
 import org.teavm.jso.indexeddb.IDBOpenDBRequest;
 import org.teavm.jso.indexeddb.IDBRequest;
@@ -144,9 +150,40 @@ public class IndexedDBFilesystem implements IEaglerFilesystem {
 	@Override
 	public void eaglerIterate(String pathName, VFSFilenameIterator itr, boolean recursive) {
 		if(recursive) {
-			AsyncHandlers.iterateFiles(database, pathName, false, itr);
+			AsyncHandlers.iterateFiles(database, pathName, false, -1, itr);
 		}else {
-			AsyncHandlers.iterateFiles(database, pathName, false, new VFSFilenameIteratorNonRecursive(itr, VFSFilenameIteratorNonRecursive.countSlashes(pathName) + 1));
+			AsyncHandlers.iterateFiles(database, pathName, false, VFSFilenameIteratorNonRecursive.countSlashes(pathName) + 1, itr);
+		}
+	}
+
+	@Override
+	public Map<String,ByteBuffer> readAll(Collection<String> pathNames) {
+		String[] names = pathNames.toArray(new String[pathNames.size()]);
+		ArrayBuffer[] results = AsyncHandlers.readFiles(database, names);
+		Map<String,ByteBuffer> ret = new LinkedHashMap<>();
+		if(results != null) {
+			for(int i = 0; i < names.length; ++i) {
+				if(results[i] != null) {
+					ret.put(names[i], EaglerArrayBufferAllocator.wrapByteBufferTeaVM(Int8Array.create(results[i])));
+				}
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public void writeAll(Map<String,ByteBuffer> files) {
+		String[] names = new String[files.size()];
+		ArrayBuffer[] data = new ArrayBuffer[names.length];
+		int i = 0;
+		for(Entry<String,ByteBuffer> etr : files.entrySet()) {
+			names[i] = etr.getKey();
+			ByteBuffer buf = etr.getValue();
+			data[i] = buf != null ? EaglerArrayBufferAllocator.getDataView8Unsigned(buf).getBuffer() : null;
+			++i;
+		}
+		if(!AsyncHandlers.writeFiles(database, names, data).bool) {
+			throw new EaglerFileSystemException("Failed to write batch of " + names.length + " files to indexeddb table");
 		}
 	}
 
@@ -280,13 +317,23 @@ public class IndexedDBFilesystem implements IEaglerFilesystem {
 		private static native String readKey(JSObject k);
 		
 		@Async
-		protected static native Integer iterateFiles(IDBDatabase db, final String prefix, boolean rw, final VFSFilenameIterator itr);
+		protected static native Integer iterateFiles(IDBDatabase db, final String prefix, boolean rw, final int slashCount, final VFSFilenameIterator itr);
+		
+		@JSBody(params = { "store", "prefix" }, script = "return prefix.length === 0 ? store.openKeyCursor() : "
+				+ "store.openKeyCursor(IDBKeyRange.bound([prefix], [prefix + \"\\uffff\"]));")
+		private static native IDBCursorRequest openKeyCursorPrefix(IDBObjectStore store, String prefix);
+		
+		@JSBody(params = { "cursor", "k" }, script = "cursor.continue([k]);")
+		private static native void continueToKey(IDBCursor cursor, String k);
 		
-		private static void iterateFiles(IDBDatabase db, final String prefix, boolean rw, final VFSFilenameIterator itr, final AsyncCallback<Integer> cb) {
+		/**
+		 * Only visits keys in the prefix range, when slashCount is not -1 whole
+		 * subdirectories deeper than slashCount are skipped over by seeking past them
+		 */
+		private static void iterateFiles(IDBDatabase db, final String prefix, boolean rw, final int slashCount, final VFSFilenameIterator itr, final AsyncCallback<Integer> cb) {
 			IDBTransaction tx = db.transaction("filesystem", rw ? "readwrite" : "readonly");
-			final IDBCursorRequest r = tx.objectStore("filesystem").openCursor();
+			final IDBCursorRequest r = openKeyCursorPrefix(tx.objectStore("filesystem"), prefix);
 			final int[] res = new int[1];
-			final boolean b = prefix.length() == 0;
 			TeaVMUtils.addEventListener(r, "success", new EventHandler() {
 				@Override
 				public void handleEvent() {
@@ -296,16 +343,27 @@ public class IndexedDBFilesystem implements IEaglerFilesystem {
 						return;
 					}
 					String k = readKey(c.getKey());
-					if(k != null) {
-						if(b || k.startsWith(prefix)) {
-							int ci = res[0]++;
-							try {
-								itr.next(k);
-							}catch(VFSIterator2.BreakLoop ex) {
-								cb.complete(res[0]);
+					if(k != null && k.startsWith(prefix)) {
+						if(slashCount != -1) {
+							int j = 0;
+							for(int i = 0, l = k.length(); i < l; ++i) {
+								if(k.charAt(i) == '/' && ++j > slashCount) {
+									continueToKey(c, k.substring(0, i + 1) + "\uffff");
+									return;
+								}
+							}
+							if(j != slashCount) {
+								c.doContinue();
 								return;
 							}
 						}
+						++res[0];
+						try {
+							itr.next(k);
+						}catch(VFSIterator2.BreakLoop ex) {
+							cb.complete(res[0]);
+							return;
+						}
 					}
 					c.doContinue();
 				}
@@ -338,6 +396,72 @@ public class IndexedDBFilesystem implements IEaglerFilesystem {
 			});
 		}
 		
+		@Async
+		protected static native ArrayBuffer[] readFiles(IDBDatabase db, String[] names);
+		
+		private static void readFiles(IDBDatabase db, String[] names, final AsyncCallback<ArrayBuffer[]> cb) {
+			final ArrayBuffer[] ret = new ArrayBuffer[names.length];
+			if(names.length == 0) {
+				cb.complete(ret);
+				return;
+			}
+			IDBTransaction tx = db.transaction("filesystem", "readonly");
+			IDBObjectStore store = tx.objectStore("filesystem");
+			for(int i = 0; i < names.length; ++i) {
+				final int j = i;
+				final IDBGetRequest r = store.get(makeTheFuckingKeyWork(names[i]));
+				TeaVMUtils.addEventListener(r, "success", new EventHandler() {
+					@Override
+					public void handleEvent() {
+						ret[j] = readRow(r.getResult());
+					}
+				});
+			}
+			TeaVMUtils.addEventListener(tx, "complete", new EventHandler() {
+				@Override
+				public void handleEvent() {
+					cb.complete(ret);
+				}
+			});
+			TeaVMUtils.addEventListener(tx, "abort", new EventHandler() {
+				@Override
+				public void handleEvent() {
+					cb.complete(null);
+				}
+			});
+		}
+		
+		@Async
+		protected static native BooleanResult writeFiles(IDBDatabase db, String[] names, ArrayBuffer[] data);
+		
+		private static void writeFiles(IDBDatabase db, String[] names, ArrayBuffer[] data, final AsyncCallback<BooleanResult> cb) {
+			if(names.length == 0) {
+				cb.complete(BooleanResult.TRUE);
+				return;
+			}
+			IDBTransaction tx = db.transaction("filesystem", "readwrite");
+			IDBObjectStore store = tx.objectStore("filesystem");
+			for(int i = 0; i < names.length; ++i) {
+				if(data[i] != null) {
+					store.put(writeRow(names[i], data[i]));
+				}else {
+					store.delete(makeTheFuckingKeyWork(names[i]));
+				}
+			}
+			TeaVMUtils.addEventListener(tx, "complete", new EventHandler() {
+				@Override
+				public void handleEvent() {
+					cb.complete(BooleanResult.TRUE);
+				}
+			});
+			TeaVMUtils.addEventListener(tx, "abort", new EventHandler() {
+				@Override
+				public void handleEvent() {
+					cb.complete(BooleanResult.FALSE);
+				}
+			});
+		}
+		
 		@JSBody(params = { "pat", "dat" }, script = "return { path: pat, data: dat };")
 		protected static native JSObject writeRow(String name, ArrayBuffer data);
 		
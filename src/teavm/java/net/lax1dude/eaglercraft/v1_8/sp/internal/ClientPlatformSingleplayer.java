@@ -87,6 +87,9 @@ public class ClientPlatformSingleplayer {
 	@JSBody(params = { "w", "ch", "dat" }, script = "w.postMessage({ ch: ch, dat : dat });")
 	private static native void sendWorkerPacket(Worker w, String channel, ArrayBuffer arr);
 
+	@JSBody(params = { "w", "ch", "dat" }, script = "w.postMessage({ ch: ch, dat : dat }, [dat]);")
+	private static native void sendWorkerPacketTransfer(Worker w, String channel, ArrayBuffer arr);
+
 	@JSBody(params = { "w", "workerArgs" }, script = "w.postMessage({ msg : workerArgs });")
 	private static native void sendWorkerStartPacket(Worker w, String workerArgs);
 
@@ -282,6 +285,12 @@ public class ClientPlatformSingleplayer {
 	public static void sendPacket(IPCPacketData packet) {
 		if(isSingleThreadMode) {
 			SingleThreadWorker.sendPacketToWorker(packet);
+		}else if(packet.transferable) {
+			if(workerObj != null) {
+				sendWorkerPacketTransfer(workerObj, packet.channel, TeaVMUtils.unwrapArrayBuffer(packet.contents));
+			}else {
+				logger.error("Dropped IPC packet on channel \"{}\", the worker is not running", packet.channel);
+			}
 		}else {
 			sendPacketTeaVM(packet.channel, TeaVMUtils.unwrapArrayBuffer(packet.contents));
 		}
@@ -156,9 +156,14 @@ public class ServerPlatformSingleplayer {
 	@JSBody(params = { "ch", "dat" }, script = "postMessage({ ch: ch, dat : dat });")
 	public static native void sendPacketTeaVM(String channel, ArrayBuffer arr);
 
+	@JSBody(params = { "ch", "dat" }, script = "postMessage({ ch: ch, dat : dat }, [dat]);")
+	private static native void sendPacketTeaVMTransfer(String channel, ArrayBuffer arr);
+
 	public static void sendPacket(IPCPacketData packet) {
 		if(singleThreadMode) {
 			singleThreadCB.accept(packet);
+		}else if(packet.transferable) {
+			sendPacketTeaVMTransfer(packet.channel, TeaVMUtils.unwrapArrayBuffer(packet.contents));
 		}else {
 			sendPacketTeaVM(packet.channel, TeaVMUtils.unwrapArrayBuffer(packet.contents));
 		}
@@ -69,6 +69,7 @@ public class PlatformOpenGL {
 
 	static final int CAP_B_BIT_HDR_LINEAR16F = 1;
 	static final int CAP_B_BIT_HDR_LINEAR32F = 2;
+	static final int CAP_B_BIT_TIMER_QUERY = 4;
 	static int capBBits = 0;
 
 	static void initContext() {
@@ -300,6 +301,23 @@ public class PlatformOpenGL {
 	@Import(module = "platformOpenGL", name = "glDeleteQueries")
 	static native void _wglDeleteQueriesN(WebGLQuery objId);
 
+	public static void _wglBeginQuery(int target, IQueryGL objId) {
+		_wglBeginQueryN(target, ((OpenGLObjects.QueryGL)objId).ptr);
+	}
+
+	@Import(module = "platformOpenGL", name = "glBeginQuery")
+	static native void _wglBeginQueryN(int target, WebGLQuery objId);
+
+	@Import(module = "platformOpenGL", name = "glEndQuery")
+	public static native void _wglEndQuery(int target);
+
+	public static int _wglGetQueryObjecti(IQueryGL objId, int param) {
+		return _wglGetQueryObjectiN(((OpenGLObjects.QueryGL)objId).ptr, param);
+	}
+
+	@Import(module = "platformOpenGL", name = "glGetQueryObjecti")
+	static native int _wglGetQueryObjectiN(WebGLQuery objId, int param);
+
 	public static void _wglBindBuffer(int target, IBufferGL bufObj) {
 		_wglBindBufferN(target, bufObj != null ? ((OpenGLObjects.BufferGL)bufObj).ptr : null);
 	}
@@ -760,6 +778,13 @@ public class PlatformOpenGL {
 	@Import(module = "platformOpenGL", name = "glGetInteger")
 	public static native int _wglGetInteger(int param);
 
+	public static boolean _wglGetBoolean(int param) {
+		return _wglGetBooleanN(param) != 0;
+	}
+
+	@Import(module = "platformOpenGL", name = "glGetBoolean")
+	static native int _wglGetBooleanN(int param);
+
 	@Import(module = "platformOpenGL", name = "glGetError")
 	public static native int _wglGetError();
 
@@ -830,6 +855,10 @@ public class PlatformOpenGL {
 		return (capABits & CAP_A_BIT_ANISOTROPIC) != 0;
 	}
 
+	public static boolean checkTimerQueryCapable() {
+		return (capBBits & CAP_B_BIT_TIMER_QUERY) != 0;
+	}
+
 	public static String[] getAllExtensions() {
 		return BetterJSStringConverter.stringArrayFromJS(getAllExtensions0());
 	}
@@ -16,6 +16,11 @@
 
 package net.lax1dude.eaglercraft.v1_8.internal.wasm_gc_teavm;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
 import org.teavm.interop.Import;
 import org.teavm.jso.JSObject;
 import org.teavm.jso.JSProperty;
@@ -189,6 +194,68 @@ public class IndexedDBFilesystem implements IEaglerFilesystem {
 	@Import(module = "platformFilesystem", name = "eaglerIterate")
 	private static native JSDatabaseIteratorResult eaglerIterate(IDBDatabase database, JSString pathName, boolean recursive);
 
+	private interface JSDatabaseBatch extends JSObject {
+
+		@JSProperty
+		int getLength();
+
+		ArrayBuffer getData(int idx);
+
+	}
+
+	@Import(module = "platformFilesystem", name = "eaglerBatchCreate")
+	private static native JSDatabaseBatch eaglerBatchCreate();
+
+	@Import(module = "platformFilesystem", name = "eaglerBatchPut")
+	private static native void eaglerBatchPut(JSDatabaseBatch batch, JSString pathName, ArrayBuffer arr);
+
+	@Override
+	public Map<String,ByteBuffer> readAll(Collection<String> pathNames) {
+		String[] names = pathNames.toArray(new String[pathNames.size()]);
+		JSDatabaseBatch batch = eaglerBatchCreate();
+		for(int i = 0; i < names.length; ++i) {
+			eaglerBatchPut(batch, BetterJSStringConverter.stringToJS(names[i]), null);
+		}
+		JSDatabaseBatch result = eaglerReadAll(database, batch);
+		Map<String,ByteBuffer> ret = new LinkedHashMap<>();
+		if(result != null) {
+			for(int i = 0; i < names.length; ++i) {
+				ArrayBuffer ar = result.getData(i);
+				if(ar != null) {
+					Uint8Array arr = new Uint8Array(ar);
+					ByteBuffer buf = PlatformRuntime.allocateByteBuffer(arr.getLength());
+					WASMGCBufferAllocator.getUnsignedByteBufferView(buf).set(arr);
+					ret.put(names[i], buf);
+				}
+			}
+		}
+		return ret;
+	}
+
+	@Import(module = "platformFilesystem", name = "eaglerReadAll")
+	private static native JSDatabaseBatch eaglerReadAll(IDBDatabase database, JSDatabaseBatch batch);
+
+	@Override
+	public void writeAll(Map<String,ByteBuffer> files) {
+		JSDatabaseBatch batch = eaglerBatchCreate();
+		for(Entry<String,ByteBuffer> etr : files.entrySet()) {
+			ByteBuffer data = etr.getValue();
+			ArrayBuffer ar = null;
+			if(data != null) {
+				Uint8Array arr = new Uint8Array(data.remaining());
+				arr.set(WASMGCBufferAllocator.getByteBufferView(data));
+				ar = arr.getBuffer();
+			}
+			eaglerBatchPut(batch, BetterJSStringConverter.stringToJS(etr.getKey()), ar);
+		}
+		if(!eaglerWriteAll(database, batch)) {
+			throw new EaglerFileSystemException("Failed to write batch of " + files.size() + " files to indexeddb table");
+		}
+	}
+
+	@Import(module = "platformFilesystem", name = "eaglerWriteAll")
+	private static native boolean eaglerWriteAll(IDBDatabase database, JSDatabaseBatch batch);
+
 	@Override
 	public void closeHandle() {
 		if(database != null) {
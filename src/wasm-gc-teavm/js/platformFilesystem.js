@@ -235,6 +235,108 @@ function eaglerSizeImpl(database, pathName) {
 
 eagruntimeImpl.platformFilesystem["eaglerSize"] = new WebAssembly.Suspending(eaglerSizeImpl);
 
+/**
+ * @return {Object}
+ */
+function eaglerBatchCreateImpl() {
+	const paths = [];
+	const data = [];
+	return {
+		"paths": paths,
+		"data": data,
+		"length": 0,
+		/**
+		 * @param {number} idx
+		 * @return {ArrayBuffer}
+		 */
+		"getData": function(idx) {
+			return data[idx];
+		}
+	};
+}
+
+eagruntimeImpl.platformFilesystem["eaglerBatchCreate"] = eaglerBatchCreateImpl;
+
+/**
+ * @param {Object} batch
+ * @param {string} pathName
+ * @param {ArrayBuffer} arr
+ */
+function eaglerBatchPutImpl(batch, pathName, arr) {
+	batch["paths"].push(pathName);
+	batch["data"].push(arr);
+	batch["length"] = batch["paths"].length;
+}
+
+eagruntimeImpl.platformFilesystem["eaglerBatchPut"] = eaglerBatchPutImpl;
+
+/**
+ * @param {IDBDatabase} database
+ * @param {Object} batch
+ * @return {Promise}
+ */
+function eaglerReadAllImpl(database, batch) {
+	return new Promise(function(resolve) {
+		const paths = batch["paths"];
+		const result = eaglerBatchCreateImpl();
+		if(paths.length === 0) {
+			resolve(result);
+			return;
+		}
+		const tx = database.transaction("filesystem", "readonly");
+		const store = tx.objectStore("filesystem");
+		for(let i = 0; i < paths.length; ++i) {
+			const r = store.get([paths[i]]);
+			r.addEventListener("success", function() {
+				result["paths"][i] = paths[i];
+				result["data"][i] = readDBRow(r.result);
+			});
+		}
+		tx.addEventListener("complete", function() {
+			result["length"] = paths.length;
+			resolve(result);
+		});
+		tx.addEventListener("abort", function() {
+			resolve(null);
+		});
+	});
+}
+
+eagruntimeImpl.platformFilesystem["eaglerReadAll"] = new WebAssembly.Suspending(eaglerReadAllImpl);
+
+/**
+ * @param {IDBDatabase} database
+ * @param {Object} batch
+ * @return {Promise}
+ */
+function eaglerWriteAllImpl(database, batch) {
+	return new Promise(function(resolve) {
+		const paths = batch["paths"];
+		const data = batch["data"];
+		if(paths.length === 0) {
+			resolve(true);
+			return;
+		}
+		const tx = database.transaction("filesystem", "readwrite");
+		const store = tx.objectStore("filesystem");
+		for(let i = 0; i < paths.length; ++i) {
+			if(data[i]) {
+				store.put(writeDBRow(paths[i], data[i]));
+			}else {
+				store.delete([paths[i]]);
+			}
+		}
+		tx.addEventListener("complete", function() {
+			resolve(true);
+		});
+		tx.addEventListener("abort", function() {
+			resolve(false);
+		});
+	});
+}
+
+eagruntimeImpl.platformFilesystem["eaglerWriteAll"] = new WebAssembly.Suspending(eaglerWriteAllImpl);
+
 /**
  * @param {string} str
  * @return {number}
@@ -260,9 +362,9 @@ function eaglerIterateImpl(database, pathName, recursive) {
 	return new Promise(function(resolve) {
 		const rows = [];
 		const tx = database.transaction("filesystem", "readonly");
-		const r = tx.objectStore("filesystem").openCursor();
-		const b = pathName.length === 0;
-		const pc = recursive ? -1 : countSlashes(pathName);
+		const store = tx.objectStore("filesystem");
+		const r = pathName.length === 0 ? store.openKeyCursor() : store.openKeyCursor(IDBKeyRange.bound([pathName], [pathName + "\uffff"]));
+		const pc = recursive ? -1 : (countSlashes(pathName) + 1);
 		r.addEventListener("success", function() {
 			const c = r.result;
 			if(c === null || c.key === null) {
@@ -279,8 +381,20 @@ function eaglerIterateImpl(database, pathName, recursive) {
 				return;
 			}
 			const k = readDBKey(c.key);
-			if(k != null) {
-				if((b || k.startsWith(pathName)) && (recursive || countSlashes(k) === pc)) {
+			if(k != null && k.startsWith(pathName)) {
+				if(pc !== -1) {
+					var j = 0;
+					for(var i = 0, l = k.length; i < l; ++i) {
+						if(k.charCodeAt(i) === 47 && ++j > pc) {
+							// skip the rest of this subdirectory
+							c.continue([k.substring(0, i + 1) + "\uffff"]);
+							return;
+						}
+					}
+					if(j === pc) {
+						rows.push(k);
+					}
+				}else {
 					rows.push(k);
 				}
 			}
@@ -33,6 +33,7 @@ const CAP_A_BIT_ANISOTROPIC = 128;
 
 const CAP_B_BIT_HDR_LINEAR16F = 1;
 const CAP_B_BIT_HDR_LINEAR32F = 2;
+const CAP_B_BIT_TIMER_QUERY = 4;
 
 const platfOpenGLName = "platformOpenGL";
 
@@ -57,6 +58,7 @@ function setCurrentGLContext(ctx, glesVersIn, allowExts, glImports) {
 	const hasOESTextureHalfFloat = allowExts && glesVersIn === 200 && ctx.getExtension("OES_texture_half_float") !== null;
 	const hasOESTextureHalfFloatLinear = allowExts && glesVersIn === 200 && ctx.getExtension("OES_texture_half_float_linear") !== null;
 	const hasEXTTextureFilterAnisotropic = allowExts && ctx.getExtension("EXT_texture_filter_anisotropic") !== null;
+	const hasEXTDisjointTimerQuery = allowExts && glesVersIn >= 300 && ctx.getExtension("EXT_disjoint_timer_query_webgl2") !== null;
 	const hasWEBGLDebugRendererInfo = ctx.getExtension("WEBGL_debug_renderer_info") !== null;
 	const hasFBO16FSupport = glesVersIn >= 320 || ((glesVersIn >= 300 || hasOESTextureFloat) && (hasEXTColorBufferFloat || hasEXTColorBufferHalfFloat));
 	const hasFBO32FSupport = glesVersIn >= 320 || ((glesVersIn >= 300 || hasOESTextureHalfFloat) && hasEXTColorBufferFloat);
@@ -74,6 +76,7 @@ function setCurrentGLContext(ctx, glesVersIn, allowExts, glImports) {
 	if(hasEXTTextureFilterAnisotropic) capBits[3] |= CAP_A_BIT_ANISOTROPIC;
 	if(hasLinearHDR16FSupport) capBits[4] |= CAP_B_BIT_HDR_LINEAR16F;
 	if(hasLinearHDR32FSupport) capBits[4] |= CAP_B_BIT_HDR_LINEAR32F;
+	if(hasEXTDisjointTimerQuery) capBits[4] |= CAP_B_BIT_TIMER_QUERY;
 	
 	/**
 	 * @param {number} idx
@@ -116,6 +119,17 @@ function setCurrentGLContext(ctx, glesVersIn, allowExts, glImports) {
 	glImports["glDeleteFramebuffer"] = ctx.deleteFramebuffer.bind(ctx);
 	glImports["glDeleteRenderbuffer"] = ctx.deleteRenderbuffer.bind(ctx);
 	glImports["glDeleteQueries"] = glesVersIn >= 300 ? ctx.deleteQuery.bind(ctx) : unsupportedFunc(platfOpenGLName, "glDeleteQueries");
+	glImports["glBeginQuery"] = glesVersIn >= 300 ? ctx.beginQuery.bind(ctx) : unsupportedFunc(platfOpenGLName, "glBeginQuery");
+	glImports["glEndQuery"] = glesVersIn >= 300 ? ctx.endQuery.bind(ctx) : unsupportedFunc(platfOpenGLName, "glEndQuery");
+	
+	/**
+	 * @param {WebGLQuery} obj
+	 * @param {number} p
+	 * @return {number}
+	 */
+	glImports["glGetQueryObjecti"] = glesVersIn >= 300 ? function(obj, p) {
+		return +ctx.getQueryParameter(obj, p);
+	} : unsupportedFunc(platfOpenGLName, "glGetQueryObjecti");
 	glImports["glBindBuffer"] = ctx.bindBuffer.bind(ctx);
 	glImports["glBufferData"] = ctx.bufferData.bind(ctx);
 	glImports["glBufferSubData"] = ctx.bufferSubData.bind(ctx);
@@ -189,6 +203,7 @@ function setCurrentGLContext(ctx, glesVersIn, allowExts, glImports) {
 	if(hasOESTextureHalfFloat) exts.push("OES_texture_half_float");
 	if(hasOESTextureHalfFloatLinear) exts.push("OES_texture_half_float_linear");
 	if(hasEXTTextureFilterAnisotropic) exts.push("EXT_texture_filter_anisotropic");
+	if(hasEXTDisjointTimerQuery) exts.push("EXT_disjoint_timer_query_webgl2");
 	if(hasWEBGLDebugRendererInfo) exts.push("WEBGL_debug_renderer_info");
 	
 	/**
@@ -207,6 +222,14 @@ function setCurrentGLContext(ctx, glesVersIn, allowExts, glImports) {
 		return (typeof ret === "number") ? (/** @type {number} */ (ret)) : 0;
 	};
 	
+	/**
+	 * @param {number} p
+	 * @return {number}
+	 */
+	glImports["glGetBoolean"] = function(p) {
+		return ctx.getParameter(p) ? 1 : 0;
+	};
+	
 	/**
 	 * @param {number} p
 	 * @return {string|null}
@@ -315,6 +338,9 @@ function setNoGLContext(glImports) {
 	setUnsupportedFunc(glImports, platfOpenGLName, "glDeleteFramebuffer");
 	setUnsupportedFunc(glImports, platfOpenGLName, "glDeleteRenderbuffer");
 	setUnsupportedFunc(glImports, platfOpenGLName, "glDeleteQueries");
+	setUnsupportedFunc(glImports, platfOpenGLName, "glBeginQuery");
+	setUnsupportedFunc(glImports, platfOpenGLName, "glEndQuery");
+	setUnsupportedFunc(glImports, platfOpenGLName, "glGetQueryObjecti");
 	setUnsupportedFunc(glImports, platfOpenGLName, "glBindBuffer");
 	setUnsupportedFunc(glImports, platfOpenGLName, "glBufferData");
 	setUnsupportedFunc(glImports, platfOpenGLName, "glBufferSubData");
@@ -373,6 +399,7 @@ function setNoGLContext(glImports) {
 	setUnsupportedFunc(glImports, platfOpenGLName, "glBindRenderbuffer");
 	setUnsupportedFunc(glImports, platfOpenGLName, "glFramebufferRenderbuffer");
 	setUnsupportedFunc(glImports, platfOpenGLName, "glGetInteger");
+	setUnsupportedFunc(glImports, platfOpenGLName, "glGetBoolean");
 	setUnsupportedFunc(glImports, platfOpenGLName, "glGetError");
 	setUnsupportedFunc(glImports, platfOpenGLName, "getAllExtensions");
 	setUnsupportedFunc(glImports, platfOpenGLName, "dumpActiveExtensions");